@@ -0,0 +1,125 @@
+package com.crossover.trial.weather.benchmark;
+
+import com.crossover.trial.weather.WeatherException;
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.repository.AirportDataRepository;
+import com.crossover.trial.weather.service.WeatherUpdateService;
+import com.crossover.trial.weather.web.rest.RestMetricsEndpoint;
+import com.google.gson.Gson;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Application context of benchmarks: repository, services and endpoints wired as in the server, without
+ * the web container and actuator, with default configuration.
+ */
+@Configuration
+@ComponentScan(value = {"com.crossover.trial.weather.repository", "com.crossover.trial.weather.service",
+    "com.crossover.trial.weather.web.rest"},
+    // exposes actuator metrics, which are not configured without Spring Boot
+    excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = RestMetricsEndpoint.class))
+public class BenchmarkContext {
+
+    /**
+     * Number of distinct 3 letter IATA codes.
+     */
+    private static final int IATA_CODES = 26 * 26 * 26;
+
+    /**
+     * @return a shared {@link Gson} object
+     */
+    @Bean
+    public Gson gson() {
+        return new Gson();
+    }
+
+    /**
+     * @return resolver of configuration placeholders to their defaults
+     */
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer properties() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    /**
+     * @return started context
+     */
+    public static AnnotationConfigApplicationContext start() {
+        return new AnnotationConfigApplicationContext(BenchmarkContext.class);
+    }
+
+    /**
+     * Creates airports uniformly distributed over the globe, with 3 letter codes for the first 17576 airports
+     * and 4 letter codes for the rest.
+     *
+     * @param count number of airports
+     * @param seed  seed of coordinates
+     * @return airports
+     */
+    public static List<AirportData> airports(final int count, final long seed) {
+        Random random = new Random(seed);
+        List<AirportData> airports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AirportData airportData = new AirportData();
+            airportData.setIata(iata(i));
+            // uniform over the sphere, not over the coordinates
+            airportData.setLatitude(Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)));
+            airportData.setLongitude(random.nextDouble() * 360 - 180);
+            airports.add(airportData);
+        }
+        return airports;
+    }
+
+    /**
+     * Saves the airports with a data point of every type.
+     *
+     * @param context  started context
+     * @param airports airports to save
+     * @throws WeatherException if any
+     */
+    public static void load(final AnnotationConfigApplicationContext context, final List<AirportData> airports)
+        throws WeatherException {
+        context.getBean(AirportDataRepository.class).save(airports);
+        WeatherUpdateService weatherUpdateService = context.getBean(WeatherUpdateService.class);
+        for (AirportData airportData : airports) {
+            for (DataPointType pointType : DataPointType.values()) {
+                weatherUpdateService.update(airportData.getIata(), pointType, dataPoint(pointType));
+            }
+        }
+    }
+
+    /**
+     * @param pointType type of the data point
+     * @return data point valid for the type
+     */
+    public static DataPoint dataPoint(final DataPointType pointType) {
+        int mean = pointType.min();
+        return new DataPoint.Builder()
+            .withMean(mean).withFirst(mean).withMedian(mean).withLast(mean).withCount(10).build();
+    }
+
+    /**
+     * @param index index of airport
+     * @return IATA code of the airport
+     */
+    public static String iata(final int index) {
+        StringBuilder iata = new StringBuilder();
+        int rest = index;
+        int length = index < IATA_CODES ? 3 : 4;
+        for (int i = 0; i < length; i++) {
+            iata.append((char) ('A' + rest % 26));
+            rest /= 26;
+        }
+        return iata.toString();
+    }
+}
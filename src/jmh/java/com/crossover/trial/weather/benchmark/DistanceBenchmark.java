@@ -0,0 +1,109 @@
+package com.crossover.trial.weather.benchmark;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.util.DistanceMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of great-circle distance: haversine between airports and the batch dot-product form used by
+ * the spatial index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DistanceBenchmark {
+
+    /**
+     * Number of airports a distance is calculated to per invocation.
+     */
+    private static final int AIRPORTS = 1024;
+
+    /**
+     * Center of distances.
+     */
+    private AirportData center;
+
+    /**
+     * Airports the distance is calculated to.
+     */
+    private AirportData[] airports;
+
+    /**
+     * X coordinates of unit vectors of the airports.
+     */
+    private double[] xs;
+
+    /**
+     * Y coordinates of the unit vectors.
+     */
+    private double[] ys;
+
+    /**
+     * Z coordinates of the unit vectors.
+     */
+    private double[] zs;
+
+    /**
+     * Calculated distances.
+     */
+    private double[] distances;
+
+    /**
+     * Creates airports.
+     */
+    @Setup
+    public void setUp() {
+        List<AirportData> airportData = BenchmarkContext.airports(AIRPORTS + 1, 42);
+        center = airportData.get(AIRPORTS);
+        airports = airportData.subList(0, AIRPORTS).toArray(new AirportData[AIRPORTS]);
+        xs = new double[AIRPORTS];
+        ys = new double[AIRPORTS];
+        zs = new double[AIRPORTS];
+        for (int i = 0; i < AIRPORTS; i++) {
+            double[] vector = DistanceMath.toUnitVector(airports[i].getLatitude(), airports[i].getLongitude());
+            xs[i] = vector[0];
+            ys[i] = vector[1];
+            zs[i] = vector[2];
+        }
+        distances = new double[AIRPORTS];
+    }
+
+    /**
+     * @param blackhole consumer of distances
+     */
+    @Benchmark
+    @OperationsPerInvocation(AIRPORTS)
+    public void calculateDistance(final Blackhole blackhole) {
+        for (AirportData airportData : airports) {
+            blackhole.consume(DistanceMath.calculateDistance(center, airportData));
+        }
+    }
+
+    /**
+     * @return calculated distances
+     */
+    @Benchmark
+    @OperationsPerInvocation(AIRPORTS)
+    public double[] calculateDistances() {
+        double[] vector = DistanceMath.toUnitVector(center.getLatitude(), center.getLongitude());
+        DistanceMath.calculateDistances(vector[0], vector[1], vector[2], xs, ys, zs, 0, AIRPORTS, distances);
+        return distances;
+    }
+}
@@ -0,0 +1,134 @@
+package com.crossover.trial.weather.benchmark;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.service.WeatherUpdateService;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collector hot path: parsing a JSON data point as the collector endpoint does and applying it, either to
+ * atmospheric information alone or through {@link WeatherUpdateService} with all listeners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IngestionBenchmark {
+
+    /**
+     * Number of airports updates are spread over.
+     */
+    @Param({"10", "10000"})
+    private int airports;
+
+    /**
+     * Application context.
+     */
+    private AnnotationConfigApplicationContext context;
+
+    /**
+     * Parser of data points.
+     */
+    private Gson gson;
+
+    /**
+     * Applies updates.
+     */
+    private WeatherUpdateService weatherUpdateService;
+
+    /**
+     * Updated atmospheric information.
+     */
+    private AtmosphericInformation atmosphericInformation;
+
+    /**
+     * Data point in the collector request format.
+     */
+    private String json;
+
+    /**
+     * IATA codes of updated airports.
+     */
+    private String[] iatas;
+
+    /**
+     * Index of the next updated airport.
+     */
+    private int next;
+
+    /**
+     * Loads airports.
+     *
+     * @throws Exception if any
+     */
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        gson = context.getBean(Gson.class);
+        weatherUpdateService = context.getBean(WeatherUpdateService.class);
+        atmosphericInformation = new AtmosphericInformation();
+        json = gson.toJson(new DataPoint.Builder()
+            .withMean(22.5).withFirst(10).withMedian(20).withLast(30).withCount(10).build());
+
+        List<AirportData> airportData = BenchmarkContext.airports(airports, 42);
+        BenchmarkContext.load(context, airportData);
+        iatas = airportData.stream().map(AirportData::getIata).toArray(String[]::new);
+    }
+
+    /**
+     * Closes the context.
+     */
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * @return parsed data point
+     */
+    @Benchmark
+    public DataPoint parse() {
+        return gson.fromJson(json, DataPoint.class);
+    }
+
+    /**
+     * @return updated atmospheric information
+     * @throws Exception if any
+     */
+    @Benchmark
+    public AtmosphericInformation parseAndUpdate() throws Exception {
+        atmosphericInformation.update(DataPointType.WIND, gson.fromJson(json, DataPoint.class));
+        return atmosphericInformation;
+    }
+
+    /**
+     * @return <code>true</code> if the airport was updated
+     * @throws Exception if any
+     */
+    @Benchmark
+    public boolean parseAndUpdateService() throws Exception {
+        String iata = iatas[next];
+        next = next + 1 == iatas.length ? 0 : next + 1;
+        return weatherUpdateService.update(iata, DataPointType.WIND, gson.fromJson(json, DataPoint.class));
+    }
+}
@@ -0,0 +1,80 @@
+package com.crossover.trial.weather.benchmark;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.web.rest.WeatherQueryEndpoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health check with statistics over airports which were all updated and queried recently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PingBenchmark {
+
+    /**
+     * Number of airports.
+     */
+    @Param({"10", "1000", "10000", "100000"})
+    private int airports;
+
+    /**
+     * Application context.
+     */
+    private AnnotationConfigApplicationContext context;
+
+    /**
+     * Queried endpoint.
+     */
+    private WeatherQueryEndpoint weatherQueryEndpoint;
+
+    /**
+     * Loads and queries airports.
+     *
+     * @throws Exception if any
+     */
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        weatherQueryEndpoint = context.getBean(WeatherQueryEndpoint.class);
+        List<AirportData> airportData = BenchmarkContext.airports(airports, 42);
+        BenchmarkContext.load(context, airportData);
+        for (int i = 0; i < airportData.size(); i++) {
+            weatherQueryEndpoint.weather(airportData.get(i).getIata(), Integer.toString(i % 100));
+        }
+    }
+
+    /**
+     * Closes the context.
+     */
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * @return health check response
+     */
+    @Benchmark
+    public String ping() {
+        return weatherQueryEndpoint.ping();
+    }
+}
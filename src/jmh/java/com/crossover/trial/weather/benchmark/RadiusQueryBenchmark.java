@@ -0,0 +1,122 @@
+package com.crossover.trial.weather.benchmark;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.service.QueryService;
+import com.crossover.trial.weather.service.RadiusQuery;
+import com.crossover.trial.weather.service.RadiusQueryCache;
+import com.crossover.trial.weather.service.RadiusQueryResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weather search in radius over synthetic airport sets, answered by {@link QueryService} directly or through
+ * {@link RadiusQueryCache} as the cached query endpoint does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RadiusQueryBenchmark {
+
+    /**
+     * Number of distinct query centers.
+     */
+    private static final int CENTERS = 64;
+
+    /**
+     * Number of airports.
+     */
+    @Param({"10", "1000", "10000", "100000"})
+    private int airports;
+
+    /**
+     * Search radius, in KM.
+     */
+    @Param({"0", "50", "500", "5000"})
+    private double radius;
+
+    /**
+     * Whether query results are cached.
+     */
+    @Param({"true", "false"})
+    private boolean cached;
+
+    /**
+     * Application context.
+     */
+    private AnnotationConfigApplicationContext context;
+
+    /**
+     * Queried service.
+     */
+    private QueryService queryService;
+
+    /**
+     * Cache of query results.
+     */
+    private RadiusQueryCache radiusQueryCache;
+
+    /**
+     * Queries, cycled through.
+     */
+    private RadiusQuery[] queries;
+
+    /**
+     * Index of the next query.
+     */
+    private int next;
+
+    /**
+     * Loads airports with weather.
+     *
+     * @throws Exception if any
+     */
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        queryService = context.getBean(QueryService.class);
+        radiusQueryCache = context.getBean(RadiusQueryCache.class);
+        List<AirportData> airportData = BenchmarkContext.airports(airports, 42);
+        BenchmarkContext.load(context, airportData);
+
+        queries = new RadiusQuery[CENTERS];
+        for (int i = 0; i < CENTERS; i++) {
+            queries[i] = new RadiusQuery(airportData.get(i * airports / CENTERS).getIata(), radius);
+        }
+    }
+
+    /**
+     * Closes the context.
+     */
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * @return query result
+     */
+    @Benchmark
+    public RadiusQueryResult query() {
+        RadiusQuery query = queries[next++ & (CENTERS - 1)];
+        return cached
+            ? radiusQueryCache.get(query, () -> queryService.findWeatherInRadius(query))
+            : queryService.findWeatherInRadius(query);
+    }
+}
@@ -3,6 +3,7 @@ package com.crossover.trial.weather;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.glassfish.jersey.client.ClientProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,6 +15,7 @@ import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
@@ -21,10 +23,21 @@ import javax.ws.rs.core.Response;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 /**
  * A simple airport loader which reads a file from disk and sends entries to the webservice.
+ * <p>
+ * Entries are sent concurrently, with at most <code>weather.loader.concurrency</code> requests in flight. Responses
+ * are closed, so connections are kept alive and reused. Requests failing with a server error or an I/O error are
+ * retried with exponential backoff.
  *
  * @author code test administrator
  */
@@ -41,6 +54,21 @@ public final class AirportLoader {
      */
     private WebTarget collect;
 
+    /**
+     * Maximum number of requests in flight.
+     */
+    private final int concurrency;
+
+    /**
+     * Maximum number of attempts to send an entry.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Delay before the first retry, doubled with every next retry, in milliseconds.
+     */
+    private final long backoff;
+
     /**
      * Format of airport data file that we're going to parse.
      */
@@ -49,12 +77,24 @@ public final class AirportLoader {
     /**
      * Loading of airports must be done only via main method.
      *
-     * @param host host where weather application is running (auto-injected)
-     * @param port port where weather application is running (auto-injected)
+     * @param host        host where weather application is running (auto-injected)
+     * @param port        port where weather application is running (auto-injected)
+     * @param concurrency maximum number of requests in flight
+     * @param maxAttempts maximum number of attempts to send an entry
+     * @param backoff     delay before the first retry, in milliseconds
      */
     private AirportLoader(@Value("${server.host}") final String host,
-                          @Value("${server.port}") final String port) {
-        Client client = ClientBuilder.newClient();
+                          @Value("${server.port}") final String port,
+                          @Value("${weather.loader.concurrency:32}") final int concurrency,
+                          @Value("${weather.loader.max-attempts:5}") final int maxAttempts,
+                          @Value("${weather.loader.backoff:50}") final long backoff) {
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+
+        Client client = ClientBuilder.newClient()
+            .property(ClientProperties.CONNECT_TIMEOUT, 5000)
+            .property(ClientProperties.READ_TIMEOUT, 30000);
 
         // Constant URI where a running application is expected.
         final String baseUri = String.format("http://%s:%s", host, port);
@@ -73,6 +113,11 @@ public final class AirportLoader {
 
         AirportLoader airportLoader = ctx.getBean(AirportLoader.class);
 
+        // keep a reusable connection for every request in flight, the default keeps 5
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", Integer.toString(airportLoader.concurrency));
+        }
+
         File airportDataFile = new File("src/main/resources/airports.dat");
 
         try (CSVParser parser = createCsvParserForResource(airportDataFile)) {
@@ -86,7 +131,6 @@ public final class AirportLoader {
      * @param resultSet data to send to web-service
      */
     public void upload(final Iterable<CSVRecord> resultSet) {
-
         // 1. Because previous implementation totally relied on the
         //    fact that IATA exists and it uniquely identifies airport
         //    we make same assumptions here.
@@ -97,15 +141,86 @@ public final class AirportLoader {
         //    Again, because there's not enough information on how to process
         //    the others. Especially taking into consideration that adding fields
         //    might have influenced external REST APIs.
-        for (CSVRecord csvRecord : resultSet) {
-            WebTarget path = collect.path(
-                String.format("/airport/%s/%s/%s",
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        Semaphore window = new Semaphore(concurrency);
+        LongAdder added = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long start = System.nanoTime();
+        try {
+            for (CSVRecord csvRecord : resultSet) {
+                String path = String.format("/airport/%s/%s/%s",
                     csvRecord.get(Header.IATA),
-                    csvRecord.get(Header.ALTITUDE),
-                    csvRecord.get(Header.LONGITUDE))
-            );
-            Response response = path.request().post(null);
-            LOG.debug("Added airport {}. Response: {}", csvRecord, response);
+                    csvRecord.get(Header.LATTITUDE),
+                    csvRecord.get(Header.LONGITUDE));
+                window.acquireUninterruptibly();
+                try {
+                    executor.execute(() -> {
+                        boolean sent = false;
+                        try {
+                            sent = send(csvRecord, path);
+                        } catch (RuntimeException e) {
+                            // e.g. a path the client can't build, must not escape to the pool uncounted
+                            LOG.warn("Failed to add airport {}", csvRecord, e);
+                        } finally {
+                            (sent ? added : failed).increment();
+                            window.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    window.release();
+                    throw e;
+                }
+            }
+            // wait for requests in flight
+            window.acquireUninterruptibly(concurrency);
+        } finally {
+            executor.shutdown();
+        }
+
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOG.info("Added {} airports ({} failed) in {} ms, {} records/s", added.sum(), failed.sum(), millis,
+            (added.sum() + failed.sum()) * 1000 / millis);
+    }
+
+    /**
+     * Sends an entry, retrying server and I/O errors.
+     *
+     * @param csvRecord entry
+     * @param path      path of the request adding the airport
+     * @return <code>true</code> if the airport was added
+     */
+    private boolean send(final CSVRecord csvRecord, final String path) {
+        for (int attempt = 1;; attempt++) {
+            int status;
+            try {
+                Response response = collect.path(path).request().post(null);
+                try {
+                    status = response.getStatus();
+                } finally {
+                    response.close();
+                }
+            } catch (ProcessingException e) {
+                LOG.debug("Failed to send airport {}", csvRecord, e);
+                status = -1;
+            }
+            LOG.debug("Added airport {}. Response: {}", csvRecord, status);
+
+            if (status >= 200 && status < 300) {
+                return true;
+            }
+            boolean retriable = status < 0 || status >= 500 || status == 429;
+            if (!retriable || attempt >= maxAttempts) {
+                LOG.warn("Failed to add airport {} after {} attempts, last status {}", csvRecord, attempt, status);
+                return false;
+            }
+            // full jitter keeps retries of concurrent requests apart
+            long delay = backoff << Math.min(attempt - 1, 20);
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(delay + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
         }
     }
 
@@ -143,6 +258,11 @@ public final class AirportLoader {
          */
         RECORD_NUM("RecordNum"),
 
+        /**
+         * Name of airport.
+         */
+        NAME("Name"),
+
         /**
          * Main city served by airport. May be spelled differently from name.
          */
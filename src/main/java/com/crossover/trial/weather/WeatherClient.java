@@ -1,6 +1,8 @@
 package com.crossover.trial.weather;
 
 import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.util.WeatherUpdateCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,18 +11,25 @@ import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * A reference implementation for the weather client. Consumers of the REST API can look at WeatherClient
  * to understand API semantics. This existing client populates the REST endpoint with dummy data useful for
  * testing.
+ * <p>
+ * Server URI is taken from <code>weather.uri</code> system property. Methods returning status close
+ * the response, so the connection can be reused; they are used by {@link WeatherLoadGenerator}.
  *
  * @author code test administrator
  */
 public class WeatherClient {
 
     /**
-     * Constant URI where a running application is expected.
+     * Default URI where a running application is expected.
      */
     private static final String BASE_URI = "http://localhost:9090";
 
@@ -43,9 +52,18 @@ public class WeatherClient {
      * Constructor for the client.
      */
     public WeatherClient() {
+        this(System.getProperty("weather.uri", BASE_URI));
+    }
+
+    /**
+     * Constructor for the client.
+     *
+     * @param baseUri URI where a running application is expected
+     */
+    public WeatherClient(final String baseUri) {
         Client client = ClientBuilder.newClient();
-        query = client.target(BASE_URI + "/query");
-        collect = client.target(BASE_URI + "/collect");
+        query = client.target(baseUri + "/query");
+        collect = client.target(baseUri + "/collect");
     }
 
     /**
@@ -58,6 +76,9 @@ public class WeatherClient {
         wc.init();
         wc.pingCollect();
         wc.populate("wind", 0, 10, 6, 4, 20);
+        wc.populateBatch(DataPointType.TEMPERATURE,
+            new DataPoint.Builder().withFirst(10).withLast(20).withMean(15).withMedian(16).withCount(40).build(),
+            "BOS", "JFK", "EWR", "LGA", "MMU");
 
         wc.query("BOS");
         wc.query("JFK");
@@ -153,6 +174,111 @@ public class WeatherClient {
         LOG.debug("Populate response: {}", post);
     }
 
+    /**
+     * Populates the same data point for many airports in a single binary encoded batch.
+     *
+     * @param pointType type of collected data
+     * @param dataPoint collected data
+     * @param iatas     IATA codes of the airports
+     */
+    public void populateBatch(final DataPointType pointType, final DataPoint dataPoint, final String... iatas) {
+        Response post = collect.path("/weather/batch").request()
+            .post(Entity.entity(encode(pointType, dataPoint, iatas), WeatherUpdateCodec.MEDIA_TYPE));
+        LOG.debug("Populate batch response: {}", post.readEntity(String.class));
+    }
+
+    /**
+     * Encodes updates in binary format accepted by collector endpoints.
+     *
+     * @param pointType type of collected data
+     * @param dataPoint collected data
+     * @param iatas     IATA codes of the airports
+     * @return binary encoded updates
+     */
+    public static byte[] encode(final DataPointType pointType, final DataPoint dataPoint, final String... iatas) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(iatas.length * WeatherUpdateCodec.UPDATE_SIZE);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (String iata : iatas) {
+                WeatherUpdateCodec.write(out, iata, pointType, dataPoint);
+            }
+        } catch (IOException e) {
+            // not thrown by in-memory stream
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Adds an airport.
+     *
+     * @param iata      IATA code
+     * @param latitude  latitude
+     * @param longitude longitude
+     * @return HTTP status of the response
+     */
+    public int submitAirport(final String iata, final double latitude, final double longitude) {
+        return status(collect.path(String.format("/airport/%s/%s/%s", iata, latitude, longitude))
+            .request().post(null));
+    }
+
+    /**
+     * Queries weather in radius around an airport.
+     *
+     * @param iata   IATA code of the airport
+     * @param radius radius in KM
+     * @return HTTP status of the response
+     */
+    public int requestWeather(final String iata, final double radius) {
+        return status(query.path("/weather/" + iata + "/" + radius).request().get());
+    }
+
+    /**
+     * Queries health and status information.
+     *
+     * @return HTTP status of the response
+     */
+    public int requestPing() {
+        return status(query.path("/ping").request().get());
+    }
+
+    /**
+     * Submits a data point of an airport.
+     *
+     * @param iata      IATA code of the airport
+     * @param pointType type of collected data
+     * @param dataPoint collected data
+     * @return HTTP status of the response
+     */
+    public int submitUpdate(final String iata, final DataPointType pointType, final DataPoint dataPoint) {
+        return status(collect.path("/weather/" + iata + "/" + pointType.name().toLowerCase()).request()
+            .post(Entity.entity(dataPoint, "application/json")));
+    }
+
+    /**
+     * Submits the same data point for many airports in a single binary encoded batch.
+     *
+     * @param pointType type of collected data
+     * @param dataPoint collected data
+     * @param iatas     IATA codes of the airports
+     * @return HTTP status of the response
+     */
+    public int submitBatch(final DataPointType pointType, final DataPoint dataPoint, final String... iatas) {
+        return status(collect.path("/weather/batch").request()
+            .post(Entity.entity(encode(pointType, dataPoint, iatas), WeatherUpdateCodec.MEDIA_TYPE)));
+    }
+
+    /**
+     * @param response response to close
+     * @return HTTP status of the response
+     */
+    private static int status(final Response response) {
+        try {
+            return response.getStatus();
+        } finally {
+            response.close();
+        }
+    }
+
     /**
      * Calls service to remove airport by IATA code.
      *
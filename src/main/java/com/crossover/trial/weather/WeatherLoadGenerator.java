@@ -0,0 +1,376 @@
+package com.crossover.trial.weather;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.ProcessingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator built on {@link WeatherClient}: sends a weighted mix of query and collect requests at a target
+ * rate over many concurrent connections and reports latency percentiles per endpoint.
+ * <p>
+ * Every connection has its own schedule of intended request start times. Latency is measured from the intended
+ * start, not from the actual send, so a stalled server is charged for requests it delayed (coordinated omission
+ * correction); service time measured from the actual send is reported as well. Latencies recorded during
+ * the warm-up are discarded.
+ * <p>
+ * Configured by system properties:
+ * <ul>
+ * <li><code>weather.uri</code> - URI of the server, <code>http://localhost:9090</code> by default</li>
+ * <li><code>load.rate</code> - target number of requests per second of all connections</li>
+ * <li><code>load.connections</code> - number of concurrent connections</li>
+ * <li><code>load.warmup</code>, <code>load.duration</code> - length of warm-up and measurement in seconds</li>
+ * <li><code>load.airports</code> - number of airports created before the run, at most 17576 (26^3)</li>
+ * <li><code>load.batch-size</code> - number of updates in a batch request</li>
+ * <li><code>load.mix.&lt;endpoint&gt;</code> - weight of the endpoint in the mix, see {@link Endpoint}</li>
+ * </ul>
+ */
+public final class WeatherLoadGenerator {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(WeatherLoadGenerator.class);
+
+    /**
+     * Highest recorded latency, longer latencies are recorded as this one.
+     */
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(10);
+
+    /**
+     * Reported percentiles.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    /**
+     * Number of distinct 3 letter IATA codes.
+     */
+    private static final int IATA_CODES = 26 * 26 * 26;
+
+    /**
+     * Endpoints of the mix.
+     */
+    private enum Endpoint {
+        /**
+         * Weather in radius around a random airport.
+         */
+        WEATHER("query.weather", 70),
+
+        /**
+         * Health and statistics.
+         */
+        PING("query.ping", 5),
+
+        /**
+         * Single data point of a random airport.
+         */
+        UPDATE("collect.weather", 20),
+
+        /**
+         * Batch of data points of random airports.
+         */
+        BATCH("collect.batch", 5);
+
+        /**
+         * Name in configuration and report.
+         */
+        private final String label;
+
+        /**
+         * Weight in the mix, if not configured.
+         */
+        private final int defaultWeight;
+
+        /**
+         * @param label         name in configuration and report
+         * @param defaultWeight weight in the mix, if not configured
+         */
+        Endpoint(final String label, final int defaultWeight) {
+            this.label = label;
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    /**
+     * Endpoints in {@link Endpoint} order.
+     */
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+
+    /**
+     * Client sending requests.
+     */
+    private final WeatherClient client;
+
+    /**
+     * Target number of requests per second.
+     */
+    private final int rate;
+
+    /**
+     * Number of concurrent connections.
+     */
+    private final int connections;
+
+    /**
+     * Number of airports.
+     */
+    private final int airports;
+
+    /**
+     * Number of updates in a batch request.
+     */
+    private final int batchSize;
+
+    /**
+     * Cumulative weights of endpoints, in {@link Endpoint} order.
+     */
+    private final int[] weights;
+
+    /**
+     * Latency from intended start, by endpoint.
+     */
+    private final Recorder[] latencies = new Recorder[ENDPOINTS.length];
+
+    /**
+     * Latency from actual start, by endpoint.
+     */
+    private final Recorder[] serviceTimes = new Recorder[ENDPOINTS.length];
+
+    /**
+     * Number of failed requests, by endpoint.
+     */
+    private final LongAdder[] errors = new LongAdder[ENDPOINTS.length];
+
+    /**
+     * Data point sent by collect requests.
+     */
+    private final DataPoint dataPoint = new DataPoint.Builder()
+        .withFirst(10).withLast(20).withMean(15).withMedian(16).withCount(40).build();
+
+    /**
+     * Initializing constructor.
+     *
+     * @param client      client sending requests
+     * @param rate        target number of requests per second
+     * @param connections number of concurrent connections
+     * @param airports    number of airports, at most {@link #IATA_CODES}
+     * @param batchSize   number of updates in a batch request
+     */
+    private WeatherLoadGenerator(final WeatherClient client, final int rate, final int connections,
+                                 final int airports, final int batchSize) {
+        this.client = client;
+        this.rate = rate;
+        this.connections = connections;
+        this.airports = Math.min(airports, IATA_CODES);
+        this.batchSize = batchSize;
+        this.weights = new int[ENDPOINTS.length];
+        int total = 0;
+        for (Endpoint endpoint : ENDPOINTS) {
+            total += Integer.getInteger("load.mix." + endpoint.label, endpoint.defaultWeight);
+            weights[endpoint.ordinal()] = total;
+            latencies[endpoint.ordinal()] = new Recorder(MAX_LATENCY, 3);
+            serviceTimes[endpoint.ordinal()] = new Recorder(MAX_LATENCY, 3);
+            errors[endpoint.ordinal()] = new LongAdder();
+        }
+    }
+
+    /**
+     * Main method running the load.
+     *
+     * @param args no arguments expected, see class description for configuration
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(final String... args) throws InterruptedException {
+        int connections = Integer.getInteger("load.connections", 64);
+        // keep a reusable connection for every worker, the default keeps 5
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", Integer.toString(connections));
+        }
+        WeatherLoadGenerator generator = new WeatherLoadGenerator(new WeatherClient(),
+            Integer.getInteger("load.rate", 1000), connections,
+            Integer.getInteger("load.airports", 1000), Integer.getInteger("load.batch-size", 100));
+        generator.createAirports();
+        generator.run(TimeUnit.SECONDS.toNanos(Integer.getInteger("load.warmup", 10)),
+            TimeUnit.SECONDS.toNanos(Integer.getInteger("load.duration", 60)));
+    }
+
+    /**
+     * Creates airports spread over the globe, they are not measured.
+     */
+    private void createAirports() {
+        Random random = new Random(42);
+        for (int i = 0; i < airports; i++) {
+            client.submitAirport(iata(i), Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)),
+                random.nextDouble() * 360 - 180);
+        }
+    }
+
+    /**
+     * Runs the load and logs the report.
+     *
+     * @param warmup   length of warm-up, in nanoseconds
+     * @param duration length of measurement, in nanoseconds
+     * @throws InterruptedException if interrupted
+     */
+    private void run(final long warmup, final long duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + warmup + duration;
+        long interval = TimeUnit.SECONDS.toNanos(connections) / rate;
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            long first = start + TimeUnit.SECONDS.toNanos(1) * i / rate;
+            Thread worker = new Thread(() -> work(first, interval, end), "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        LOG.info("Warming up for {} s", TimeUnit.NANOSECONDS.toSeconds(warmup));
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(warmup));
+        for (Endpoint endpoint : ENDPOINTS) {
+            latencies[endpoint.ordinal()].reset();
+            serviceTimes[endpoint.ordinal()].reset();
+            errors[endpoint.ordinal()].reset();
+        }
+        long measured = System.nanoTime();
+        LOG.info("Measuring for {} s at {} requests/s over {} connections",
+            TimeUnit.NANOSECONDS.toSeconds(duration), rate, connections);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report(System.nanoTime() - measured);
+    }
+
+    /**
+     * Sends requests at intended start times until the end.
+     *
+     * @param first    intended start of the first request
+     * @param interval time between intended starts
+     * @param end      end of the run
+     */
+    private void work(final long first, final long interval, final long end) {
+        for (long intended = first; intended < end; intended += interval) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            Endpoint endpoint = pick();
+            boolean success;
+            try {
+                int status = send(endpoint);
+                success = status >= 200 && status < 300;
+            } catch (ProcessingException e) {
+                LOG.debug("Failed to send {}", endpoint.label, e);
+                success = false;
+            } catch (RuntimeException e) {
+                // counted as an error, so a failing request does not stop the worker
+                LOG.warn("Failed to prepare {}", endpoint.label, e);
+                success = false;
+            }
+            long done = System.nanoTime();
+            latencies[endpoint.ordinal()].recordValue(Math.min(done - intended, MAX_LATENCY));
+            serviceTimes[endpoint.ordinal()].recordValue(Math.min(done - now, MAX_LATENCY));
+            if (!success) {
+                errors[endpoint.ordinal()].increment();
+            }
+        }
+    }
+
+    /**
+     * @return random endpoint according to the mix
+     */
+    private Endpoint pick() {
+        int value = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+        int i = 0;
+        while (weights[i] <= value) {
+            i++;
+        }
+        return ENDPOINTS[i];
+    }
+
+    /**
+     * @param endpoint requested endpoint
+     * @return HTTP status of the response
+     */
+    private int send(final Endpoint endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (endpoint) {
+            case WEATHER:
+                return client.requestWeather(iata(random.nextInt(airports)), random.nextInt(11) * 100);
+            case PING:
+                return client.requestPing();
+            case UPDATE:
+                return client.submitUpdate(iata(random.nextInt(airports)), DataPointType.WIND, dataPoint);
+            default:
+                String[] iatas = new String[batchSize];
+                for (int i = 0; i < batchSize; i++) {
+                    iatas[i] = iata(random.nextInt(airports));
+                }
+                return client.submitBatch(DataPointType.TEMPERATURE, dataPoint, iatas);
+        }
+    }
+
+    /**
+     * Logs percentiles of latency and service time per endpoint.
+     *
+     * @param elapsed length of measurement, in nanoseconds
+     */
+    private void report(final long elapsed) {
+        double seconds = elapsed / 1e9;
+        StringBuilder report = new StringBuilder(String.format("%-16s %9s %8s %7s %-8s", "endpoint",
+            "requests", "req/s", "errors", "ms"));
+        for (double percentile : PERCENTILES) {
+            report.append(String.format(" %9s", "p" + percentile));
+        }
+        report.append(String.format(" %9s", "max"));
+
+        for (Endpoint endpoint : ENDPOINTS) {
+            Histogram latency = latencies[endpoint.ordinal()].getIntervalHistogram();
+            Histogram serviceTime = serviceTimes[endpoint.ordinal()].getIntervalHistogram();
+            report.append(String.format("%n%-16s %9d %8.1f %7d", endpoint.label, latency.getTotalCount(),
+                latency.getTotalCount() / seconds, errors[endpoint.ordinal()].sum()));
+            appendPercentiles(report, "latency", latency);
+            report.append(String.format("%n%43s", ""));
+            appendPercentiles(report, "service", serviceTime);
+        }
+        LOG.info("Load report:\n{}", report);
+    }
+
+    /**
+     * @param report    report to append to
+     * @param name      name of the measurement
+     * @param histogram recorded latencies, in nanoseconds
+     */
+    private static void appendPercentiles(final StringBuilder report, final String name, final Histogram histogram) {
+        report.append(String.format(" %-8s", name));
+        for (double percentile : PERCENTILES) {
+            report.append(String.format(" %9.3f", histogram.getValueAtPercentile(percentile) / 1e6));
+        }
+        report.append(String.format(" %9.3f", histogram.getMaxValue() / 1e6));
+    }
+
+    /**
+     * @param index index of airport, less than {@link #IATA_CODES}
+     * @return three letter IATA code of the airport
+     */
+    private static String iata(final int index) {
+        char[] iata = new char[3];
+        int rest = index;
+        for (int i = 0; i < iata.length; i++) {
+            iata[i] = (char) ('A' + rest % 26);
+            rest /= 26;
+        }
+        return new String(iata);
+    }
+}
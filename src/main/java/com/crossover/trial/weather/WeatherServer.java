@@ -7,7 +7,7 @@ import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.context.web.SpringBootServletInitializer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.core.env.Environment;
-import org.springframework.data.map.repository.config.EnableMapRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -22,8 +22,8 @@ import java.net.UnknownHostException;
  * @author code test administrator
  */
 @SpringBootApplication
-@EnableMapRepositories("com.crossover.trial.weather.repository")
 @EnableCaching
+@EnableScheduling
 //@EnableConfigurationProperties( {SwaggerProperties.class})
 public class WeatherServer extends SpringBootServletInitializer {
 
@@ -0,0 +1,55 @@
+package com.crossover.trial.weather.config;
+
+import com.crossover.trial.weather.service.RadiusQueryCache;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Configure application caches.
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * @param radiusQueryCache cache of weather search in radius
+     * @return cache manager serving application caches
+     */
+    @Bean
+    public CacheManager cacheManager(final RadiusQueryCache radiusQueryCache) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(Collections.singletonList(radiusQueryCache));
+        return cacheManager;
+    }
+
+    /**
+     * Exposes statistics of radius query cache as actuator metrics, so the cache can be sized
+     * against real query mix.
+     *
+     * @param radiusQueryCache cache of weather search in radius
+     * @return cache metrics
+     */
+    @Bean
+    public PublicMetrics radiusQueryCacheMetrics(final RadiusQueryCache radiusQueryCache) {
+        String prefix = "cache." + RadiusQueryCache.NAME + ".";
+        return () -> {
+            long hits = radiusQueryCache.getHitCount();
+            long misses = radiusQueryCache.getMissCount();
+            return Arrays.asList(
+                new Metric<>(prefix + "hits", hits),
+                new Metric<>(prefix + "misses", misses),
+                new Metric<>(prefix + "hit-ratio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses)),
+                new Metric<>(prefix + "evictions", radiusQueryCache.getEvictionCount()),
+                new Metric<>(prefix + "expirations", radiusQueryCache.getExpirationCount()),
+                new Metric<>(prefix + "rejections", radiusQueryCache.getRejectionCount()),
+                new Metric<>(prefix + "size", radiusQueryCache.size()),
+                new Metric<>(prefix + "weight", radiusQueryCache.getWeight()));
+        };
+    }
+}
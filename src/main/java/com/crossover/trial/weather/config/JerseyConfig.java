@@ -1,5 +1,9 @@
 package com.crossover.trial.weather.config;
 
+import com.crossover.trial.weather.web.rest.AtmosphericInformationBinaryWriter;
+import com.crossover.trial.weather.web.rest.RequestMetricsFilter;
+import com.crossover.trial.weather.web.rest.RestMetricsEndpoint;
+import com.crossover.trial.weather.web.rest.ServerTimingFilter;
 import com.crossover.trial.weather.web.rest.RestWeatherCollectorEndpoint;
 import com.crossover.trial.weather.web.rest.RestWeatherQueryEndpoint;
 import com.google.gson.Gson;
@@ -19,6 +23,10 @@ public class JerseyConfig extends ResourceConfig {
     public JerseyConfig() {
         register(RestWeatherCollectorEndpoint.class);
         register(RestWeatherQueryEndpoint.class);
+        register(RestMetricsEndpoint.class);
+        register(AtmosphericInformationBinaryWriter.class);
+        register(RequestMetricsFilter.class);
+        register(ServerTimingFilter.class);
     }
 
     /**
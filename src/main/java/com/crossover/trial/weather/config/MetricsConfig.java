@@ -0,0 +1,85 @@
+package com.crossover.trial.weather.config;
+
+import com.crossover.trial.weather.repository.AirportDataRepository;
+import com.crossover.trial.weather.web.rest.RequestMetrics;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configure actuator metrics of the service itself.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Reported latency percentiles.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    /**
+     * Metric name suffixes of {@link #PERCENTILES}.
+     */
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99_9", "p99_99"};
+
+    /**
+     * Exposes latency and throughput of REST endpoints and latency of weather query stages. Latency percentiles
+     * (in milliseconds) and request rate cover the last closed interval of {@link RequestMetrics#rollover()},
+     * so reading metrics does not change them. {@link com.crossover.trial.weather.web.rest.RestMetricsEndpoint}
+     * exports the same statistics to Prometheus as summaries and counters labelled by endpoint or stage.
+     *
+     * @param requestMetrics latency and throughput of REST endpoints
+     * @return request metrics
+     */
+    @Bean
+    public PublicMetrics requestMetrics(final RequestMetrics requestMetrics) {
+        return () -> {
+            List<Metric<?>> result = new ArrayList<>();
+            for (RequestMetrics.Snapshot snapshot : requestMetrics.snapshot()) {
+                String prefix = "http." + snapshot.getName() + ".";
+                result.add(new Metric<>(prefix + "count", snapshot.getCount()));
+                result.add(new Metric<>(prefix + "errors", snapshot.getErrors()));
+                result.add(new Metric<>(prefix + "rate", snapshot.getRate()));
+                addLatencies(result, prefix, snapshot);
+            }
+            for (RequestMetrics.Snapshot snapshot : requestMetrics.stageSnapshot()) {
+                String prefix = "stage." + snapshot.getName() + ".";
+                result.add(new Metric<>(prefix + "count", snapshot.getCount()));
+                addLatencies(result, prefix, snapshot);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Adds total latency and latency percentiles, in milliseconds.
+     *
+     * @param metrics  metrics to add to
+     * @param prefix   prefix of metric names
+     * @param snapshot statistics of an endpoint or a stage
+     */
+    private static void addLatencies(final List<Metric<?>> metrics, final String prefix,
+                                     final RequestMetrics.Snapshot snapshot) {
+        metrics.add(new Metric<>(prefix + "latency.total", snapshot.getTotalLatency() / 1e6));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            metrics.add(new Metric<>(prefix + "latency." + PERCENTILE_NAMES[i],
+                snapshot.getLatency(PERCENTILES[i]) / 1e6));
+        }
+    }
+
+    /**
+     * Exposes number of stored airports.
+     *
+     * @param airportDataRepository airport repository
+     * @return repository metrics
+     */
+    @Bean
+    public PublicMetrics repositoryMetrics(final AirportDataRepository airportDataRepository) {
+        return () -> Collections.singletonList(new Metric<>("repository.airports", airportDataRepository.count()));
+    }
+}
@@ -32,7 +32,38 @@ public class AirportData {
     /**
      * Atmospheric information for the airport.
      */
-    private AtmosphericInformation atmosphericInformation = new AtmosphericInformation();
+    private AtmosphericInformation atmosphericInformation;
+
+    /**
+     * Default constructor.
+     */
+    public AirportData() {
+        this(null, new AtmosphericInformation());
+    }
+
+    /**
+     * Initializing constructor.
+     *
+     * @param iata      IATA code
+     * @param latitude  latitude in degrees
+     * @param longitude longitude in degrees
+     */
+    public AirportData(final String iata, final double latitude, final double longitude) {
+        this(iata, new AtmosphericInformation());
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Constructor for views, which keep coordinates and atmospheric information elsewhere.
+     *
+     * @param iata                   three letter IATA code
+     * @param atmosphericInformation atmospheric information for the airport
+     */
+    protected AirportData(final String iata, final AtmosphericInformation atmosphericInformation) {
+        this.iata = iata;
+        this.atmosphericInformation = atmosphericInformation;
+    }
 
     /**
      * @return The three letter IATA code
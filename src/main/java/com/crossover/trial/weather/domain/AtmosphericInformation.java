@@ -2,6 +2,8 @@ package com.crossover.trial.weather.domain;
 
 import com.crossover.trial.weather.WeatherException;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import static com.crossover.trial.weather.domain.DataPointType.CLOUDCOVER;
 import static com.crossover.trial.weather.domain.DataPointType.HUMIDTY;
 import static com.crossover.trial.weather.domain.DataPointType.PRECIPITATION;
@@ -11,6 +13,12 @@ import static com.crossover.trial.weather.domain.DataPointType.WIND;
 
 /**
  * Encapsulates sensor information for a particular location.
+ * <p>
+ * State is immutable and replaced atomically on every update (copy-on-write), so concurrent updates are not
+ * lost and readers never block. Single getter always sees a complete data point, but subsequent getters of a
+ * live object may see different updates; {@link #snapshot()} gives a frozen consistent view.
+ * <p>
+ * Subclasses may keep the state elsewhere, e.g. off heap, see {@link #AtmosphericInformation(boolean)}.
  */
 public class AtmosphericInformation {
 
@@ -20,45 +28,65 @@ public class AtmosphericInformation {
     private static final String MSG_UPDATE_ATMOSPHERIC_DATA_FAIL = "Couldn't update atmospheric data";
 
     /**
-     * Temperature in degrees celsius.
+     * Error message.
      */
-    private DataPoint temperature;
+    private static final String MSG_FROZEN = "Snapshot of atmospheric data can not be updated";
 
     /**
-     * Wind speed in km/h.
+     * Current state.
      */
-    private DataPoint wind;
+    private final AtomicReference<State> state;
 
     /**
-     * Humidity in percent.
+     * <code>true</code> for snapshots, which can not be updated.
      */
-    private DataPoint humidity;
+    private final boolean frozen;
 
     /**
-     * Precipitation in cm.
+     * Default constructor.
      */
-    private DataPoint precipitation;
+    public AtmosphericInformation() {
+        // for cases when no init data available
+        this(new State(new DataPoint[DataPointType.values().length], System.currentTimeMillis()), false);
+    }
 
     /**
-     * Pressure in mmHg.
+     * Initializing constructor.
+     *
+     * @param state  initial state
+     * @param frozen <code>true</code> for snapshots, which can not be updated
      */
-    private DataPoint pressure;
+    private AtmosphericInformation(final State state, final boolean frozen) {
+        this.state = new AtomicReference<>(state);
+        this.frozen = frozen;
+    }
 
     /**
-     * Cloud cover percent from 0 - 100 (integer).
+     * Constructor for views, which keep the state elsewhere. Views must override all accessors of the state:
+     * {@link #get(DataPointType)}, {@link #getLastUpdateTime()}, {@link #setLastUpdateTime(long)},
+     * {@link #isEmpty()}, {@link #snapshot()} and {@link #replace(DataPointType, DataPoint, boolean)}.
+     *
+     * @param frozen <code>true</code> for read-only views
      */
-    private DataPoint cloudCover;
+    protected AtmosphericInformation(final boolean frozen) {
+        this.state = null;
+        this.frozen = frozen;
+    }
 
     /**
-     * The last time this data was updated, in milliseconds since UTC epoch.
+     * @param dataPoints     data points by {@link DataPointType} ordinal, not modified afterwards
+     * @param lastUpdateTime the last time the data was updated, in milliseconds since UTC epoch
+     * @return snapshot with the given state
      */
-    private long lastUpdateTime = System.currentTimeMillis();
+    protected static AtmosphericInformation snapshot(final DataPoint[] dataPoints, final long lastUpdateTime) {
+        return new AtmosphericInformation(new State(dataPoints, lastUpdateTime), true);
+    }
 
     /**
-     * Default constructor.
+     * @return immutable copy of the current state, which can be read consistently and shared safely
      */
-    public AtmosphericInformation() {
-        // for cases when no init data available
+    public AtmosphericInformation snapshot() {
+        return frozen ? this : new AtmosphericInformation(state.get(), true);
     }
 
     /**
@@ -69,46 +97,34 @@ public class AtmosphericInformation {
      * @throws WeatherException if dataPoint type does not match any of the supported or {@see DataPointType}
      */
     public void update(final String pointType, final DataPoint dp) throws WeatherException {
-        final DataPointType dataPointType = DataPointType.valueOf(pointType.toUpperCase());
-
-        switch (dataPointType) {
-
-            case WIND:
-                setWind(dp);
-                break;
-
-            case TEMPERATURE:
-                setTemperature(dp);
-                break;
-
-            case HUMIDTY:
-                setHumidity(dp);
-                break;
-
-            case PRESSURE:
-                setPressure(dp);
-                break;
-
-            case CLOUDCOVER:
-                setCloudCover(dp);
-                break;
-
-            case PRECIPITATION:
-                setPrecipitation(dp);
-                break;
+        update(DataPointType.valueOf(pointType.toUpperCase()), dp);
+    }
 
-            default:
-                throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
-        }
+    /**
+     * Update atmospheric information with the given data point for the given point type.
+     * Data point and last update time are replaced together.
+     *
+     * @param dataPointType the data point type
+     * @param dp            the actual data point
+     * @throws WeatherException if dataPoint type does not match any of the supported or {@see DataPointType}
+     */
+    public void update(final DataPointType dataPointType, final DataPoint dp) throws WeatherException {
+        replace(dataPointType, dp, true);
+    }
 
-        setLastUpdateTime(System.currentTimeMillis());
+    /**
+     * @param dataPointType the data point type
+     * @return data point of the given type or <code>null</code> if not collected yet
+     */
+    public DataPoint get(final DataPointType dataPointType) {
+        return state.get().dataPoints[dataPointType.ordinal()];
     }
 
     /**
      * @return Temperature in degrees celsius.
      */
     public DataPoint getTemperature() {
-        return temperature;
+        return get(TEMPERATURE);
     }
 
     /**
@@ -117,19 +133,14 @@ public class AtmosphericInformation {
      * @param temperature value to set
      */
     public void setTemperature(final DataPoint temperature) {
-        if (temperature.getMean() >= TEMPERATURE.min()
-            && temperature.getMean() < TEMPERATURE.max()) {
-            this.temperature = temperature;
-        } else {
-            throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
-        }
+        replace(TEMPERATURE, temperature, false);
     }
 
     /**
      * @return Wind speed in km/h.
      */
     public DataPoint getWind() {
-        return wind;
+        return get(WIND);
     }
 
     /**
@@ -138,18 +149,14 @@ public class AtmosphericInformation {
      * @param wind value to set
      */
     public void setWind(final DataPoint wind) {
-        if (wind.getMean() >= WIND.min()) {
-            this.wind = wind;
-        } else {
-            throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
-        }
+        replace(WIND, wind, false);
     }
 
     /**
      * @return Humidity in percent.
      */
     public DataPoint getHumidity() {
-        return humidity;
+        return get(HUMIDTY);
     }
 
     /**
@@ -158,19 +165,14 @@ public class AtmosphericInformation {
      * @param humidity value to set
      */
     public void setHumidity(final DataPoint humidity) {
-        if (humidity.getMean() >= HUMIDTY.min()
-            && humidity.getMean() < HUMIDTY.max()) {
-            this.humidity = humidity;
-        } else {
-            throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
-        }
+        replace(HUMIDTY, humidity, false);
     }
 
     /**
      * @return Precipitation in cm.
      */
     public DataPoint getPrecipitation() {
-        return precipitation;
+        return get(PRECIPITATION);
     }
 
     /**
@@ -179,19 +181,14 @@ public class AtmosphericInformation {
      * @param precipitation value to set
      */
     public void setPrecipitation(final DataPoint precipitation) {
-        if (precipitation.getMean() >= PRECIPITATION.min()
-            && precipitation.getMean() < PRECIPITATION.max()) {
-            this.precipitation = precipitation;
-        } else {
-            throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
-        }
+        replace(PRECIPITATION, precipitation, false);
     }
 
     /**
      * @return Pressure in mmHg.
      */
     public DataPoint getPressure() {
-        return pressure;
+        return get(PRESSURE);
     }
 
     /**
@@ -200,19 +197,14 @@ public class AtmosphericInformation {
      * @param pressure value to set
      */
     public void setPressure(final DataPoint pressure) {
-        if (pressure.getMean() >= PRESSURE.min()
-            && pressure.getMean() < PRESSURE.max()) {
-            this.pressure = pressure;
-        } else {
-            throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
-        }
+        replace(PRESSURE, pressure, false);
     }
 
     /**
      * @return Cloud cover percent from 0 - 100 (integer).
      */
     public DataPoint getCloudCover() {
-        return cloudCover;
+        return get(CLOUDCOVER);
     }
 
     /**
@@ -221,19 +213,14 @@ public class AtmosphericInformation {
      * @param cloudCover value to set
      */
     public void setCloudCover(final DataPoint cloudCover) {
-        if (cloudCover.getMean() >= CLOUDCOVER.min()
-            && cloudCover.getMean() < CLOUDCOVER.max()) {
-            this.cloudCover = cloudCover;
-        } else {
-            throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
-        }
+        replace(CLOUDCOVER, cloudCover, false);
     }
 
     /**
      * @return The last time this data was updated, in milliseconds since UTC epoch.
      */
     public long getLastUpdateTime() {
-        return this.lastUpdateTime;
+        return state.get().lastUpdateTime;
     }
 
 
@@ -243,7 +230,8 @@ public class AtmosphericInformation {
      * @param lastUpdateTime value to set
      */
     public void setLastUpdateTime(final long lastUpdateTime) {
-        this.lastUpdateTime = lastUpdateTime;
+        checkNotFrozen();
+        state.updateAndGet(current -> new State(current.dataPoints, lastUpdateTime));
     }
 
     /**
@@ -251,12 +239,77 @@ public class AtmosphericInformation {
      * <code>false</code> otherwise.
      */
     public boolean isEmpty() {
-        return cloudCover == null
-            && humidity == null
-            && precipitation == null
-            && pressure == null
-            && temperature == null
-            && wind == null;
+        for (DataPoint dataPoint : state.get().dataPoints) {
+            if (dataPoint != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates data point and atomically replaces the current one of its type.
+     *
+     * @param dataPointType the data point type
+     * @param dp            the actual data point
+     * @param touch         <code>true</code> to set last update time to current time
+     */
+    protected void replace(final DataPointType dataPointType, final DataPoint dp, final boolean touch) {
+        checkNotFrozen();
+        validate(dataPointType, dp);
+        state.updateAndGet(current -> {
+            DataPoint[] dataPoints = current.dataPoints.clone();
+            dataPoints[dataPointType.ordinal()] = dp;
+            return new State(dataPoints, touch ? System.currentTimeMillis() : current.lastUpdateTime);
+        });
+    }
+
+    /**
+     * @param dataPointType the data point type
+     * @param dp            the actual data point
+     * @throws IllegalStateException if mean of the data point is out of range of the type
+     */
+    protected static void validate(final DataPointType dataPointType, final DataPoint dp) {
+        double mean = dp.getMean();
+        // wind speed has no upper bound
+        if (!(mean >= dataPointType.min() && (dataPointType == WIND || mean < dataPointType.max()))) {
+            throw new IllegalStateException(MSG_UPDATE_ATMOSPHERIC_DATA_FAIL);
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException if this is a snapshot
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException(MSG_FROZEN);
+        }
     }
 
+    /**
+     * Immutable state.
+     */
+    private static final class State {
+
+        /**
+         * Data points by {@link DataPointType} ordinal, never modified.
+         */
+        private final DataPoint[] dataPoints;
+
+        /**
+         * The last time this data was updated, in milliseconds since UTC epoch.
+         */
+        private final long lastUpdateTime;
+
+        /**
+         * Initializing constructor.
+         *
+         * @param dataPoints     data points by {@link DataPointType} ordinal
+         * @param lastUpdateTime the last time this data was updated, in milliseconds since UTC epoch
+         */
+        private State(final DataPoint[] dataPoints, final long lastUpdateTime) {
+            this.dataPoints = dataPoints;
+            this.lastUpdateTime = lastUpdateTime;
+        }
+    }
 }
@@ -0,0 +1,132 @@
+package com.crossover.trial.weather.domain;
+
+/**
+ * Aggregated readings of one data point type of one airport in consecutive time buckets of the same width,
+ * stored column-wise. Buckets without readings are omitted.
+ * <p>
+ * Arrays are exposed without copying and must not be modified.
+ */
+public final class RollupSeries {
+
+    /**
+     * Width of a bucket, in milliseconds.
+     */
+    private final long resolution;
+
+    /**
+     * Bucket start times, in milliseconds since UTC epoch.
+     */
+    private final long[] times;
+
+    /**
+     * Minimum mean of readings in each bucket.
+     */
+    private final double[] min;
+
+    /**
+     * Maximum mean of readings in each bucket.
+     */
+    private final double[] max;
+
+    /**
+     * Average mean of readings in each bucket.
+     */
+    private final double[] mean;
+
+    /**
+     * Number of readings in each bucket.
+     */
+    private final int[] count;
+
+    /**
+     * Total number of observations of readings in each bucket.
+     */
+    private final long[] observations;
+
+    /**
+     * Initializing constructor, arrays must be of the same length.
+     *
+     * @param resolution   width of a bucket, in milliseconds
+     * @param times        bucket start times, in milliseconds since UTC epoch
+     * @param min          minimum mean of readings in each bucket
+     * @param max          maximum mean of readings in each bucket
+     * @param mean         average mean of readings in each bucket
+     * @param count        number of readings in each bucket
+     * @param observations total number of observations of readings in each bucket
+     */
+    public RollupSeries(final long resolution, final long[] times, final double[] min, final double[] max,
+                        final double[] mean, final int[] count, final long[] observations) {
+        this.resolution = resolution;
+        this.times = times;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.count = count;
+        this.observations = observations;
+    }
+
+    /**
+     * @param resolution width of a bucket, in milliseconds
+     * @return series without buckets
+     */
+    public static RollupSeries empty(final long resolution) {
+        return new RollupSeries(resolution, new long[0], new double[0], new double[0], new double[0], new int[0],
+            new long[0]);
+    }
+
+    /**
+     * @return number of buckets
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * @return width of a bucket, in milliseconds
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return bucket start times, in milliseconds since UTC epoch
+     */
+    public long[] getTimes() {
+        return times;
+    }
+
+    /**
+     * @return minimum mean of readings in each bucket
+     */
+    public double[] getMin() {
+        return min;
+    }
+
+    /**
+     * @return maximum mean of readings in each bucket
+     */
+    public double[] getMax() {
+        return max;
+    }
+
+    /**
+     * @return average mean of readings in each bucket
+     */
+    public double[] getMean() {
+        return mean;
+    }
+
+    /**
+     * @return number of readings in each bucket
+     */
+    public int[] getCount() {
+        return count;
+    }
+
+    /**
+     * @return total number of observations of readings in each bucket
+     */
+    public long[] getObservations() {
+        return observations;
+    }
+}
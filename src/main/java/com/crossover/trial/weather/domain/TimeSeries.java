@@ -0,0 +1,114 @@
+package com.crossover.trial.weather.domain;
+
+/**
+ * Timestamped readings of one data point type of one airport, in time order, stored column-wise.
+ * <p>
+ * Arrays are exposed without copying and must not be modified.
+ */
+public final class TimeSeries {
+
+    /**
+     * Series without readings.
+     */
+    public static final TimeSeries EMPTY =
+        new TimeSeries(new long[0], new double[0], new int[0], new int[0], new int[0], new int[0]);
+
+    /**
+     * Reading times, in milliseconds since UTC epoch.
+     */
+    private final long[] times;
+
+    /**
+     * The mean of observations of each reading.
+     */
+    private final double[] mean;
+
+    /**
+     * 1st quartile of observations of each reading.
+     */
+    private final int[] first;
+
+    /**
+     * 2nd quartile of observations of each reading.
+     */
+    private final int[] second;
+
+    /**
+     * 3rd quartile of observations of each reading.
+     */
+    private final int[] third;
+
+    /**
+     * Number of observations of each reading.
+     */
+    private final int[] count;
+
+    /**
+     * Initializing constructor, arrays must be of the same length.
+     *
+     * @param times  reading times, in milliseconds since UTC epoch
+     * @param mean   the mean of observations of each reading
+     * @param first  1st quartile of observations of each reading
+     * @param second 2nd quartile of observations of each reading
+     * @param third  3rd quartile of observations of each reading
+     * @param count  number of observations of each reading
+     */
+    public TimeSeries(final long[] times, final double[] mean, final int[] first, final int[] second,
+                      final int[] third, final int[] count) {
+        this.times = times;
+        this.mean = mean;
+        this.first = first;
+        this.second = second;
+        this.third = third;
+        this.count = count;
+    }
+
+    /**
+     * @return number of readings
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * @return reading times, in milliseconds since UTC epoch
+     */
+    public long[] getTimes() {
+        return times;
+    }
+
+    /**
+     * @return the mean of observations of each reading
+     */
+    public double[] getMean() {
+        return mean;
+    }
+
+    /**
+     * @return 1st quartile of observations of each reading
+     */
+    public int[] getFirst() {
+        return first;
+    }
+
+    /**
+     * @return 2nd quartile of observations of each reading
+     */
+    public int[] getSecond() {
+        return second;
+    }
+
+    /**
+     * @return 3rd quartile of observations of each reading
+     */
+    public int[] getThird() {
+        return third;
+    }
+
+    /**
+     * @return number of observations of each reading
+     */
+    public int[] getCount() {
+        return count;
+    }
+}
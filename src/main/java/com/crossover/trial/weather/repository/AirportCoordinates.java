@@ -0,0 +1,171 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.util.DistanceMath;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable column-oriented block of airport coordinates.
+ * <p>
+ * Coordinates are kept as precomputed unit vectors in primitive arrays, so distance
+ * calculation for the whole block ({@link DistanceMath#calculateDistances}) requires
+ * neither degree conversion nor trigonometry per airport and scans memory sequentially.
+ * Modifications create a new block, so readers never need locking.
+ */
+final class AirportCoordinates {
+
+    /**
+     * Block without airports.
+     */
+    static final AirportCoordinates EMPTY = new AirportCoordinates(
+        new AirportData[0], new double[0], new double[0], new double[0]);
+
+    /**
+     * Airports, in the same order as coordinates.
+     */
+    private final AirportData[] airports;
+
+    /**
+     * X components of unit vectors, cos(latitude) * cos(longitude).
+     */
+    private final double[] xs;
+
+    /**
+     * Y components of unit vectors, cos(latitude) * sin(longitude).
+     */
+    private final double[] ys;
+
+    /**
+     * Z components of unit vectors, sin(latitude).
+     */
+    private final double[] zs;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param airports airports
+     * @param xs       X components of unit vectors
+     * @param ys       Y components of unit vectors
+     * @param zs       Z components of unit vectors
+     */
+    private AirportCoordinates(final AirportData[] airports, final double[] xs, final double[] ys, final double[] zs) {
+        this.airports = airports;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+    }
+
+    /**
+     * @return number of airports in the block
+     */
+    int size() {
+        return airports.length;
+    }
+
+    /**
+     * Creates a block with given airport appended.
+     *
+     * @param airportData airport to add
+     * @return new block
+     */
+    AirportCoordinates with(final AirportData airportData) {
+        int size = airports.length;
+        AirportCoordinates result = new AirportCoordinates(Arrays.copyOf(airports, size + 1),
+            Arrays.copyOf(xs, size + 1), Arrays.copyOf(ys, size + 1), Arrays.copyOf(zs, size + 1));
+
+        double[] vector = DistanceMath.toUnitVector(airportData.getLatitude(), airportData.getLongitude());
+        result.airports[size] = airportData;
+        result.xs[size] = vector[0];
+        result.ys[size] = vector[1];
+        result.zs[size] = vector[2];
+        return result;
+    }
+
+    /**
+     * Creates a block with given airports appended.
+     *
+     * @param added airports to add
+     * @return new block
+     */
+    AirportCoordinates withAll(final Collection<AirportData> added) {
+        int size = airports.length;
+        int newSize = size + added.size();
+        AirportCoordinates result = new AirportCoordinates(Arrays.copyOf(airports, newSize),
+            Arrays.copyOf(xs, newSize), Arrays.copyOf(ys, newSize), Arrays.copyOf(zs, newSize));
+
+        int i = size;
+        for (AirportData airportData : added) {
+            double[] vector = DistanceMath.toUnitVector(airportData.getLatitude(), airportData.getLongitude());
+            result.airports[i] = airportData;
+            result.xs[i] = vector[0];
+            result.ys[i] = vector[1];
+            result.zs[i] = vector[2];
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a block without airport with given IATA code.
+     *
+     * @param iata IATA code of the airport to remove
+     * @return new block or this block if it has no such airport
+     */
+    AirportCoordinates without(final String iata) {
+        for (int i = 0; i < airports.length; i++) {
+            if (iata.equals(airports[i].getIata())) {
+                return new AirportCoordinates(remove(airports, i, new AirportData[airports.length - 1]),
+                    remove(xs, i, new double[xs.length - 1]),
+                    remove(ys, i, new double[ys.length - 1]),
+                    remove(zs, i, new double[zs.length - 1]));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds airports from the block, which are located within given radius from the point, to the collection.
+     *
+     * @param vector    unit vector of the point {@link DistanceMath#toUnitVector(double, double)}
+     * @param radius    radius in KM
+     * @param distances buffer for distances, at least {@link #size()} long
+     * @param result    collection to add airports to
+     */
+    void collectWithinRadius(final double[] vector, final double radius, final double[] distances,
+                             final Collection<AirportData> result) {
+        DistanceMath.calculateDistances(vector[0], vector[1], vector[2], xs, ys, zs, 0, xs.length, distances);
+        for (int i = 0; i < airports.length; i++) {
+            if (distances[i] <= radius) {
+                result.add(airports[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds all airports from the block to the collection.
+     *
+     * @param result collection to add airports to
+     */
+    void collectAll(final Collection<AirportData> result) {
+        result.addAll(Arrays.asList(airports));
+    }
+
+    /**
+     * Copies array skipping one element.
+     *
+     * @param source      source array
+     * @param index       index of element to skip
+     * @param destination destination array, one element shorter than the source
+     * @param <T>         type of array
+     * @return destination array
+     */
+    private static <T> T remove(final T source, final int index, final T destination) {
+        int length = Array.getLength(destination);
+        System.arraycopy(source, 0, destination, 0, index);
+        System.arraycopy(source, index + 1, destination, index, length - index);
+        return destination;
+    }
+}
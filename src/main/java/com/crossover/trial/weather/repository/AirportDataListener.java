@@ -0,0 +1,73 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.springframework.core.Ordered;
+
+import java.util.Collection;
+
+/**
+ * Callback for components which keep state derived from the stored airports
+ * (indexes, caches etc.) and therefore must follow repository modifications.
+ * <p>
+ * Callbacks are invoked synchronously, after the airport has been modified, in the order given by
+ * {@link org.springframework.core.annotation.Order} of listeners. Spatial index must be updated before
+ * query cache bumps its data version, otherwise a concurrent query could read the new version together with
+ * the old index and its stale result would be cached.
+ */
+public interface AirportDataListener {
+
+    /**
+     * Order of listeners other queries depend on, e.g. {@link AirportSpatialIndex}.
+     */
+    int INDEX_ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    /**
+     * Order of ordinary listeners.
+     */
+    int DEFAULT_ORDER = 0;
+
+    /**
+     * Order of listeners invalidating query results, which must see all other listeners updated.
+     */
+    int CACHE_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    /**
+     * Called when airport was added or replaced.
+     *
+     * @param airportData saved airport
+     */
+    void airportSaved(AirportData airportData);
+
+    /**
+     * Called when airports were added or replaced in bulk, e.g. at startup. Components whose derived state is
+     * expensive to modify one by one (indexes) should build it at once.
+     *
+     * @param airports saved airports, with distinct IATA codes
+     */
+    default void airportsSaved(final Collection<AirportData> airports) {
+        for (AirportData airportData : airports) {
+            airportSaved(airportData);
+        }
+    }
+
+    /**
+     * Called when airport was removed.
+     *
+     * @param airportData removed airport
+     */
+    void airportDeleted(AirportData airportData);
+
+    /**
+     * Called when atmospheric information of the airport was updated.
+     *
+     * @param airportData updated airport
+     * @param pointType   type of updated data point
+     * @param dataPoint   new data point
+     */
+    default void weatherUpdated(final AirportData airportData, final DataPointType pointType,
+                                final DataPoint dataPoint) {
+        // most of derived state depends on airport location only
+    }
+}
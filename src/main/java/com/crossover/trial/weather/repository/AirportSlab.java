@@ -0,0 +1,566 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap storage of airport coordinates and the latest data points.
+ * <p>
+ * Every airport takes a slot of {@link #STRIDE} bytes in direct buffers of {@link #CHUNK_SLOTS} slots,
+ * addressed by a dense slot number. Slot layout (native byte order):
+ * <pre>
+ * int    generation      incremented when the slot is released, detects stale views
+ * int    presence        bit per {@link DataPointType} ordinal
+ * double latitude
+ * double longitude
+ * long   lastUpdateTime
+ * 6 x (double mean, int first, int second, int third, int count)
+ * </pre>
+ * padded to whole cache lines. {@link AirportView} and {@link AtmosphericView} are flyweights over a slot,
+ * so an airport costs two small objects on heap regardless of its atmospheric information, and updates do
+ * not allocate. Slots are guarded by striped {@link StampedLock}s: readers are optimistic and retry under
+ * the read lock only if a write interleaved. Chunks are never freed, released slots are reused.
+ */
+final class AirportSlab {
+
+    /**
+     * Number of slots per direct buffer.
+     */
+    private static final int CHUNK_SLOTS = 1024;
+
+    /**
+     * Offset of generation.
+     */
+    private static final int GENERATION = 0;
+
+    /**
+     * Offset of data point presence bits.
+     */
+    private static final int PRESENCE = 4;
+
+    /**
+     * Offset of latitude.
+     */
+    private static final int LATITUDE = 8;
+
+    /**
+     * Offset of longitude.
+     */
+    private static final int LONGITUDE = 16;
+
+    /**
+     * Offset of last update time.
+     */
+    private static final int LAST_UPDATE_TIME = 24;
+
+    /**
+     * Offset of the first data point.
+     */
+    private static final int DATA_POINTS = 32;
+
+    /**
+     * Size of a data point.
+     */
+    private static final int DATA_POINT_SIZE = 8 + 4 * 4;
+
+    /**
+     * Assumed size of cache line.
+     */
+    private static final int CACHE_LINE = 64;
+
+    /**
+     * Point types by ordinal.
+     */
+    private static final DataPointType[] POINT_TYPES = DataPointType.values();
+
+    /**
+     * Size of a slot in bytes.
+     */
+    private static final int STRIDE = (DATA_POINTS + POINT_TYPES.length * DATA_POINT_SIZE + CACHE_LINE - 1)
+        / CACHE_LINE * CACHE_LINE;
+
+    /**
+     * Number of lock stripes, power of two.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Locks of slots, slot uses stripe of its number modulo {@link #STRIPES}.
+     */
+    private final StampedLock[] locks = new StampedLock[STRIPES];
+
+    /**
+     * Allocated buffers, replaced by a longer copy when growing.
+     */
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    /**
+     * Released slots to be reused, guarded by this.
+     */
+    private int[] free = new int[16];
+
+    /**
+     * Number of released slots, guarded by this.
+     */
+    private int freeCount;
+
+    /**
+     * Number of slots ever allocated, guarded by this.
+     */
+    private int allocated;
+
+    /**
+     * Creates empty slab, buffers are allocated on demand.
+     */
+    AirportSlab() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Stores an airport in a new slot.
+     *
+     * @param airportData airport to copy, not modified
+     * @return view of the stored airport
+     */
+    AirportView add(final AirportData airportData) {
+        int slot = allocate();
+        return new AirportView(this, slot, generation(slot), airportData.getIata()).copyFrom(airportData);
+    }
+
+    /**
+     * Releases slot of an airport, views of the slot stop reading and writing it.
+     *
+     * @param view view of the airport
+     */
+    void remove(final AirportView view) {
+        int slot = view.atmosphericView.slot;
+        StampedLock lock = lock(slot);
+        long stamp = lock.writeLock();
+        try {
+            if (!isCurrent(slot, view.atmosphericView.generation)) {
+                return;
+            }
+            ByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            chunk.putInt(offset + GENERATION, view.atmosphericView.generation + 1);
+            chunk.putInt(offset + PRESENCE, 0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        synchronized (this) {
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length * 2);
+            }
+            free[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * @return number of a free slot, allocating a new buffer if necessary
+     */
+    private synchronized int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        int slot = allocated++;
+        int index = slot / CHUNK_SLOTS;
+        if (index == chunks.length) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, index + 1);
+            grown[index] = ByteBuffer.allocateDirect(CHUNK_SLOTS * STRIDE).order(ByteOrder.nativeOrder());
+            chunks = grown;
+        }
+        return slot;
+    }
+
+    /**
+     * @param slot slot number
+     * @return current generation of the slot
+     */
+    private int generation(final int slot) {
+        StampedLock lock = lock(slot);
+        long stamp = lock.readLock();
+        try {
+            return chunk(slot).getInt(offset(slot) + GENERATION);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param slot       slot number
+     * @param generation generation of the view, must be read under a lock of the slot
+     * @return <code>true</code> if the slot was not released since the view was created
+     */
+    private boolean isCurrent(final int slot, final int generation) {
+        return chunk(slot).getInt(offset(slot) + GENERATION) == generation;
+    }
+
+    /**
+     * @param slot slot number
+     * @return lock of the slot
+     */
+    private StampedLock lock(final int slot) {
+        return locks[slot & (STRIPES - 1)];
+    }
+
+    /**
+     * @param slot slot number
+     * @return buffer of the slot
+     */
+    private ByteBuffer chunk(final int slot) {
+        return chunks[slot / CHUNK_SLOTS];
+    }
+
+    /**
+     * @param slot slot number
+     * @return offset of the slot in its buffer
+     */
+    private static int offset(final int slot) {
+        return slot % CHUNK_SLOTS * STRIDE;
+    }
+
+    /**
+     * @param offset    offset of a slot
+     * @param pointType type of a data point
+     * @return offset of the data point
+     */
+    private static int offset(final int offset, final DataPointType pointType) {
+        return offset + DATA_POINTS + pointType.ordinal() * DATA_POINT_SIZE;
+    }
+
+    /**
+     * Reads a data point, presence must be checked first.
+     *
+     * @param chunk  buffer
+     * @param offset offset of the data point
+     * @return data point
+     */
+    private static DataPoint readDataPoint(final ByteBuffer chunk, final int offset) {
+        return new DataPoint.Builder()
+            .withMean(chunk.getDouble(offset))
+            .withFirst(chunk.getInt(offset + 8))
+            .withMedian(chunk.getInt(offset + 12))
+            .withLast(chunk.getInt(offset + 16))
+            .withCount(chunk.getInt(offset + 20))
+            .build();
+    }
+
+    /**
+     * @param chunk     buffer
+     * @param offset    offset of the data point
+     * @param dataPoint data point to write
+     */
+    private static void writeDataPoint(final ByteBuffer chunk, final int offset, final DataPoint dataPoint) {
+        chunk.putDouble(offset, dataPoint.getMean());
+        chunk.putInt(offset + 8, dataPoint.getFirst());
+        chunk.putInt(offset + 12, dataPoint.getSecond());
+        chunk.putInt(offset + 16, dataPoint.getThird());
+        chunk.putInt(offset + 20, dataPoint.getCount());
+    }
+
+    /**
+     * @param chunk       buffer of the slot
+     * @param offset      offset of the slot
+     * @param information atmospheric information to write, data points and last update time
+     */
+    private static void writeInformation(final ByteBuffer chunk, final int offset,
+                                         final AtmosphericInformation information) {
+        int presence = 0;
+        for (DataPointType pointType : POINT_TYPES) {
+            DataPoint dataPoint = information.get(pointType);
+            if (dataPoint != null) {
+                writeDataPoint(chunk, offset(offset, pointType), dataPoint);
+                presence |= 1 << pointType.ordinal();
+            }
+        }
+        chunk.putInt(offset + PRESENCE, presence);
+        chunk.putLong(offset + LAST_UPDATE_TIME, information.getLastUpdateTime());
+    }
+
+    /**
+     * Reads fields of a slot.
+     *
+     * @param <T> type of read value
+     */
+    @FunctionalInterface
+    private interface SlotReader<T> {
+
+        /**
+         * Reads the slot, may see a torn state when called optimistically; must not fail because of it.
+         *
+         * @param chunk  buffer of the slot
+         * @param offset offset of the slot
+         * @return read value
+         */
+        T read(ByteBuffer chunk, int offset);
+    }
+
+    /**
+     * Writes fields of a slot.
+     */
+    @FunctionalInterface
+    private interface SlotWriter {
+
+        /**
+         * @param chunk  buffer of the slot
+         * @param offset offset of the slot
+         */
+        void write(ByteBuffer chunk, int offset);
+    }
+
+    /**
+     * Flyweight view of atmospheric information in a slot.
+     */
+    static final class AtmosphericView extends AtmosphericInformation {
+
+        /**
+         * Storage.
+         */
+        private final AirportSlab slab;
+
+        /**
+         * Slot number.
+         */
+        private final int slot;
+
+        /**
+         * Generation of the slot when the view was created.
+         */
+        private final int generation;
+
+        /**
+         * Initializing constructor.
+         *
+         * @param slab       storage
+         * @param slot       slot number
+         * @param generation generation of the slot
+         */
+        private AtmosphericView(final AirportSlab slab, final int slot, final int generation) {
+            super(false);
+            this.slab = slab;
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        @Override
+        public DataPoint get(final DataPointType dataPointType) {
+            return read(null, (chunk, offset) -> (chunk.getInt(offset + PRESENCE) & 1 << dataPointType.ordinal()) == 0
+                ? null : readDataPoint(chunk, offset(offset, dataPointType)));
+        }
+
+        @Override
+        public long getLastUpdateTime() {
+            return read(0L, (chunk, offset) -> chunk.getLong(offset + LAST_UPDATE_TIME));
+        }
+
+        @Override
+        public void setLastUpdateTime(final long lastUpdateTime) {
+            write((chunk, offset) -> chunk.putLong(offset + LAST_UPDATE_TIME, lastUpdateTime));
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return read(true, (chunk, offset) -> chunk.getInt(offset + PRESENCE) == 0);
+        }
+
+        @Override
+        public AtmosphericInformation snapshot() {
+            DataPoint[] dataPoints = new DataPoint[POINT_TYPES.length];
+            long lastUpdateTime = read(0L, (chunk, offset) -> {
+                int presence = chunk.getInt(offset + PRESENCE);
+                for (DataPointType pointType : POINT_TYPES) {
+                    dataPoints[pointType.ordinal()] = (presence & 1 << pointType.ordinal()) == 0
+                        ? null : readDataPoint(chunk, offset(offset, pointType));
+                }
+                return chunk.getLong(offset + LAST_UPDATE_TIME);
+            });
+            return snapshot(dataPoints, lastUpdateTime);
+        }
+
+        @Override
+        protected void replace(final DataPointType dataPointType, final DataPoint dp, final boolean touch) {
+            validate(dataPointType, dp);
+            long now = System.currentTimeMillis();
+            write((chunk, offset) -> {
+                writeDataPoint(chunk, offset(offset, dataPointType), dp);
+                chunk.putInt(offset + PRESENCE, chunk.getInt(offset + PRESENCE) | 1 << dataPointType.ordinal());
+                if (touch) {
+                    chunk.putLong(offset + LAST_UPDATE_TIME, now);
+                }
+            });
+        }
+
+        /**
+         * Copies atmospheric information into the slot.
+         *
+         * @param information information to copy
+         */
+        private void copyFrom(final AtmosphericInformation information) {
+            AtmosphericInformation source = information.snapshot();
+            write((chunk, offset) -> writeInformation(chunk, offset, source));
+        }
+
+        /**
+         * Reads the slot optimistically, under the read lock if a write interleaved.
+         *
+         * @param stale  value of a released slot
+         * @param reader reader of the slot
+         * @param <T>    type of read value
+         * @return read value
+         */
+        private <T> T read(final T stale, final SlotReader<T> reader) {
+            StampedLock lock = slab.lock(slot);
+            ByteBuffer chunk = slab.chunk(slot);
+            int offset = offset(slot);
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                T value = reader.read(chunk, offset);
+                boolean current = isCurrent(chunk, offset);
+                if (lock.validate(stamp)) {
+                    return current ? value : stale;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return isCurrent(chunk, offset) ? reader.read(chunk, offset) : stale;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Writes the slot under the write lock, writes of a stale view are dropped as updates of
+         * a deleted airport.
+         *
+         * @param writer writer of the slot
+         */
+        private void write(final SlotWriter writer) {
+            StampedLock lock = slab.lock(slot);
+            ByteBuffer chunk = slab.chunk(slot);
+            int offset = offset(slot);
+            long stamp = lock.writeLock();
+            try {
+                if (isCurrent(chunk, offset)) {
+                    writer.write(chunk, offset);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * @param chunk  buffer of the slot
+         * @param offset offset of the slot
+         * @return <code>true</code> if the slot was not released since the view was created
+         */
+        private boolean isCurrent(final ByteBuffer chunk, final int offset) {
+            return chunk.getInt(offset + GENERATION) == generation;
+        }
+    }
+
+    /**
+     * Flyweight view of an airport in a slot.
+     */
+    static final class AirportView extends AirportData {
+
+        /**
+         * View of atmospheric information, which also addresses coordinates.
+         */
+        private final AtmosphericView atmosphericView;
+
+        /**
+         * Initializing constructor.
+         *
+         * @param slab       storage
+         * @param slot       slot number
+         * @param generation generation of the slot
+         * @param iata       three letter IATA code
+         */
+        private AirportView(final AirportSlab slab, final int slot, final int generation, final String iata) {
+            this(new AtmosphericView(slab, slot, generation), iata);
+        }
+
+        /**
+         * Initializing constructor.
+         *
+         * @param atmosphericView view of atmospheric information
+         * @param iata            three letter IATA code
+         */
+        private AirportView(final AtmosphericView atmosphericView, final String iata) {
+            super(iata, atmosphericView);
+            this.atmosphericView = atmosphericView;
+        }
+
+        /**
+         * Copies coordinates and atmospheric information into the slot in a single write, so readers of
+         * a replaced airport do not see new weather with old coordinates.
+         *
+         * @param airportData airport to copy
+         * @return this view
+         */
+        AirportView copyFrom(final AirportData airportData) {
+            double latitude = airportData.getLatitude();
+            double longitude = airportData.getLongitude();
+            AtmosphericInformation information = airportData.getAtmosphericInformation();
+            AtmosphericInformation source = (information != null ? information : new AtmosphericInformation())
+                .snapshot();
+            atmosphericView.write((chunk, offset) -> {
+                writeInformation(chunk, offset, source);
+                chunk.putDouble(offset + LATITUDE, latitude);
+                chunk.putDouble(offset + LONGITUDE, longitude);
+            });
+            return this;
+        }
+
+        @Override
+        public void setIata(final String iata) {
+            throw new UnsupportedOperationException("IATA code of a stored airport can not be changed");
+        }
+
+        @Override
+        public double getLatitude() {
+            return atmosphericView.read(Double.NaN, (chunk, offset) -> chunk.getDouble(offset + LATITUDE));
+        }
+
+        @Override
+        public void setLatitude(final double latitude) {
+            atmosphericView.write((chunk, offset) -> chunk.putDouble(offset + LATITUDE, latitude));
+        }
+
+        @Override
+        public double getLongitude() {
+            return atmosphericView.read(Double.NaN, (chunk, offset) -> chunk.getDouble(offset + LONGITUDE));
+        }
+
+        @Override
+        public void setLongitude(final double longitude) {
+            atmosphericView.write((chunk, offset) -> chunk.putDouble(offset + LONGITUDE, longitude));
+        }
+
+        @Override
+        public void setAtmosphericInformation(final AtmosphericInformation atmosphericInformation) {
+            atmosphericView.copyFrom(atmosphericInformation);
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, ToStringStyle.NO_CLASS_NAME_STYLE)
+                .append("iata", getIata())
+                .append("latitude", getLatitude())
+                .append("longitude", getLongitude())
+                .append("atmosphericInformation", atmosphericView.snapshot())
+                .toString();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.util.DistanceMath;
+import com.crossover.trial.weather.util.StageTimer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Latitude/longitude grid index over stored airports.
+ * <p>
+ * The globe is split into cells of (approximately) configured size in degrees. Radius search
+ * computes bounding box of the search circle, so only airports from intersecting cells are
+ * returned as candidates. Each cell is kept as a column-oriented {@link AirportCoordinates} block,
+ * so exact distances to candidates are calculated in batches, cell by cell.
+ * <p>
+ * Bounding box of the circle, including the antimeridian and poles handling, is computed as described at
+ * http://janmatuschek.de/LatitudeLongitudeBoundingCoordinates
+ */
+@Component
+@Order(AirportDataListener.INDEX_ORDER)
+public class AirportSpatialIndex implements AirportDataListener {
+
+    /**
+     * Number of latitude rows in the grid.
+     */
+    private final int rows;
+
+    /**
+     * Number of longitude columns in the grid.
+     */
+    private final int columns;
+
+    /**
+     * Cell height in degrees.
+     */
+    private final double rowSize;
+
+    /**
+     * Cell width in degrees.
+     */
+    private final double columnSize;
+
+    /**
+     * Non-empty cells [cell number -> airports located in cell].
+     * <p>
+     * Blocks are immutable and replaced on modification, so readers do not need locking.
+     */
+    private final Map<Integer, AirportCoordinates> cells = new ConcurrentHashMap<>();
+
+    /**
+     * Cell number of each indexed airport [IATA code -> cell number].
+     */
+    private final Map<String, Integer> cellByIata = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param cellSize approximate size of grid cell in degrees, (0, 180]
+     */
+    @Inject
+    public AirportSpatialIndex(@Value("${weather.index.cell-size:1.0}") final double cellSize) {
+        if (!(cellSize > 0 && cellSize <= 180)) {
+            throw new IllegalArgumentException("Cell size must be in (0, 180] degrees range: " + cellSize);
+        }
+        rows = (int) Math.round(180 / cellSize);
+        columns = (int) Math.round(360 / cellSize);
+        rowSize = 180.0 / rows;
+        columnSize = 360.0 / columns;
+    }
+
+    @Override
+    public synchronized void airportSaved(final AirportData airportData) {
+        removeFromCell(airportData.getIata());
+
+        int cell = cellOf(airportData.getLatitude(), airportData.getLongitude());
+        cells.put(cell, cells.getOrDefault(cell, AirportCoordinates.EMPTY).with(airportData));
+        cellByIata.put(airportData.getIata(), cell);
+    }
+
+    @Override
+    public synchronized void airportsSaved(final Collection<AirportData> airports) {
+        Map<Integer, List<AirportData>> added = new HashMap<>();
+        for (AirportData airportData : airports) {
+            removeFromCell(airportData.getIata());
+            int cell = cellOf(airportData.getLatitude(), airportData.getLongitude());
+            added.computeIfAbsent(cell, key -> new ArrayList<>()).add(airportData);
+            cellByIata.put(airportData.getIata(), cell);
+        }
+        // every cell block is copied once instead of once per airport
+        for (Map.Entry<Integer, List<AirportData>> entry : added.entrySet()) {
+            cells.put(entry.getKey(), cells.getOrDefault(entry.getKey(), AirportCoordinates.EMPTY)
+                .withAll(entry.getValue()));
+        }
+    }
+
+    @Override
+    public synchronized void airportDeleted(final AirportData airportData) {
+        removeFromCell(airportData.getIata());
+    }
+
+    /**
+     * Finds airports located within given radius from given point.
+     *
+     * @param latitude  center latitude in degrees
+     * @param longitude center longitude in degrees
+     * @param radius    radius in KM
+     * @return airports in the radius
+     */
+    public List<AirportData> findWithinRadius(final double latitude, final double longitude, final double radius) {
+        return findWithinRadius(latitude, longitude, radius, candidates -> { });
+    }
+
+    /**
+     * Finds airports located within given radius from given point, reporting the number of candidate
+     * airports whose distance was calculated.
+     *
+     * @param latitude  center latitude in degrees
+     * @param longitude center longitude in degrees
+     * @param radius    radius in KM
+     * @param scanned   receives number of candidate airports
+     * @return airports in the radius
+     */
+    public List<AirportData> findWithinRadius(final double latitude, final double longitude, final double radius,
+                                              final IntConsumer scanned) {
+        long begin = StageTimer.begin();
+        List<AirportCoordinates> blocks = findCandidateBlocks(latitude, longitude, radius);
+        StageTimer.end(StageTimer.Stage.SCAN, begin);
+
+        begin = StageTimer.begin();
+        int maxSize = 0;
+        int candidates = 0;
+        for (AirportCoordinates block : blocks) {
+            maxSize = Math.max(maxSize, block.size());
+            candidates += block.size();
+        }
+        scanned.accept(candidates);
+        double[] vector = DistanceMath.toUnitVector(latitude, longitude);
+        double[] distances = new double[maxSize];
+
+        List<AirportData> result = new ArrayList<>();
+        for (AirportCoordinates block : blocks) {
+            block.collectWithinRadius(vector, radius, distances, result);
+        }
+        StageTimer.end(StageTimer.Stage.FILTER, begin);
+        return result;
+    }
+
+    /**
+     * Finds airports which may be located within given radius from given point.
+     * <p>
+     * Result is a superset of airports in the radius.
+     *
+     * @param latitude  center latitude in degrees
+     * @param longitude center longitude in degrees
+     * @param radius    radius in KM
+     * @return candidate airports
+     */
+    public List<AirportData> findCandidates(final double latitude, final double longitude, final double radius) {
+        List<AirportData> result = new ArrayList<>();
+        for (AirportCoordinates block : findCandidateBlocks(latitude, longitude, radius)) {
+            block.collectAll(result);
+        }
+        return result;
+    }
+
+    /**
+     * Finds cells intersecting bounding box of the search circle.
+     *
+     * @param latitude  center latitude in degrees
+     * @param longitude center longitude in degrees
+     * @param radius    radius in KM
+     * @return blocks of candidate cells
+     */
+    private List<AirportCoordinates> findCandidateBlocks(final double latitude, final double longitude,
+                                                         final double radius) {
+        // angular radius of the search circle
+        double delta = radius / DistanceMath.R;
+        if (delta >= Math.PI) {
+            return new ArrayList<>(cells.values());
+        }
+
+        double deltaDegrees = Math.toDegrees(delta);
+        double minLatitude = latitude - deltaDegrees;
+        double maxLatitude = latitude + deltaDegrees;
+
+        int fromColumn = 0;
+        int toColumn = columns - 1;
+        if (minLatitude > -90 && maxLatitude < 90) {
+            // circle does not contain a pole, so longitude range can be narrowed
+            double sinDeltaLongitude = Math.sin(delta) / Math.cos(Math.toRadians(latitude));
+            if (sinDeltaLongitude < 1) {
+                double deltaLongitude = Math.toDegrees(Math.asin(sinDeltaLongitude));
+                int from = column(longitude - deltaLongitude);
+                int to = column(longitude + deltaLongitude);
+                if (to - from + 1 < columns) {
+                    fromColumn = from;
+                    toColumn = to;
+                }
+            }
+        }
+
+        List<AirportCoordinates> result = new ArrayList<>();
+        int toRow = row(maxLatitude);
+        for (int r = row(minLatitude); r <= toRow; r++) {
+            for (int c = fromColumn; c <= toColumn; c++) {
+                // columns outside of [0, columns) wrap across the antimeridian
+                AirportCoordinates block = cells.get(r * columns + Math.floorMod(c, columns));
+                if (block != null) {
+                    result.add(block);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes airport from the cell it was indexed in.
+     *
+     * @param iata IATA code of the airport
+     */
+    private void removeFromCell(final String iata) {
+        Integer cell = cellByIata.remove(iata);
+        if (cell != null) {
+            AirportCoordinates block = cells.get(cell).without(iata);
+            if (block.size() == 0) {
+                cells.remove(cell);
+            } else {
+                cells.put(cell, block);
+            }
+        }
+    }
+
+    /**
+     * @param latitude  latitude in degrees
+     * @param longitude longitude in degrees
+     * @return number of the cell containing given point
+     */
+    private int cellOf(final double latitude, final double longitude) {
+        return row(latitude) * columns + Math.floorMod(column(longitude), columns);
+    }
+
+    /**
+     * @param latitude latitude in degrees
+     * @return grid row, clamped to the grid
+     */
+    private int row(final double latitude) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((latitude + 90) / rowSize)));
+    }
+
+    /**
+     * @param longitude longitude in degrees
+     * @return grid column, not wrapped
+     */
+    private int column(final double longitude) {
+        return (int) Math.floor((longitude + 180) / columnSize);
+    }
+}
@@ -0,0 +1,155 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.util.WeatherUpdateCodec;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Airports by IATA code, keyed by codes packed by {@link WeatherUpdateCodec#packIata(String)}.
+ * <p>
+ * Packed code has 15 bits, so the table is indexed by the code directly: a perfect hash without probing,
+ * collisions or resizing. Lookups and iteration do not hash strings nor allocate. Codes which can not be
+ * packed (not three uppercase letters) are kept in a fallback map. Reads are lock-free, modifications
+ * must be serialized by the caller.
+ */
+final class AirportTable implements Iterable<AirportData> {
+
+    /**
+     * Number of packed codes, 5 bits per letter.
+     */
+    private static final int PACKED_CODES = 1 << 15;
+
+    /**
+     * Airports by packed IATA code.
+     */
+    private final AtomicReferenceArray<AirportData> packed = new AtomicReferenceArray<>(PACKED_CODES);
+
+    /**
+     * Airports with codes which can not be packed [IATA code -> airport].
+     */
+    private final Map<String, AirportData> fallback = new ConcurrentHashMap<>();
+
+    /**
+     * Number of airports in {@link #packed}, written by the single writer.
+     */
+    private volatile int packedCount;
+
+    /**
+     * @param iata IATA code
+     * @return airport or <code>null</code> if not found
+     */
+    AirportData get(final String iata) {
+        int code = WeatherUpdateCodec.packIata(iata);
+        if (code >= 0) {
+            return packed.get(code);
+        }
+        return iata == null ? null : fallback.get(iata);
+    }
+
+    /**
+     * @param airportData airport to store under its IATA code
+     * @return replaced airport or <code>null</code>
+     */
+    AirportData put(final AirportData airportData) {
+        int code = WeatherUpdateCodec.packIata(airportData.getIata());
+        if (code < 0) {
+            return fallback.put(airportData.getIata(), airportData);
+        }
+        AirportData previous = packed.getAndSet(code, airportData);
+        if (previous == null) {
+            packedCount++;
+        }
+        return previous;
+    }
+
+    /**
+     * @param iata IATA code
+     * @return removed airport or <code>null</code> if not found
+     */
+    AirportData remove(final String iata) {
+        int code = WeatherUpdateCodec.packIata(iata);
+        if (code < 0) {
+            return iata == null ? null : fallback.remove(iata);
+        }
+        AirportData previous = packed.getAndSet(code, null);
+        if (previous != null) {
+            packedCount--;
+        }
+        return previous;
+    }
+
+    /**
+     * @return number of airports
+     */
+    int size() {
+        return packedCount + fallback.size();
+    }
+
+    @Override
+    public void forEach(final Consumer<? super AirportData> action) {
+        for (int code = 0; code < PACKED_CODES; code++) {
+            AirportData airportData = packed.get(code);
+            if (airportData != null) {
+                action.accept(airportData);
+            }
+        }
+        fallback.values().forEach(action);
+    }
+
+    /**
+     * @return weakly consistent iterator in packed code order, fallback airports last; does not support removal
+     */
+    @Override
+    public Iterator<AirportData> iterator() {
+        return new Iterator<AirportData>() {
+
+            /**
+             * Next packed code to check.
+             */
+            private int code;
+
+            /**
+             * Next airport, <code>null</code> if not found yet.
+             */
+            private AirportData next;
+
+            /**
+             * Iterator of fallback airports, created after all packed codes are checked.
+             */
+            private Iterator<AirportData> fallbackIterator;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && code < PACKED_CODES) {
+                    next = packed.get(code++);
+                }
+                if (next != null) {
+                    return true;
+                }
+                if (fallbackIterator == null) {
+                    fallbackIterator = fallback.values().iterator();
+                }
+                return fallbackIterator.hasNext();
+            }
+
+            @Override
+            public AirportData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (next == null) {
+                    return fallbackIterator.next();
+                }
+                AirportData result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+}
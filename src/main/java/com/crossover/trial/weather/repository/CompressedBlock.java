@@ -0,0 +1,369 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.TimeSeries;
+
+import java.util.Arrays;
+
+/**
+ * Immutable block of readings compressed as in Facebook's Gorilla (http://www.vldb.org/pvldb/vol8/p1816-teller.pdf).
+ * <p>
+ * Times are stored as delta-of-delta, means as XOR with the previous mean, quartiles and counts as deltas
+ * from the previous value; all in variable length bit fields. Regular readings of a slowly changing value
+ * take a few bits per field instead of 32 bytes.
+ */
+final class CompressedBlock {
+
+    /**
+     * Bits of the length of meaningful XOR bits (stored minus one).
+     */
+    private static final int LENGTH_BITS = 6;
+
+    /**
+     * Bits of the number of leading zeros of XOR.
+     */
+    private static final int LEADING_BITS = 5;
+
+    /**
+     * Widths of variable length value buckets, value of the last bucket is stored in full.
+     */
+    private static final int[] BUCKETS = {7, 12, 20};
+
+    /**
+     * Time of the oldest reading, in milliseconds since UTC epoch.
+     */
+    private final long minTime;
+
+    /**
+     * Time of the newest reading, in milliseconds since UTC epoch.
+     */
+    private final long maxTime;
+
+    /**
+     * Number of readings.
+     */
+    private final int size;
+
+    /**
+     * Compressed readings.
+     */
+    private final long[] bits;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param minTime time of the oldest reading
+     * @param maxTime time of the newest reading
+     * @param size    number of readings
+     * @param bits    compressed readings
+     */
+    private CompressedBlock(final long minTime, final long maxTime, final int size, final long[] bits) {
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.size = size;
+        this.bits = bits;
+    }
+
+    /**
+     * @param series readings to compress, not empty
+     * @return compressed readings
+     */
+    static CompressedBlock compress(final TimeSeries series) {
+        BitWriter out = new BitWriter(series.size());
+        long[] times = series.getTimes();
+        double[] mean = series.getMean();
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+
+        long previousTime = 0;
+        long previousDelta = 0;
+        long previousMean = 0;
+        int leading = Integer.MAX_VALUE;
+        int trailing = 0;
+        for (int i = 0; i < series.size(); i++) {
+            minTime = Math.min(minTime, times[i]);
+            maxTime = Math.max(maxTime, times[i]);
+
+            long delta = times[i] - previousTime;
+            writeVariable(out, delta - previousDelta, Long.SIZE);
+            previousTime = times[i];
+            previousDelta = delta;
+
+            long meanBits = Double.doubleToRawLongBits(mean[i]);
+            long xor = meanBits ^ previousMean;
+            previousMean = meanBits;
+            if (xor == 0) {
+                out.write(0, 1);
+            } else if (Long.numberOfLeadingZeros(xor) >= leading && Long.numberOfTrailingZeros(xor) >= trailing) {
+                // meaningful bits fit into the previous window
+                out.write(2, 2);
+                out.write(xor >>> trailing, Long.SIZE - leading - trailing);
+            } else {
+                leading = Math.min(Long.numberOfLeadingZeros(xor), (1 << LEADING_BITS) - 1);
+                trailing = Long.numberOfTrailingZeros(xor);
+                int length = Long.SIZE - leading - trailing;
+                out.write(3, 2);
+                out.write(leading, LEADING_BITS);
+                out.write(length - 1, LENGTH_BITS);
+                out.write(xor >>> trailing, length);
+            }
+
+            writeDelta(out, series.getFirst(), i);
+            writeDelta(out, series.getSecond(), i);
+            writeDelta(out, series.getThird(), i);
+            writeDelta(out, series.getCount(), i);
+        }
+        return new CompressedBlock(minTime, maxTime, series.size(), out.toArray());
+    }
+
+    /**
+     * @param from start of the range (inclusive), in milliseconds since UTC epoch
+     * @param to   end of the range (inclusive), in milliseconds since UTC epoch
+     * @return <code>true</code> if any reading of the block may be in the range
+     */
+    boolean overlaps(final long from, final long to) {
+        return minTime <= to && maxTime >= from;
+    }
+
+    /**
+     * @return time of the newest reading, in milliseconds since UTC epoch
+     */
+    long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * @return approximate memory taken by compressed readings, in bytes
+     */
+    int sizeInBytes() {
+        return bits.length * Long.BYTES;
+    }
+
+    /**
+     * @param from start of the range (inclusive), in milliseconds since UTC epoch
+     * @param to   end of the range (inclusive), in milliseconds since UTC epoch
+     * @return readings in the range
+     */
+    TimeSeries decompress(final long from, final long to) {
+        long[] times = new long[size];
+        double[] mean = new double[size];
+        int[] first = new int[size];
+        int[] second = new int[size];
+        int[] third = new int[size];
+        int[] count = new int[size];
+
+        BitReader in = new BitReader(bits);
+        long previousTime = 0;
+        long previousDelta = 0;
+        long previousMean = 0;
+        int leading = 0;
+        int trailing = 0;
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            previousDelta += readVariable(in, Long.SIZE);
+            previousTime += previousDelta;
+            times[i] = previousTime;
+
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(LEADING_BITS);
+                    length = (int) in.read(LENGTH_BITS) + 1;
+                    trailing = Long.SIZE - leading - length;
+                }
+                previousMean ^= in.read(length) << trailing;
+            }
+            mean[i] = Double.longBitsToDouble(previousMean);
+
+            first[i] = readDelta(in, first, i);
+            second[i] = readDelta(in, second, i);
+            third[i] = readDelta(in, third, i);
+            count[i] = readDelta(in, count, i);
+        }
+
+        int matching = 0;
+        for (long time : times) {
+            if (time >= from && time <= to) {
+                matching++;
+            }
+        }
+        if (matching == size) {
+            return new TimeSeries(times, mean, first, second, third, count);
+        }
+        TimeSeries result = new TimeSeries(new long[matching], new double[matching], new int[matching],
+            new int[matching], new int[matching], new int[matching]);
+        for (int i = 0, j = 0; i < size; i++) {
+            if (times[i] >= from && times[i] <= to) {
+                result.getTimes()[j] = times[i];
+                result.getMean()[j] = mean[i];
+                result.getFirst()[j] = first[i];
+                result.getSecond()[j] = second[i];
+                result.getThird()[j] = third[i];
+                result.getCount()[j] = count[i];
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param out    destination
+     * @param values values of a column
+     * @param index  index of the value to write
+     */
+    private static void writeDelta(final BitWriter out, final int[] values, final int index) {
+        writeVariable(out, index == 0 ? values[0] : (long) values[index] - values[index - 1], Integer.SIZE + 1);
+    }
+
+    /**
+     * @param in     source
+     * @param values values of a column decoded so far
+     * @param index  index of the value to read
+     * @return value
+     */
+    private static int readDelta(final BitReader in, final int[] values, final int index) {
+        long delta = readVariable(in, Integer.SIZE + 1);
+        return (int) (index == 0 ? delta : values[index - 1] + delta);
+    }
+
+    /**
+     * Writes zig-zag encoded value with a unary prefix selecting the bucket: '0' for zero, '10', '110'
+     * and '1110' for values fitting into {@link #BUCKETS}, '1111' for the rest.
+     *
+     * @param out      destination
+     * @param value    value to write
+     * @param maxWidth width of values not fitting into any bucket
+     */
+    private static void writeVariable(final BitWriter out, final long value, final int maxWidth) {
+        long zigZag = (value << 1) ^ (value >> (Long.SIZE - 1));
+        if (zigZag == 0) {
+            out.write(0, 1);
+            return;
+        }
+        for (int i = 0; i < BUCKETS.length; i++) {
+            if (zigZag >>> BUCKETS[i] == 0) {
+                // i + 1 ones followed by zero
+                out.write(((1L << (i + 1)) - 1) << 1, i + 2);
+                out.write(zigZag, BUCKETS[i]);
+                return;
+            }
+        }
+        out.write((1L << (BUCKETS.length + 1)) - 1, BUCKETS.length + 1);
+        out.write(zigZag, maxWidth);
+    }
+
+    /**
+     * @param in       source
+     * @param maxWidth width of values not fitting into any bucket
+     * @return value written by {@link #writeVariable(BitWriter, long, int)}
+     */
+    private static long readVariable(final BitReader in, final int maxWidth) {
+        int bucket = 0;
+        while (bucket <= BUCKETS.length && in.read(1) != 0) {
+            bucket++;
+        }
+        long zigZag;
+        if (bucket == 0) {
+            return 0;
+        } else if (bucket <= BUCKETS.length) {
+            zigZag = in.read(BUCKETS[bucket - 1]);
+        } else {
+            zigZag = in.read(maxWidth);
+        }
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    /**
+     * Writes bit fields, most significant bit first.
+     */
+    private static final class BitWriter {
+
+        /**
+         * Written bits.
+         */
+        private long[] words;
+
+        /**
+         * Number of written bits.
+         */
+        private int position;
+
+        /**
+         * @param expectedValues expected number of readings
+         */
+        private BitWriter(final int expectedValues) {
+            words = new long[Math.max(1, expectedValues / 2)];
+        }
+
+        /**
+         * @param value value, only the lowest bits are written
+         * @param width number of bits to write, [0, 64]
+         */
+        private void write(final long value, final int width) {
+            if (width == 0) {
+                return;
+            }
+            int index = position >>> 6;
+            if (index + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            long masked = width == Long.SIZE ? value : value & ((1L << width) - 1);
+            int free = Long.SIZE - (position & (Long.SIZE - 1));
+            if (width <= free) {
+                words[index] |= masked << (free - width);
+            } else {
+                words[index] |= masked >>> (width - free);
+                words[index + 1] |= masked << (Long.SIZE - (width - free));
+            }
+            position += width;
+        }
+
+        /**
+         * @return written bits, trimmed
+         */
+        private long[] toArray() {
+            return Arrays.copyOf(words, (position + Long.SIZE - 1) >>> 6);
+        }
+    }
+
+    /**
+     * Reads bit fields written by {@link BitWriter}.
+     */
+    private static final class BitReader {
+
+        /**
+         * Bits to read.
+         */
+        private final long[] words;
+
+        /**
+         * Number of read bits.
+         */
+        private int position;
+
+        /**
+         * @param words bits to read
+         */
+        private BitReader(final long[] words) {
+            this.words = words;
+        }
+
+        /**
+         * @param width number of bits to read, [0, 64]
+         * @return read value
+         */
+        private long read(final int width) {
+            if (width == 0) {
+                return 0;
+            }
+            int index = position >>> 6;
+            int free = Long.SIZE - (position & (Long.SIZE - 1));
+            long result;
+            if (width <= free) {
+                result = words[index] >>> (free - width);
+            } else {
+                result = words[index] << (width - free) | words[index + 1] >>> (Long.SIZE - (width - free));
+            }
+            position += width;
+            return width == Long.SIZE ? result : result & ((1L << width) - 1);
+        }
+    }
+}
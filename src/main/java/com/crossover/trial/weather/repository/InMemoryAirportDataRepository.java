@@ -0,0 +1,198 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * In-memory implementation of {@link AirportDataRepository}.
+ * <p>
+ * Replaces generic map repository, because derived structures (e.g. {@link AirportSpatialIndex})
+ * must be notified about every modification. Airports are kept in {@link AirportTable} keyed by packed
+ * IATA codes, so lookups and iteration do not allocate. Reads are lock-free, modifications are serialized.
+ * <p>
+ * Optionally keeps coordinates and atmospheric information off heap in {@link AirportSlab}; stored airports
+ * are then views of the slab, and saving an airport copies it instead of storing the given instance.
+ */
+@Repository
+public class InMemoryAirportDataRepository implements AirportDataRepository {
+
+    /**
+     * Stored airports [IATA code -> airport].
+     */
+    private final AirportTable airports = new AirportTable();
+
+    /**
+     * Off-heap storage of airports, <code>null</code> if airports are stored on heap.
+     */
+    private final AirportSlab slab;
+
+    /**
+     * Components to be notified about modifications.
+     */
+    @Inject
+    private List<AirportDataListener> listeners;
+
+    /**
+     * Log of the modifications, held off while a snapshot is copied.
+     */
+    @Inject
+    private WriteAheadLog writeAheadLog;
+
+    /**
+     * Creates empty repository storing airports on heap.
+     */
+    public InMemoryAirportDataRepository() {
+        this(false);
+    }
+
+    /**
+     * Creates empty repository.
+     *
+     * @param offHeap <code>true</code> to store coordinates and atmospheric information off heap
+     */
+    @Inject
+    public InMemoryAirportDataRepository(@Value("${weather.storage.off-heap:false}") final boolean offHeap) {
+        this.slab = offHeap ? new AirportSlab() : null;
+    }
+
+    @Override
+    public synchronized <S extends AirportData> S save(final S entity) {
+        Lock modificationLock = writeAheadLog.modificationLock();
+        modificationLock.lock();
+        try {
+            S stored = store(entity);
+            for (AirportDataListener listener : listeners) {
+                listener.airportSaved(stored);
+            }
+            return stored;
+        } finally {
+            modificationLock.unlock();
+        }
+    }
+
+    /**
+     * Stores all airports first and notifies listeners once, so derived structures are built in bulk.
+     *
+     * @param entities airports to save
+     * @return stored airports
+     */
+    @Override
+    public synchronized <S extends AirportData> Iterable<S> save(final Iterable<S> entities) {
+        List<S> result = new ArrayList<>();
+        Map<String, AirportData> saved = new LinkedHashMap<>();
+        Lock modificationLock = writeAheadLog.modificationLock();
+        modificationLock.lock();
+        try {
+            for (S entity : entities) {
+                S stored = store(entity);
+                result.add(stored);
+                saved.put(stored.getIata(), stored);
+            }
+            if (!saved.isEmpty()) {
+                for (AirportDataListener listener : listeners) {
+                    listener.airportsSaved(saved.values());
+                }
+            }
+        } finally {
+            modificationLock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * @param entity airport to store
+     * @return stored airport, without notifying listeners
+     */
+    @SuppressWarnings("unchecked")
+    private <S extends AirportData> S store(final S entity) {
+        S stored = entity;
+        if (slab != null) {
+            AirportData previous = airports.get(entity.getIata());
+            // replaced airport keeps its slot, so views held by derived structures stay valid
+            stored = (S) (previous != null
+                ? ((AirportSlab.AirportView) previous).copyFrom(entity) : slab.add(entity));
+        }
+        airports.put(stored);
+        return stored;
+    }
+
+    @Override
+    public AirportData findOne(final String iata) {
+        return airports.get(iata);
+    }
+
+    @Override
+    public boolean exists(final String iata) {
+        return airports.get(iata) != null;
+    }
+
+    @Override
+    public Iterable<AirportData> findAll() {
+        return airports;
+    }
+
+    @Override
+    public Iterable<AirportData> findAll(final Iterable<String> iatas) {
+        List<AirportData> result = new ArrayList<>();
+        for (String iata : iatas) {
+            AirportData airportData = airports.get(iata);
+            if (airportData != null) {
+                result.add(airportData);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long count() {
+        return airports.size();
+    }
+
+    @Override
+    public synchronized void delete(final String iata) {
+        Lock modificationLock = writeAheadLog.modificationLock();
+        modificationLock.lock();
+        try {
+            AirportData removed = airports.remove(iata);
+            if (removed != null) {
+                for (AirportDataListener listener : listeners) {
+                    listener.airportDeleted(removed);
+                }
+                if (slab != null) {
+                    slab.remove((AirportSlab.AirportView) removed);
+                }
+            }
+        } finally {
+            modificationLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(final AirportData entity) {
+        delete(entity.getIata());
+    }
+
+    @Override
+    public void delete(final Iterable<? extends AirportData> entities) {
+        for (AirportData entity : entities) {
+            delete(entity.getIata());
+        }
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        List<String> iatas = new ArrayList<>();
+        airports.forEach(airportData -> iatas.add(airportData.getIata()));
+        for (String iata : iatas) {
+            delete(iata);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.TimeSeries;
+
+/**
+ * Fixed capacity ring buffer of timestamped readings, stored in primitive arrays. Once full, every
+ * added reading overwrites the oldest one.
+ * <p>
+ * Not thread-safe, guarded by the owning {@link SeriesHistory}.
+ */
+final class ReadingBuffer {
+
+    /**
+     * Reading times, in milliseconds since UTC epoch.
+     */
+    private final long[] times;
+
+    /**
+     * The mean of observations of each reading.
+     */
+    private final double[] mean;
+
+    /**
+     * 1st quartile of observations of each reading.
+     */
+    private final int[] first;
+
+    /**
+     * 2nd quartile of observations of each reading.
+     */
+    private final int[] second;
+
+    /**
+     * 3rd quartile of observations of each reading.
+     */
+    private final int[] third;
+
+    /**
+     * Number of observations of each reading.
+     */
+    private final int[] count;
+
+    /**
+     * Index the next reading is written to.
+     */
+    private int next;
+
+    /**
+     * Number of readings held.
+     */
+    private int size;
+
+    /**
+     * Creates empty buffer.
+     *
+     * @param capacity maximum number of readings held
+     */
+    ReadingBuffer(final int capacity) {
+        times = new long[capacity];
+        mean = new double[capacity];
+        first = new int[capacity];
+        second = new int[capacity];
+        third = new int[capacity];
+        count = new int[capacity];
+    }
+
+    /**
+     * Adds reading, overwriting the oldest one if the buffer is full.
+     *
+     * @param time      reading time, in milliseconds since UTC epoch
+     * @param dataPoint reading
+     */
+    void add(final long time, final DataPoint dataPoint) {
+        times[next] = time;
+        mean[next] = dataPoint.getMean();
+        first[next] = dataPoint.getFirst();
+        second[next] = dataPoint.getSecond();
+        third[next] = dataPoint.getThird();
+        count[next] = dataPoint.getCount();
+        next = next + 1 == times.length ? 0 : next + 1;
+        size = Math.min(size + 1, times.length);
+    }
+
+    /**
+     * @return <code>true</code> if next reading overwrites the oldest one
+     */
+    boolean isFull() {
+        return size == times.length;
+    }
+
+    /**
+     * Removes all readings.
+     */
+    void clear() {
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * @param from start of the range (inclusive), in milliseconds since UTC epoch
+     * @param to   end of the range (inclusive), in milliseconds since UTC epoch
+     * @return copy of readings in the range, oldest first
+     */
+    TimeSeries range(final long from, final long to) {
+        int oldest = next - size < 0 ? next - size + times.length : next - size;
+        int length = 0;
+        for (int i = 0, index = oldest; i < size; i++, index = index + 1 == times.length ? 0 : index + 1) {
+            if (times[index] >= from && times[index] <= to) {
+                length++;
+            }
+        }
+        if (length == 0) {
+            return TimeSeries.EMPTY;
+        }
+
+        TimeSeries result = new TimeSeries(new long[length], new double[length], new int[length],
+            new int[length], new int[length], new int[length]);
+        for (int i = 0, j = 0, index = oldest; i < size; i++, index = index + 1 == times.length ? 0 : index + 1) {
+            if (times[index] >= from && times[index] <= to) {
+                result.getTimes()[j] = times[index];
+                result.getMean()[j] = mean[index];
+                result.getFirst()[j] = first[index];
+                result.getSecond()[j] = second[index];
+                result.getThird()[j] = third[index];
+                result.getCount()[j] = count[index];
+                j++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,142 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.RollupSeries;
+
+import java.util.Arrays;
+
+/**
+ * Fixed number of the most recent time buckets of one width, stored in primitive arrays. Bucket with id
+ * (time / width) is kept in slot (id % capacity), so a new bucket replaces the one a capacity older.
+ */
+final class RollupBuffer {
+
+    /**
+     * Id of no bucket.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    /**
+     * Width of a bucket, in milliseconds.
+     */
+    private final long width;
+
+    /**
+     * Id of the bucket held in each slot, {@link #EMPTY} if none.
+     */
+    private final long[] ids;
+
+    /**
+     * Minimum mean of readings in each slot.
+     */
+    private final double[] min;
+
+    /**
+     * Maximum mean of readings in each slot.
+     */
+    private final double[] max;
+
+    /**
+     * Sum of means of readings in each slot.
+     */
+    private final double[] sum;
+
+    /**
+     * Number of readings in each slot.
+     */
+    private final int[] count;
+
+    /**
+     * Total number of observations of readings in each slot.
+     */
+    private final long[] observations;
+
+    /**
+     * Id of the newest bucket.
+     */
+    private long newest = EMPTY;
+
+    /**
+     * Creates empty buffer.
+     *
+     * @param width    width of a bucket, in milliseconds
+     * @param capacity number of buckets kept
+     */
+    RollupBuffer(final long width, final int capacity) {
+        this.width = width;
+        ids = new long[capacity];
+        min = new double[capacity];
+        max = new double[capacity];
+        sum = new double[capacity];
+        count = new int[capacity];
+        observations = new long[capacity];
+        Arrays.fill(ids, EMPTY);
+    }
+
+    /**
+     * Aggregates reading into its bucket. Readings older than the kept buckets are ignored.
+     *
+     * @param time      reading time, in milliseconds since UTC epoch
+     * @param dataPoint reading
+     */
+    synchronized void add(final long time, final DataPoint dataPoint) {
+        long id = Math.floorDiv(time, width);
+        if (newest != EMPTY && id <= newest - ids.length) {
+            return;
+        }
+        newest = Math.max(newest, id);
+
+        int slot = (int) Math.floorMod(id, (long) ids.length);
+        double value = dataPoint.getMean();
+        if (ids[slot] != id) {
+            ids[slot] = id;
+            min[slot] = value;
+            max[slot] = value;
+            sum[slot] = 0;
+            count[slot] = 0;
+            observations[slot] = 0;
+        } else {
+            min[slot] = Math.min(min[slot], value);
+            max[slot] = Math.max(max[slot], value);
+        }
+        sum[slot] += value;
+        count[slot]++;
+        observations[slot] += dataPoint.getCount();
+    }
+
+    /**
+     * @param from start of the range (inclusive), in milliseconds since UTC epoch
+     * @param to   end of the range (inclusive), in milliseconds since UTC epoch
+     * @return buckets overlapping the range, oldest first
+     */
+    synchronized RollupSeries range(final long from, final long to) {
+        if (newest == EMPTY) {
+            return RollupSeries.empty(width);
+        }
+        long first = Math.max(Math.floorDiv(from, width), newest - ids.length + 1);
+        long last = Math.min(Math.floorDiv(to, width), newest);
+        int length = 0;
+        for (long id = first; id <= last; id++) {
+            if (ids[(int) Math.floorMod(id, (long) ids.length)] == id) {
+                length++;
+            }
+        }
+
+        RollupSeries result = new RollupSeries(width, new long[length], new double[length], new double[length],
+            new double[length], new int[length], new long[length]);
+        int j = 0;
+        for (long id = first; id <= last; id++) {
+            int slot = (int) Math.floorMod(id, (long) ids.length);
+            if (ids[slot] == id) {
+                result.getTimes()[j] = id * width;
+                result.getMin()[j] = min[slot];
+                result.getMax()[j] = max[slot];
+                result.getMean()[j] = sum[slot] / count[slot];
+                result.getCount()[j] = count[slot];
+                result.getObservations()[j] = observations[slot];
+                j++;
+            }
+        }
+        return result;
+    }
+}
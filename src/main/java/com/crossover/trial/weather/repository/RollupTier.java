@@ -0,0 +1,57 @@
+package com.crossover.trial.weather.repository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolutions readings are aggregated in.
+ */
+public enum RollupTier {
+
+    /**
+     * One minute buckets.
+     */
+    MINUTE(TimeUnit.MINUTES.toMillis(1)),
+
+    /**
+     * One hour buckets.
+     */
+    HOUR(TimeUnit.HOURS.toMillis(1)),
+
+    /**
+     * One day buckets.
+     */
+    DAY(TimeUnit.DAYS.toMillis(1));
+
+    /**
+     * Width of a bucket, in milliseconds.
+     */
+    private final long width;
+
+    /**
+     * @param width width of a bucket, in milliseconds
+     */
+    RollupTier(final long width) {
+        this.width = width;
+    }
+
+    /**
+     * @return width of a bucket, in milliseconds
+     */
+    public long getWidth() {
+        return width;
+    }
+
+    /**
+     * @param resolution requested resolution, in milliseconds
+     * @return the coarsest tier not coarser than the resolution, or the finest tier
+     */
+    public static RollupTier forResolution(final long resolution) {
+        RollupTier result = MINUTE;
+        for (RollupTier tier : values()) {
+            if (tier.width <= resolution) {
+                result = tier;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.TimeSeries;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Readings of one airport and data point type: the newest ones in an open {@link ReadingBuffer} head, older ones
+ * in {@link CompressedBlock}s. Once the head is full, it is compressed into a new block.
+ * <p>
+ * Blocks beyond the maximum number or with all readings older than retention are dropped. Queries decompress
+ * only blocks overlapping the queried range.
+ */
+final class SeriesHistory {
+
+    /**
+     * The newest readings.
+     */
+    private final ReadingBuffer head;
+
+    /**
+     * Compressed older readings, oldest first.
+     */
+    private final Deque<CompressedBlock> blocks = new ArrayDeque<>();
+
+    /**
+     * Maximum number of compressed blocks.
+     */
+    private final int maxBlocks;
+
+    /**
+     * Creates empty history.
+     *
+     * @param blockSize number of readings per block
+     * @param maxBlocks maximum number of compressed blocks
+     */
+    SeriesHistory(final int blockSize, final int maxBlocks) {
+        this.head = new ReadingBuffer(blockSize);
+        this.maxBlocks = maxBlocks;
+    }
+
+    /**
+     * Adds reading, compressing the head if it is full.
+     *
+     * @param time       reading time, in milliseconds since UTC epoch
+     * @param dataPoint  reading
+     * @param expiration time before which blocks can be dropped, in milliseconds since UTC epoch
+     */
+    synchronized void add(final long time, final DataPoint dataPoint, final long expiration) {
+        if (head.isFull()) {
+            if (maxBlocks > 0) {
+                blocks.addLast(CompressedBlock.compress(head.range(Long.MIN_VALUE, Long.MAX_VALUE)));
+            }
+            head.clear();
+        }
+        head.add(time, dataPoint);
+
+        while (blocks.size() > maxBlocks || !blocks.isEmpty() && blocks.peekFirst().getMaxTime() < expiration) {
+            blocks.removeFirst();
+        }
+    }
+
+    /**
+     * @param from start of the range (inclusive), in milliseconds since UTC epoch
+     * @param to   end of the range (inclusive), in milliseconds since UTC epoch
+     * @return readings in the range, oldest first
+     */
+    TimeSeries range(final long from, final long to) {
+        List<CompressedBlock> overlapping = new ArrayList<>();
+        TimeSeries newest;
+        synchronized (this) {
+            for (CompressedBlock block : blocks) {
+                if (block.overlaps(from, to)) {
+                    overlapping.add(block);
+                }
+            }
+            newest = head.range(from, to);
+        }
+
+        // blocks are immutable, decompressed outside of the lock
+        List<TimeSeries> parts = new ArrayList<>(overlapping.size() + 1);
+        for (CompressedBlock block : overlapping) {
+            parts.add(block.decompress(from, to));
+        }
+        parts.add(newest);
+        return concat(parts);
+    }
+
+    /**
+     * @return approximate memory taken by compressed readings, in bytes
+     */
+    synchronized long compressedSizeInBytes() {
+        long result = 0;
+        for (CompressedBlock block : blocks) {
+            result += block.sizeInBytes();
+        }
+        return result;
+    }
+
+    /**
+     * @param parts series to concatenate
+     * @return concatenated series
+     */
+    private static TimeSeries concat(final List<TimeSeries> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int size = 0;
+        for (TimeSeries part : parts) {
+            size += part.size();
+        }
+        TimeSeries result = size == 0 ? TimeSeries.EMPTY : new TimeSeries(new long[size], new double[size],
+            new int[size], new int[size], new int[size], new int[size]);
+        int offset = 0;
+        for (TimeSeries part : parts) {
+            System.arraycopy(part.getTimes(), 0, result.getTimes(), offset, part.size());
+            System.arraycopy(part.getMean(), 0, result.getMean(), offset, part.size());
+            System.arraycopy(part.getFirst(), 0, result.getFirst(), offset, part.size());
+            System.arraycopy(part.getSecond(), 0, result.getSecond(), offset, part.size());
+            System.arraycopy(part.getThird(), 0, result.getThird(), offset, part.size());
+            System.arraycopy(part.getCount(), 0, result.getCount(), offset, part.size());
+            offset += part.size();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.domain.TimeSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent readings of every airport and data point type.
+ * <p>
+ * Each airport and type has a {@link SeriesHistory} allocated on the first reading: an uncompressed head of
+ * block size readings and up to (capacity - block size) / block size compressed blocks. Readings older than
+ * retention are not returned, blocks with all readings older than retention are dropped.
+ */
+@Component
+@Order(AirportDataListener.DEFAULT_ORDER)
+public class WeatherHistory implements AirportDataListener {
+
+    /**
+     * Histories of each type [type -> IATA code -> history].
+     */
+    private final Map<DataPointType, Map<String, SeriesHistory>> histories = new EnumMap<>(DataPointType.class);
+
+    /**
+     * Number of readings per compressed block.
+     */
+    private final int blockSize;
+
+    /**
+     * Maximum number of compressed blocks per airport and type.
+     */
+    private final int maxBlocks;
+
+    /**
+     * Maximum age of returned readings, in milliseconds.
+     */
+    private final long retention;
+
+    /**
+     * Creates empty history.
+     *
+     * @param capacity         approximate maximum number of readings kept per airport and type
+     * @param blockSize        number of readings per compressed block
+     * @param retentionSeconds maximum age of returned readings, in seconds
+     */
+    @Inject
+    public WeatherHistory(@Value("${weather.history.capacity:2016}") final int capacity,
+                          @Value("${weather.history.block-size:120}") final int blockSize,
+                          @Value("${weather.history.retention:604800}") final long retentionSeconds) {
+        this.blockSize = blockSize;
+        this.maxBlocks = Math.max(0, (capacity - 1) / blockSize);
+        this.retention = retentionSeconds * 1000;
+        for (DataPointType pointType : DataPointType.values()) {
+            histories.put(pointType, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void airportSaved(final AirportData airportData) {
+        // history of a replaced airport is kept
+    }
+
+    @Override
+    public void airportDeleted(final AirportData airportData) {
+        for (Map<String, SeriesHistory> historiesOfType : histories.values()) {
+            historiesOfType.remove(airportData.getIata());
+        }
+    }
+
+    @Override
+    public void weatherUpdated(final AirportData airportData, final DataPointType pointType,
+                               final DataPoint dataPoint) {
+        long time = airportData.getAtmosphericInformation().getLastUpdateTime();
+        histories.get(pointType).computeIfAbsent(airportData.getIata(), iata -> new SeriesHistory(blockSize, maxBlocks))
+            .add(time, dataPoint, time - retention);
+    }
+
+    /**
+     * @param iata      IATA code of the airport
+     * @param pointType the data point type
+     * @param from      start of the range (inclusive), in milliseconds since UTC epoch
+     * @param to        end of the range (inclusive), in milliseconds since UTC epoch
+     * @return readings in the range and within retention, oldest first
+     */
+    public TimeSeries find(final String iata, final DataPointType pointType, final long from, final long to) {
+        SeriesHistory history = histories.get(pointType).get(iata);
+        if (history == null) {
+            return TimeSeries.EMPTY;
+        }
+        return history.range(Math.max(from, System.currentTimeMillis() - retention), to);
+    }
+}
@@ -0,0 +1,103 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.domain.RollupSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Readings of every airport and data point type aggregated per minute, hour and day (see {@link RollupTier}),
+ * so queries over long ranges read a bucket per resolution step instead of every reading.
+ * <p>
+ * Buffers of all tiers are allocated on the first reading of an airport and type, each bucket takes 44 bytes.
+ */
+@Component
+@Order(AirportDataListener.DEFAULT_ORDER)
+public class WeatherRollups implements AirportDataListener {
+
+    /**
+     * Buffers of each type [type -> IATA code -> buffer per tier].
+     */
+    private final Map<DataPointType, Map<String, RollupBuffer[]>> buffers = new EnumMap<>(DataPointType.class);
+
+    /**
+     * Number of buckets kept per tier.
+     */
+    private final int[] capacities;
+
+    /**
+     * Creates empty rollups.
+     *
+     * @param minutes number of minute buckets kept
+     * @param hours   number of hour buckets kept
+     * @param days    number of day buckets kept
+     */
+    @Inject
+    public WeatherRollups(@Value("${weather.rollup.minutes:360}") final int minutes,
+                          @Value("${weather.rollup.hours:720}") final int hours,
+                          @Value("${weather.rollup.days:365}") final int days) {
+        this.capacities = new int[]{minutes, hours, days};
+        for (DataPointType pointType : DataPointType.values()) {
+            buffers.put(pointType, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void airportSaved(final AirportData airportData) {
+        // rollups of a replaced airport are kept
+    }
+
+    @Override
+    public void airportDeleted(final AirportData airportData) {
+        for (Map<String, RollupBuffer[]> buffersOfType : buffers.values()) {
+            buffersOfType.remove(airportData.getIata());
+        }
+    }
+
+    @Override
+    public void weatherUpdated(final AirportData airportData, final DataPointType pointType,
+                               final DataPoint dataPoint) {
+        long time = airportData.getAtmosphericInformation().getLastUpdateTime();
+        for (RollupBuffer buffer : buffers.get(pointType).computeIfAbsent(airportData.getIata(), iata -> create())) {
+            buffer.add(time, dataPoint);
+        }
+    }
+
+    /**
+     * @param iata       IATA code of the airport
+     * @param pointType  the data point type
+     * @param from       start of the range (inclusive), in milliseconds since UTC epoch
+     * @param to         end of the range (inclusive), in milliseconds since UTC epoch
+     * @param resolution requested resolution, in milliseconds
+     * @return buckets of the coarsest tier not coarser than the requested resolution, oldest first
+     */
+    public RollupSeries find(final String iata, final DataPointType pointType, final long from, final long to,
+                             final long resolution) {
+        RollupTier tier = RollupTier.forResolution(resolution);
+        RollupBuffer[] tiers = buffers.get(pointType).get(iata);
+        if (tiers == null) {
+            return RollupSeries.empty(tier.getWidth());
+        }
+        return tiers[tier.ordinal()].range(from, to);
+    }
+
+    /**
+     * @return empty buffer of every tier
+     */
+    private RollupBuffer[] create() {
+        RollupTier[] tiers = RollupTier.values();
+        RollupBuffer[] result = new RollupBuffer[tiers.length];
+        for (RollupTier tier : tiers) {
+            result[tier.ordinal()] = new RollupBuffer(tier.getWidth(), capacities[tier.ordinal()]);
+        }
+        return result;
+    }
+}
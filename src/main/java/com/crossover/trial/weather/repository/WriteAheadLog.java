@@ -0,0 +1,707 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of airport and weather modifications, so updates between snapshots survive a restart.
+ * <p>
+ * Modifications are logged as listener events, i.e. after they were applied. Request threads append records
+ * to an in-memory batch and wait in {@link #sync()}; a single writer thread writes everything appended while
+ * it was busy with the previous batch and forces it to disk according to {@link FsyncPolicy}, so concurrent
+ * requests share one {@link FileChannel#force(boolean)} (group commit). Record layout (big-endian):
+ * <pre>
+ * int    length     length of payload
+ * int    crc        CRC32 of sequence, type and payload
+ * long   sequence   increasing record number
+ * byte   type       {@link #AIRPORT_SAVED}, {@link #AIRPORT_DELETED} or {@link #WEATHER_UPDATED}
+ * ...    payload    IATA code (short length, UTF-8 bytes), then
+ *                   latitude and longitude (doubles) of a saved airport, or
+ *                   point type ordinal (byte), data point as in
+ *                   {@link com.crossover.trial.weather.util.WeatherUpdateCodec} and update time (long)
+ * </pre>
+ * The log is split into segments named by the sequence of their first record. Snapshots start a new segment
+ * before copying the state and delete the older segments once written, see {@link #rotate()}. Modifications
+ * are applied and logged under {@link #modificationLock()}, so no modification is in the copy and in the new
+ * segment at the same time, which would apply it twice on restart. Replay stops at the first incomplete or
+ * corrupted record of a segment (torn write) and truncates the segment there. Logging is disabled if no
+ * directory is configured.
+ */
+@Component
+@Order(AirportDataListener.DEFAULT_ORDER)
+public class WriteAheadLog implements AirportDataListener {
+
+    /**
+     * Record type of a saved airport.
+     */
+    private static final byte AIRPORT_SAVED = 1;
+
+    /**
+     * Record type of a deleted airport.
+     */
+    private static final byte AIRPORT_DELETED = 2;
+
+    /**
+     * Record type of an updated data point.
+     */
+    private static final byte WEATHER_UPDATED = 3;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    /**
+     * Size of record header: length, crc, sequence and type.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 1;
+
+    /**
+     * Size of encoded data point.
+     */
+    private static final int DATA_POINT_SIZE = 8 + 4 * 4;
+
+    /**
+     * Prefix of segment file names.
+     */
+    private static final String SEGMENT_PREFIX = "wal-";
+
+    /**
+     * Suffix of segment file names.
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Point types by ordinal.
+     */
+    private static final DataPointType[] POINT_TYPES = DataPointType.values();
+
+    /**
+     * When data is forced to disk.
+     */
+    public enum FsyncPolicy {
+
+        /**
+         * Every batch is forced before appending threads are released, nothing acknowledged is lost.
+         */
+        BATCH,
+
+        /**
+         * Batches are forced at most once per interval, a crash loses at most the last interval.
+         */
+        INTERVAL,
+
+        /**
+         * Batches are only written, operating system decides when to flush them.
+         */
+        OS
+    }
+
+    /**
+     * Applies replayed records.
+     */
+    public interface Replay {
+
+        /**
+         * @param iata      IATA code
+         * @param latitude  latitude in degrees
+         * @param longitude longitude in degrees
+         */
+        void airportSaved(String iata, double latitude, double longitude);
+
+        /**
+         * @param iata IATA code
+         */
+        void airportDeleted(String iata);
+
+        /**
+         * @param iata      IATA code
+         * @param pointType type of the data point
+         * @param dataPoint data point
+         * @param time      time of the update, in milliseconds since UTC epoch
+         */
+        void weatherUpdated(String iata, DataPointType pointType, DataPoint dataPoint, long time);
+    }
+
+    /**
+     * Directory of segments, <code>null</code> if logging is disabled.
+     */
+    private final Path directory;
+
+    /**
+     * When data is forced to disk.
+     */
+    private final FsyncPolicy fsyncPolicy;
+
+    /**
+     * Maximum time between forcing written data with {@link FsyncPolicy#INTERVAL}, in milliseconds.
+     */
+    private final long fsyncInterval;
+
+    /**
+     * Guards appended records and sequences; the writer thread waits on it for appended records.
+     */
+    private final Object appendLock = new Object();
+
+    /**
+     * Guards commit state; threads in {@link #sync()} wait on it for their records to be committed.
+     */
+    private final Object commitLock = new Object();
+
+    /**
+     * Guards the segment file; taken before {@link #appendLock} so batches are written in sequence order.
+     */
+    private final Object fileLock = new Object();
+
+    /**
+     * Shared by modifications between applying and logging them, exclusive for rotation and snapshot copy.
+     */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    /**
+     * Sequence of the last record appended by the current thread.
+     */
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Records appended since the last batch, guarded by {@link #appendLock}.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Buffer to swap with {@link #pending}, guarded by {@link #fileLock}.
+     */
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Sequence of the last appended record, guarded by {@link #appendLock}.
+     */
+    private long sequence;
+
+    /**
+     * Sequence of the last written (and forced, if required by policy) record, guarded by {@link #commitLock}.
+     */
+    private long committed;
+
+    /**
+     * <code>true</code> if writing failed, events are not logged after; updated under {@link #commitLock}.
+     */
+    private volatile boolean failed;
+
+    /**
+     * <code>true</code> once closed, guarded by {@link #appendLock}.
+     */
+    private boolean closed;
+
+    /**
+     * <code>true</code> after recovery until closed, events are not logged before and after.
+     */
+    private volatile boolean open;
+
+    /**
+     * Current segment, guarded by {@link #fileLock}.
+     */
+    private FileChannel segment;
+
+    /**
+     * <code>true</code> if the current segment has data not forced yet, guarded by {@link #fileLock}.
+     */
+    private boolean unforced;
+
+    /**
+     * Time of the last force, in milliseconds, guarded by {@link #fileLock}.
+     */
+    private long lastForce;
+
+    /**
+     * Writes batches.
+     */
+    private Thread writer;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param directory     directory of segments, empty to disable logging
+     * @param fsyncPolicy   when data is forced to disk
+     * @param fsyncInterval maximum time between forcing written data with {@link FsyncPolicy#INTERVAL},
+     *                      in milliseconds
+     */
+    @Inject
+    public WriteAheadLog(@Value("${weather.wal.directory:}") final String directory,
+                         @Value("${weather.wal.fsync:BATCH}") final FsyncPolicy fsyncPolicy,
+                         @Value("${weather.wal.fsync-interval:100}") final long fsyncInterval) {
+        this.directory = directory.isEmpty() ? null : Paths.get(directory);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    /**
+     * @return <code>true</code> if a directory of segments is configured
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Replays all segments and starts logging into a new one. Events before recovery are not logged.
+     *
+     * @param replay applies replayed records
+     * @throws IOException if the directory can not be read or the new segment can not be created
+     */
+    public void recover(final Replay replay) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long last = 0;
+        int records = 0;
+        for (Path path : segments()) {
+            long[] result = replay(path, replay, last);
+            last = result[0];
+            records += result[1];
+        }
+        synchronized (fileLock) {
+            synchronized (appendLock) {
+                sequence = last;
+            }
+            synchronized (commitLock) {
+                committed = last;
+            }
+            segment = openSegment(last + 1);
+            lastForce = System.currentTimeMillis();
+        }
+        writer = new Thread(this::write, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        open = true;
+        LOG.info("Replayed {} records from {}", records, directory);
+    }
+
+    /**
+     * Waits until all records appended by the current thread are committed according to {@link FsyncPolicy}.
+     * Once writing failed, modifications are no longer logged and every sync fails.
+     *
+     * @return <code>false</code> if the records could not be written or the wait was interrupted
+     */
+    public boolean sync() {
+        if (!open) {
+            return true;
+        }
+        if (failed) {
+            return false;
+        }
+        long appended = lastAppended.get()[0];
+        synchronized (commitLock) {
+            try {
+                while (committed < appended && !failed) {
+                    commitLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return committed >= appended;
+        }
+    }
+
+    /**
+     * @return lock to hold from applying a modification until it is logged
+     */
+    public Lock modificationLock() {
+        return checkpointLock.readLock();
+    }
+
+    /**
+     * @return lock to hold from {@link #rotate()} until the state is copied into a snapshot
+     */
+    public Lock checkpointLock() {
+        return checkpointLock.writeLock();
+    }
+
+    /**
+     * Starts a new segment; records of the previous ones are written and forced first. Call before copying
+     * state into a snapshot, both under {@link #checkpointLock()}: since events are logged after they were
+     * applied, every record of the previous segments is in the copy and no record of the new segment is,
+     * and once the snapshot is written the previous segments can be deleted by {@link #deleteBefore(long)}.
+     *
+     * @return sequence of the first record of the new segment, 0 if logging is disabled
+     * @throws IOException if the previous segment can not be written or the new one can not be created
+     */
+    public long rotate() throws IOException {
+        if (!open) {
+            return 0;
+        }
+        synchronized (fileLock) {
+            long boundary = writeBatch(true);
+            segment.close();
+            segment = openSegment(boundary + 1);
+            return boundary + 1;
+        }
+    }
+
+    /**
+     * Deletes segments with all records before the given sequence.
+     *
+     * @param boundary sequence returned by {@link #rotate()}
+     * @throws IOException if a segment can not be deleted
+     */
+    public void deleteBefore(final long boundary) throws IOException {
+        if (!open) {
+            return;
+        }
+        for (Path path : segments()) {
+            if (firstSequence(path) < boundary) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Writes and forces appended records and stops logging.
+     */
+    @PreDestroy
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        synchronized (appendLock) {
+            closed = true;
+            appendLock.notify();
+        }
+        try {
+            writer.join();
+            synchronized (fileLock) {
+                segment.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOG.error("Failed to close {}", directory, e);
+        }
+    }
+
+    @Override
+    public void airportSaved(final AirportData airportData) {
+        if (open && !failed) {
+            byte[] iata = airportData.getIata().getBytes(StandardCharsets.UTF_8);
+            synchronized (appendLock) {
+                int start = begin(AIRPORT_SAVED, iata, 8 + 8);
+                pending.putDouble(airportData.getLatitude());
+                pending.putDouble(airportData.getLongitude());
+                end(start);
+            }
+        }
+    }
+
+    @Override
+    public void airportDeleted(final AirportData airportData) {
+        if (open && !failed) {
+            byte[] iata = airportData.getIata().getBytes(StandardCharsets.UTF_8);
+            synchronized (appendLock) {
+                end(begin(AIRPORT_DELETED, iata, 0));
+            }
+        }
+    }
+
+    @Override
+    public void weatherUpdated(final AirportData airportData, final DataPointType pointType,
+                               final DataPoint dataPoint) {
+        if (open && !failed) {
+            byte[] iata = airportData.getIata().getBytes(StandardCharsets.UTF_8);
+            long time = airportData.getAtmosphericInformation().getLastUpdateTime();
+            synchronized (appendLock) {
+                int start = begin(WEATHER_UPDATED, iata, 1 + DATA_POINT_SIZE + 8);
+                pending.put((byte) pointType.ordinal());
+                pending.putDouble(dataPoint.getMean());
+                pending.putInt(dataPoint.getFirst());
+                pending.putInt(dataPoint.getSecond());
+                pending.putInt(dataPoint.getThird());
+                pending.putInt(dataPoint.getCount());
+                pending.putLong(time);
+                end(start);
+            }
+        }
+    }
+
+    /**
+     * Starts a record in {@link #pending}, must be called under {@link #appendLock}.
+     *
+     * @param type      record type
+     * @param iata      UTF-8 bytes of IATA code
+     * @param remaining size of the payload after IATA code
+     * @return position of the record
+     */
+    private int begin(final byte type, final byte[] iata, final int remaining) {
+        int length = 2 + iata.length + remaining;
+        if (pending.remaining() < HEADER_SIZE + length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER_SIZE
+                + length));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.putInt(length);
+        pending.putInt(0);
+        pending.putLong(++sequence);
+        pending.put(type);
+        pending.putShort((short) iata.length);
+        pending.put(iata);
+        return start;
+    }
+
+    /**
+     * Completes a record in {@link #pending}, must be called under {@link #appendLock}.
+     *
+     * @param start position of the record
+     */
+    private void end(final int start) {
+        pending.putInt(start + 4, crc(pending.array(), start + 8, pending.position()));
+        lastAppended.get()[0] = sequence;
+        appendLock.notify();
+    }
+
+    /**
+     * Body of the writer thread: writes batches until closed.
+     */
+    private void write() {
+        while (true) {
+            synchronized (appendLock) {
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        appendLock.wait(fsyncPolicy == FsyncPolicy.INTERVAL ? fsyncInterval : 0);
+                        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (closed && pending.position() == 0) {
+                    break;
+                }
+            }
+            try {
+                synchronized (fileLock) {
+                    writeBatch(false);
+                }
+            } catch (IOException e) {
+                LOG.error("Failed to write {}, updates are no longer durable", directory, e);
+                synchronized (commitLock) {
+                    failed = true;
+                    commitLock.notifyAll();
+                }
+                return;
+            }
+        }
+        try {
+            synchronized (fileLock) {
+                writeBatch(true);
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to write {}", directory, e);
+        }
+    }
+
+    /**
+     * Writes records appended so far to the current segment, forces it if required and releases waiting
+     * threads. Must be called under {@link #fileLock}.
+     *
+     * @param force <code>true</code> to force regardless of the policy
+     * @return sequence of the last written record
+     * @throws IOException if writing fails
+     */
+    private long writeBatch(final boolean force) throws IOException {
+        ByteBuffer batch;
+        long last;
+        synchronized (appendLock) {
+            batch = pending;
+            pending = spare;
+            last = sequence;
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            segment.write(batch);
+        }
+        spare = batch;
+        spare.clear();
+        unforced |= batch.limit() > 0;
+
+        long now = System.currentTimeMillis();
+        if (unforced && (force || fsyncPolicy == FsyncPolicy.BATCH
+            || fsyncPolicy == FsyncPolicy.INTERVAL && now - lastForce >= fsyncInterval)) {
+            segment.force(false);
+            unforced = false;
+            lastForce = now;
+        }
+        synchronized (commitLock) {
+            committed = Math.max(committed, last);
+            commitLock.notifyAll();
+        }
+        return last;
+    }
+
+    /**
+     * Replays records of a segment, truncating it at the first incomplete or corrupted record.
+     *
+     * @param path     segment
+     * @param replay   applies replayed records
+     * @param previous sequence of the last replayed record
+     * @return sequence of the last replayed record and number of replayed records
+     * @throws IOException if the segment can not be read
+     */
+    private static long[] replay(final Path path, final Replay replay, final long previous) throws IOException {
+        long last = previous;
+        int records = 0;
+        int valid;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            valid = 0;
+            while (in.remaining() >= HEADER_SIZE) {
+                int length = in.getInt(valid);
+                int crc = in.getInt(valid + 4);
+                long recordSequence = in.getLong(valid + 8);
+                if (length < 0 || length > in.remaining() - HEADER_SIZE
+                    || crc(in, valid + 8, valid + HEADER_SIZE + length) != crc || recordSequence <= last) {
+                    break;
+                }
+                in.position(valid + HEADER_SIZE - 1);
+                try {
+                    apply(in, replay);
+                } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                    break;
+                }
+                valid += HEADER_SIZE + length;
+                in.position(valid);
+                last = recordSequence;
+                records++;
+            }
+            if (valid < channel.size()) {
+                LOG.warn("Truncating torn tail of {} at {} of {} bytes", path, valid, channel.size());
+                channel.truncate(valid);
+            }
+        }
+        return new long[]{last, records};
+    }
+
+    /**
+     * @param in     record after its sequence
+     * @param replay applies the record
+     */
+    private static void apply(final ByteBuffer in, final Replay replay) {
+        byte type = in.get();
+        byte[] iataBytes = new byte[in.getShort() & 0xffff];
+        in.get(iataBytes);
+        String iata = new String(iataBytes, StandardCharsets.UTF_8);
+        switch (type) {
+            case AIRPORT_SAVED:
+                replay.airportSaved(iata, in.getDouble(), in.getDouble());
+                break;
+            case AIRPORT_DELETED:
+                replay.airportDeleted(iata);
+                break;
+            case WEATHER_UPDATED:
+                DataPointType pointType = POINT_TYPES[in.get()];
+                DataPoint dataPoint = new DataPoint.Builder()
+                    .withMean(in.getDouble())
+                    .withFirst(in.getInt())
+                    .withMedian(in.getInt())
+                    .withLast(in.getInt())
+                    .withCount(in.getInt())
+                    .build();
+                replay.weatherUpdated(iata, pointType, dataPoint, in.getLong());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + type);
+        }
+    }
+
+    /**
+     * @return segments ordered by their first sequence
+     * @throws IOException if the directory can not be read
+     */
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory,
+            SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : paths) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments, (a, b) -> Long.compare(firstSequence(a), firstSequence(b)));
+        return segments;
+    }
+
+    /**
+     * @param first sequence of the first record
+     * @return new empty segment opened for appending
+     * @throws IOException if the segment can not be created
+     */
+    private FileChannel openSegment(final long first) throws IOException {
+        return FileChannel.open(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, first, SEGMENT_SUFFIX)),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @param path segment
+     * @return sequence of the first record of the segment
+     */
+    private static long firstSequence(final Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @param bytes bytes
+     * @param from  start of checked bytes (inclusive)
+     * @param to    end of checked bytes (exclusive)
+     * @return CRC32 of the bytes, truncated to int
+     */
+    private static int crc(final byte[] bytes, final int from, final int to) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, from, to - from);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @param buffer buffer
+     * @param from   start of checked bytes (inclusive)
+     * @param to     end of checked bytes (exclusive)
+     * @return CRC32 of the bytes, truncated to int
+     */
+    private static int crc(final ByteBuffer buffer, final int from, final int to) {
+        ByteBuffer checked = buffer.duplicate();
+        checked.limit(to).position(from);
+        CRC32 crc = new CRC32();
+        crc.update(checked);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,79 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.repository.AirportDataRepository;
+import com.crossover.trial.weather.util.AirportFileParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads airports from an <code>airports.dat</code> file on startup, instead of adding them one by one through
+ * the collector endpoint.
+ * <p>
+ * The file is memory mapped and parsed in parallel by {@link AirportFileParser}; parsed airports are saved at
+ * once, so derived structures are built in bulk. Runs before {@link SnapshotService} restores airports, which
+ * then replace the loaded ones. Bootstrap is disabled if no file is configured.
+ */
+@Service
+public class AirportBootstrapService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AirportBootstrapService.class);
+
+    /**
+     * Provides access to Airport Data Repository.
+     */
+    @Inject
+    private AirportDataRepository airportDataRepository;
+
+    /**
+     * Airports file, <code>null</code> if bootstrap is disabled.
+     */
+    private final Path path;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param path airports file, empty to disable bootstrap
+     */
+    @Inject
+    public AirportBootstrapService(@Value("${weather.bootstrap.airports:}") final String path) {
+        this.path = path.isEmpty() ? null : Paths.get(path);
+    }
+
+    /**
+     * Loads airports from the file.
+     */
+    @PostConstruct
+    public void load() {
+        if (path == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<AirportData> airports;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            airports = AirportFileParser.parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                Runtime.getRuntime().availableProcessors());
+        } catch (IOException e) {
+            LOG.warn("Failed to load airports from {}", path, e);
+            return;
+        }
+        airportDataRepository.save(airports);
+        LOG.info("Loaded {} airports from {} in {} ms", airports.size(), path,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,187 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.DataPointType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Facade of flight recorder events of the service, see {@link RadiusQueryEvent} and {@link WeatherUpdateEvent}.
+ * <p>
+ * Whether the JVM provides <code>jdk.jfr</code> API (JDK 8u262+ or 11+) is checked once; without it every
+ * method does nothing and recordings can't be started. Event classes are referenced only by
+ * {@link JfrFlightEvents}, so the query and ingestion paths do not depend on the API.
+ * <p>
+ * Events are bound to the current thread between their start and finish, so components handling parts of
+ * a request can add to the event without passing it around.
+ */
+public final class FlightEvents {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FlightEvents.class);
+
+    /**
+     * Emits events, does nothing if flight recorder is not available.
+     */
+    private static final Sink SINK = createSink();
+
+    /**
+     * Hide utility class constructor.
+     */
+    private FlightEvents() {
+    }
+
+    /**
+     * @return <code>true</code> if flight recorder is available
+     */
+    public static boolean isAvailable() {
+        return SINK instanceof JfrFlightEvents;
+    }
+
+    /**
+     * Starts radius query event of the current thread; until {@link #queryScanned(int)} the result is
+     * considered served from cache.
+     *
+     * @param iata   IATA code of the center airport
+     * @param radius radius in KM
+     */
+    public static void queryStarted(final String iata, final double radius) {
+        SINK.queryStarted(iata, radius);
+    }
+
+    /**
+     * Reports result of the radius query of the current thread being calculated rather than served from cache.
+     *
+     * @param candidates number of airports whose distance was calculated
+     */
+    public static void queryScanned(final int candidates) {
+        SINK.queryScanned(candidates);
+    }
+
+    /**
+     * Commits radius query event of the current thread.
+     *
+     * @param results number of returned atmospheric information entries, -1 if the query failed
+     */
+    public static void queryFinished(final int results) {
+        SINK.queryFinished(results);
+    }
+
+    /**
+     * Starts weather update event of the current thread, so its duration covers application of the update.
+     */
+    public static void updateStarted() {
+        SINK.updateStarted();
+    }
+
+    /**
+     * Commits weather update event of the current thread; updates rejected before being started are
+     * committed without duration.
+     *
+     * @param iata      IATA code of the airport
+     * @param pointType data point type, <code>null</code> if not recognized
+     * @param status    outcome of the update
+     */
+    public static void updateFinished(final String iata, final DataPointType pointType, final UpdateStatus status) {
+        SINK.updateFinished(iata, pointType, status);
+    }
+
+    /**
+     * Starts a recording with JVM profiling settings and events of the service enabled.
+     *
+     * @param duration duration after which the recording stops by itself
+     * @param maxSize  maximum size of the recording in bytes, older events are dropped beyond it
+     * @return started recording
+     * @throws IOException if flight recorder is not available or its settings could not be read
+     */
+    public static Recording startRecording(final Duration duration, final long maxSize) throws IOException {
+        return SINK.startRecording(duration, maxSize);
+    }
+
+    /**
+     * @return {@link JfrFlightEvents} if flight recorder API is available, sink doing nothing otherwise
+     */
+    private static Sink createSink() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return new JfrFlightEvents();
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOG.info("Flight recorder is not available, events are disabled");
+            return new Sink() {
+            };
+        }
+    }
+
+    /**
+     * A started flight recording.
+     */
+    public interface Recording {
+
+        /**
+         * Stops the recording, if still running, and writes it to a temporary file, which the caller must delete.
+         *
+         * @return file of the recording
+         * @throws IOException if the recording could not be written
+         */
+        Path stop() throws IOException;
+
+        /**
+         * Discards the recording.
+         */
+        void close();
+    }
+
+    /**
+     * Receiver of the facade calls, does nothing by default.
+     */
+    interface Sink {
+
+        /**
+         * @param iata   IATA code of the center airport
+         * @param radius radius in KM
+         */
+        default void queryStarted(final String iata, final double radius) {
+        }
+
+        /**
+         * @param candidates number of airports whose distance was calculated
+         */
+        default void queryScanned(final int candidates) {
+        }
+
+        /**
+         * @param results number of returned atmospheric information entries
+         */
+        default void queryFinished(final int results) {
+        }
+
+        /**
+         * Starts weather update event.
+         */
+        default void updateStarted() {
+        }
+
+        /**
+         * @param iata      IATA code of the airport
+         * @param pointType data point type
+         * @param status    outcome of the update
+         */
+        default void updateFinished(final String iata, final DataPointType pointType, final UpdateStatus status) {
+        }
+
+        /**
+         * @param duration duration after which the recording stops by itself
+         * @param maxSize  maximum size of the recording in bytes
+         * @return started recording
+         * @throws IOException if the recording can't be started
+         */
+        default Recording startRecording(final Duration duration, final long maxSize) throws IOException {
+            throw new IOException("Flight recorder is not available");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.crossover.trial.weather.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Runs on-demand flight recordings with JVM profiling settings and {@link FlightEvents} enabled.
+ * <p>
+ * At most one recording runs at a time. Recording is bounded by configured size and duration; once the
+ * duration elapses the recording stops by itself, but is kept until {@link #stop()} collects it.
+ */
+@Service
+public class FlightRecorderService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    /**
+     * Maximum duration of a recording.
+     */
+    private final Duration maxDuration;
+
+    /**
+     * Maximum size of a recording in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * Current recording, <code>null</code> if none, guarded by this.
+     */
+    private FlightEvents.Recording recording;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param maxDurationSeconds maximum duration of a recording, in seconds
+     * @param maxSize            maximum size of a recording in bytes, older events are dropped beyond it
+     */
+    @Inject
+    public FlightRecorderService(@Value("${weather.recording.max-duration:600}") final long maxDurationSeconds,
+                                 @Value("${weather.recording.max-size:104857600}") final long maxSize) {
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param durationSeconds duration of the recording in seconds, limited by configured maximum
+     * @return <code>false</code> if a recording is already in progress or not collected yet
+     * @throws IOException if flight recorder is not available or its settings could not be read
+     */
+    public synchronized boolean start(final long durationSeconds) throws IOException {
+        if (recording != null) {
+            return false;
+        }
+        Duration duration = Duration.ofSeconds(durationSeconds);
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            duration = maxDuration;
+        }
+        recording = FlightEvents.startRecording(duration, maxSize);
+        LOG.info("Started flight recording for {}", duration);
+        return true;
+    }
+
+    /**
+     * Stops the current recording and writes it to a temporary file, which the caller must delete.
+     *
+     * @return file of the recording, <code>null</code> if no recording was started
+     * @throws IOException if the recording could not be written
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        try {
+            return recording.stop();
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * Discards recording in progress on shutdown.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * @param file file to delete, may be <code>null</code>
+     */
+    public static void deleteQuietly(final Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warn("Could not delete {}", file, e);
+            }
+        }
+    }
+}
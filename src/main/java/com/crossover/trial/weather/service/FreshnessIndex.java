@@ -0,0 +1,135 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.repository.AirportDataListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Airports with atmospheric information, ordered by last update time.
+ * <p>
+ * Allows counting recently updated airports without scanning all of them: airports updated before
+ * the requested time are removed from the head of the index, so each update is removed at most once
+ * and {@link #countUpdatedSince(long)} is O(1) amortized. Time argument is expected not to decrease
+ * between calls (e.g. "last day" relative to current time).
+ */
+@Component
+@Order(AirportDataListener.DEFAULT_ORDER)
+public class FreshnessIndex implements AirportDataListener {
+
+    /**
+     * Entries ordered by time.
+     */
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(
+        Comparator.comparingLong((Entry entry) -> entry.time).thenComparing(entry -> entry.iata));
+
+    /**
+     * Current entry of each airport [IATA code -> entry].
+     */
+    private final Map<String, Entry> entryByIata = new ConcurrentHashMap<>();
+
+    /**
+     * Number of entries, maintained separately because concurrent set size is O(n).
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public void airportSaved(final AirportData airportData) {
+        // saved airport replaces previous one together with its atmospheric information
+        remove(airportData.getIata());
+    }
+
+    @Override
+    public void airportDeleted(final AirportData airportData) {
+        remove(airportData.getIata());
+    }
+
+    @Override
+    public void weatherUpdated(final AirportData airportData, final DataPointType pointType,
+                               final DataPoint dataPoint) {
+        String iata = airportData.getIata();
+        long time = airportData.getAtmosphericInformation().getLastUpdateTime();
+        entryByIata.compute(iata, (key, previous) -> {
+            if (previous != null && entries.remove(previous)) {
+                size.decrementAndGet();
+            }
+            Entry entry = new Entry(iata, time);
+            entries.add(entry);
+            size.incrementAndGet();
+            return entry;
+        });
+    }
+
+    /**
+     * @param time time in milliseconds since UTC epoch
+     * @return number of airports with atmospheric information updated after given time
+     */
+    public int countUpdatedSince(final long time) {
+        for (Entry oldest = first(); oldest != null && oldest.time <= time; oldest = first()) {
+            if (entries.remove(oldest)) {
+                size.decrementAndGet();
+            }
+            entryByIata.remove(oldest.iata, oldest);
+        }
+        return size.get();
+    }
+
+    /**
+     * Removes airport from the index.
+     *
+     * @param iata IATA code of the airport
+     */
+    private void remove(final String iata) {
+        entryByIata.computeIfPresent(iata, (key, previous) -> {
+            if (entries.remove(previous)) {
+                size.decrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return the oldest entry or <code>null</code>
+     */
+    private Entry first() {
+        Iterator<Entry> iterator = entries.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Last update of an airport.
+     */
+    private static final class Entry {
+
+        /**
+         * IATA code of the airport.
+         */
+        private final String iata;
+
+        /**
+         * Update time in milliseconds since UTC epoch.
+         */
+        private final long time;
+
+        /**
+         * Initializing constructor.
+         *
+         * @param iata IATA code of the airport
+         * @param time update time in milliseconds since UTC epoch
+         */
+        private Entry(final String iata, final long time) {
+            this.iata = iata;
+            this.time = time;
+        }
+    }
+}
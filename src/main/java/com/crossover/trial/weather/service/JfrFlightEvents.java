@@ -0,0 +1,139 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.DataPointType;
+import jdk.jfr.Configuration;
+import jdk.jfr.EventType;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Flight recorder backed {@link FlightEvents}, loaded only if <code>jdk.jfr</code> API is available.
+ * Events are allocated only while enabled in a running recording.
+ */
+final class JfrFlightEvents implements FlightEvents.Sink {
+
+    /**
+     * Name of predefined JFR settings used for recordings.
+     */
+    private static final String SETTINGS = "profile";
+
+    /**
+     * Type of {@link RadiusQueryEvent}, checked before allocating an event.
+     */
+    private static final EventType QUERY_TYPE = EventType.getEventType(RadiusQueryEvent.class);
+
+    /**
+     * Type of {@link WeatherUpdateEvent}, checked before allocating an event.
+     */
+    private static final EventType UPDATE_TYPE = EventType.getEventType(WeatherUpdateEvent.class);
+
+    /**
+     * Radius query event of the current thread, <code>null</code> if none was started or the event is disabled.
+     */
+    private static final ThreadLocal<RadiusQueryEvent> QUERY = new ThreadLocal<>();
+
+    /**
+     * Weather update event of the current thread, <code>null</code> if none was started or the event is disabled.
+     */
+    private static final ThreadLocal<WeatherUpdateEvent> UPDATE = new ThreadLocal<>();
+
+    @Override
+    public void queryStarted(final String iata, final double radius) {
+        if (QUERY_TYPE.isEnabled()) {
+            RadiusQueryEvent event = new RadiusQueryEvent();
+            event.iata = iata;
+            event.radius = radius;
+            // until the index reports a scan
+            event.cacheHit = true;
+            event.begin();
+            QUERY.set(event);
+        }
+    }
+
+    @Override
+    public void queryScanned(final int candidates) {
+        RadiusQueryEvent event = QUERY.get();
+        if (event != null) {
+            event.cacheHit = false;
+            event.candidates = candidates;
+        }
+    }
+
+    @Override
+    public void queryFinished(final int results) {
+        RadiusQueryEvent event = QUERY.get();
+        if (event != null) {
+            QUERY.remove();
+            event.results = results;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void updateStarted() {
+        if (UPDATE_TYPE.isEnabled()) {
+            WeatherUpdateEvent event = new WeatherUpdateEvent();
+            event.begin();
+            UPDATE.set(event);
+        }
+    }
+
+    @Override
+    public void updateFinished(final String iata, final DataPointType pointType, final UpdateStatus status) {
+        WeatherUpdateEvent event = UPDATE.get();
+        if (event != null) {
+            UPDATE.remove();
+        } else if (UPDATE_TYPE.isEnabled()) {
+            event = new WeatherUpdateEvent();
+        } else {
+            return;
+        }
+        event.iata = iata;
+        event.type = pointType == null ? null : pointType.toString();
+        event.status = status.name();
+        event.commit();
+    }
+
+    @Override
+    public FlightEvents.Recording startRecording(final Duration duration, final long maxSize) throws IOException {
+        jdk.jfr.Recording recording;
+        try {
+            recording = new jdk.jfr.Recording(Configuration.getConfiguration(SETTINGS));
+        } catch (ParseException e) {
+            throw new IOException("Malformed flight recorder settings " + SETTINGS, e);
+        }
+        recording.setName("weather");
+        recording.enable(RadiusQueryEvent.class);
+        recording.enable(WeatherUpdateEvent.class);
+        recording.setToDisk(true);
+        recording.setMaxSize(maxSize);
+        recording.setDuration(duration);
+        recording.start();
+        return new FlightEvents.Recording() {
+            @Override
+            public Path stop() throws IOException {
+                if (recording.getState() == RecordingState.RUNNING) {
+                    recording.stop();
+                }
+                Path file = Files.createTempFile("weather", ".jfr");
+                try {
+                    recording.dump(file);
+                } catch (IOException e) {
+                    Files.deleteIfExists(file);
+                    throw e;
+                }
+                return file;
+            }
+
+            @Override
+            public void close() {
+                recording.close();
+            }
+        };
+    }
+}
@@ -3,8 +3,8 @@ package com.crossover.trial.weather.service;
 import com.crossover.trial.weather.domain.AirportData;
 import com.crossover.trial.weather.domain.AtmosphericInformation;
 import com.crossover.trial.weather.repository.AirportDataRepository;
-import com.crossover.trial.weather.util.DistanceMath;
-import org.apache.commons.lang3.math.NumberUtils;
+import com.crossover.trial.weather.repository.AirportSpatialIndex;
+import com.crossover.trial.weather.util.StageTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.Cacheable;
@@ -12,9 +12,9 @@ import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Set;
 
 /**
  * Query service added only because Cacheable annotation does not work with
@@ -34,37 +34,61 @@ public class QueryService {
     @Inject
     private AirportDataRepository airportDataRepository;
 
+    /**
+     * Provides candidates for radius search.
+     */
+    @Inject
+    private AirportSpatialIndex airportSpatialIndex;
+
+    /**
+     * Version source and storage of query results.
+     */
+    @Inject
+    private RadiusQueryCache radiusQueryCache;
 
     /**
      * Method that does the actual search {@see #weather()}.
      * <p>
      * Method was introduced to enable caching.
      *
-     * @param iata         IATA code
-     * @param radiusString radius to search in
-     * @return list of weather information in given center/radius-area.
+     * @param query IATA code and radius to search in
+     * @return snapshot of weather information in given center/radius-area.
      */
-    @Cacheable("findWeatherInRadius")
-    public List<AtmosphericInformation> findWeatherInRadius(final String iata, final String radiusString) {
-        Double radius = NumberUtils.toDouble(radiusString, 0.0d);
+    @Cacheable(RadiusQueryCache.NAME)
+    public RadiusQueryResult findWeatherInRadius(final RadiusQuery query) {
+        // version must be read before the data, see RadiusQueryCache
+        long version = radiusQueryCache.currentVersion();
+        double radius = query.getRadius();
+        FlightEvents.queryScanned(0);
 
         List<AtmosphericInformation> result = new ArrayList<>();
-        AirportData centerAirportData = airportDataRepository.findOne(iata);
+        Set<String> coveredIatas = new HashSet<>();
+        AirportData centerAirportData = airportDataRepository.findOne(query.getIata());
         if (centerAirportData != null) {
 
-            if (radius.equals(0.0d)) {
-                result.add(centerAirportData.getAtmosphericInformation());
+            if (radius == 0.0d) {
+                long begin = StageTimer.begin();
+                coveredIatas.add(centerAirportData.getIata());
+                result.add(centerAirportData.getAtmosphericInformation().snapshot());
+                StageTimer.end(StageTimer.Stage.SNAPSHOT, begin);
             } else {
-                result = StreamSupport.stream(airportDataRepository.findAll().spliterator(), false)
-                    .filter(candidateAirport -> DistanceMath.calculateDistance(centerAirportData, candidateAirport) <= radius)
-                    .filter(candidateRangedAirport -> !candidateRangedAirport.getAtmosphericInformation().isEmpty())
-                    .map(AirportData::getAtmosphericInformation)
-                    .collect(Collectors.toList());
+                List<AirportData> found = airportSpatialIndex.findWithinRadius(
+                    centerAirportData.getLatitude(), centerAirportData.getLongitude(), radius,
+                    FlightEvents::queryScanned);
+                long begin = StageTimer.begin();
+                for (AirportData candidateRangedAirport : found) {
+                    coveredIatas.add(candidateRangedAirport.getIata());
+                    AtmosphericInformation snapshot = candidateRangedAirport.getAtmosphericInformation().snapshot();
+                    if (!snapshot.isEmpty()) {
+                        result.add(snapshot);
+                    }
+                }
+                StageTimer.end(StageTimer.Stage.SNAPSHOT, begin);
             }
 
         }
 
-        LOG.debug("R[{}:{}]", iata, radius);
-        return result;
+        LOG.debug("R[{}:{}]", query.getIata(), radius);
+        return new RadiusQueryResult(version, centerAirportData, coveredIatas, result);
     }
 }
@@ -0,0 +1,178 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.repository.AirportDataListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Internal performance counters to better understand most requested information.
+ * <p>
+ * Counters are striped ({@link LongAdder}), so concurrent requests for the same airport do not contend
+ * and no increment is lost. Memory is bounded: radii are counted in fixed-width buckets and number of
+ * distinct IATA codes tracked is limited, requests for codes beyond the limit are counted as overflow.
+ * <p>
+ * Request counts of known airports are maintained as airports are saved and deleted, so reporting them
+ * does not need to look up the repository.
+ */
+@Component
+@Order(AirportDataListener.DEFAULT_ORDER)
+public class QueryStatistics implements AirportDataListener {
+
+    /**
+     * Requests frequency [IATA Code -> number of requests].
+     */
+    private final Map<String, LongAdder> requestFrequency = new ConcurrentHashMap<>();
+
+    /**
+     * Requests frequency of known airports [IATA Code -> number of requests].
+     */
+    private final Map<String, LongAdder> airportFrequency = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of distinct IATA codes tracked.
+     */
+    private final int maxIataCodes;
+
+    /**
+     * Requests for IATA codes beyond the tracked limit.
+     */
+    private final LongAdder overflowRequests = new LongAdder();
+
+    /**
+     * Width of a radius bucket in KM.
+     */
+    private final double radiusBucketWidth;
+
+    /**
+     * Radius frequency, bucket i counts radii in [i * width, (i + 1) * width), last bucket counts the rest.
+     */
+    private final LongAdder[] radiusFrequency;
+
+    /**
+     * Creates counters.
+     *
+     * @param maxIataCodes      maximum number of distinct IATA codes tracked
+     * @param radiusBucketWidth width of a radius bucket in KM
+     * @param radiusBuckets     number of radius buckets
+     */
+    @Inject
+    public QueryStatistics(@Value("${weather.stats.max-iata-codes:65536}") final int maxIataCodes,
+                           @Value("${weather.stats.radius-bucket-width:10}") final double radiusBucketWidth,
+                           @Value("${weather.stats.radius-buckets:100}") final int radiusBuckets) {
+        this.maxIataCodes = maxIataCodes;
+        this.radiusBucketWidth = radiusBucketWidth;
+        this.radiusFrequency = new LongAdder[radiusBuckets];
+        for (int i = 0; i < radiusBuckets; i++) {
+            radiusFrequency[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records information about a request.
+     *
+     * @param iata   an iata code
+     * @param radius query radius
+     */
+    public void record(final String iata, final double radius) {
+        LongAdder counter = requestFrequency.get(iata);
+        if (counter == null) {
+            counter = requestFrequency.size() < maxIataCodes
+                ? requestFrequency.computeIfAbsent(iata, key -> new LongAdder())
+                : overflowRequests;
+        }
+        counter.increment();
+
+        LongAdder airportCounter = airportFrequency.get(iata);
+        if (airportCounter != null) {
+            airportCounter.increment();
+        }
+
+        radiusFrequency[radiusBucket(radius)].increment();
+    }
+
+    /**
+     * @param iata an iata code
+     * @return number of requests for the IATA code
+     */
+    public long getRequestCount(final String iata) {
+        LongAdder counter = requestFrequency.get(iata);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return number of distinct IATA codes requested (up to the tracked limit)
+     */
+    public int getRequestedIataCount() {
+        return requestFrequency.size();
+    }
+
+    /**
+     * @return fraction of requests for each known airport [IATA Code -> requests / distinct codes requested]
+     */
+    public Map<String, Double> getIataFrequencies() {
+        double requestedIataCount = getRequestedIataCount();
+        Map<String, Double> result = new HashMap<>(airportFrequency.size() * 4 / 3 + 1);
+        airportFrequency.forEach((iata, counter) -> result.put(iata, counter.sum() / requestedIataCount));
+        return result;
+    }
+
+    /**
+     * @return number of requests for IATA codes beyond the tracked limit
+     */
+    public long getOverflowRequestCount() {
+        return overflowRequests.sum();
+    }
+
+    /**
+     * @return radius histogram, trimmed after the last non-empty bucket
+     */
+    public long[] getRadiusHistogram() {
+        long[] histogram = new long[radiusFrequency.length];
+        int length = 1;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = radiusFrequency[i].sum();
+            if (histogram[i] > 0) {
+                length = i + 1;
+            }
+        }
+        long[] result = new long[length];
+        System.arraycopy(histogram, 0, result, 0, length);
+        return result;
+    }
+
+    @Override
+    public void airportSaved(final AirportData airportData) {
+        // requests made before the airport was added still count
+        airportFrequency.computeIfAbsent(airportData.getIata(), iata -> {
+            LongAdder counter = new LongAdder();
+            counter.add(getRequestCount(iata));
+            return counter;
+        });
+    }
+
+    @Override
+    public void airportDeleted(final AirportData airportData) {
+        airportFrequency.remove(airportData.getIata());
+    }
+
+    /**
+     * @param radius query radius
+     * @return bucket of the radius
+     */
+    private int radiusBucket(final double radius) {
+        double bucket = Math.floor(radius / radiusBucketWidth);
+        if (!(bucket >= 0)) {
+            // negative and NaN radii
+            return 0;
+        }
+        return (int) Math.min(bucket, radiusFrequency.length - 1);
+    }
+}
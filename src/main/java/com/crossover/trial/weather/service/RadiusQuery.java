@@ -0,0 +1,81 @@
+package com.crossover.trial.weather.service;
+
+import java.util.Objects;
+
+/**
+ * Parameters of weather search in radius, used as a key of query cache.
+ * <p>
+ * Radius is normalized, so that queries with equal results are equal keys: "50", "50.0" and "050"
+ * are all parsed to the same value, zeros of both signs are positive zero, negative and not-a-number
+ * radii (which match nothing) are the same value.
+ */
+public final class RadiusQuery {
+
+    /**
+     * Normalized radius of queries that can't match any airport.
+     */
+    private static final double NO_RADIUS = -1.0;
+
+    /**
+     * IATA code of the center airport.
+     */
+    private final String iata;
+
+    /**
+     * Radius in KM.
+     */
+    private final double radius;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param iata   IATA code of the center airport
+     * @param radius radius in KM
+     */
+    public RadiusQuery(final String iata, final double radius) {
+        this.iata = iata;
+        if (radius > 0) {
+            this.radius = radius;
+        } else if (radius == 0) {
+            this.radius = 0.0;
+        } else {
+            this.radius = NO_RADIUS;
+        }
+    }
+
+    /**
+     * @return IATA code of the center airport
+     */
+    public String getIata() {
+        return iata;
+    }
+
+    /**
+     * @return radius in KM
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RadiusQuery)) {
+            return false;
+        }
+        RadiusQuery that = (RadiusQuery) o;
+        return Double.compare(radius, that.radius) == 0 && Objects.equals(iata, that.iata);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(iata) + Double.hashCode(radius);
+    }
+
+    @Override
+    public String toString() {
+        return iata + ":" + radius;
+    }
+}
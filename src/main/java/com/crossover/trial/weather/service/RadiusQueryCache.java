@@ -0,0 +1,642 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.repository.AirportDataListener;
+import com.crossover.trial.weather.util.DistanceMath;
+import com.crossover.trial.weather.util.FrequencySketch;
+import com.crossover.trial.weather.util.StageTimer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of {@link QueryService#findWeatherInRadius(RadiusQuery)} results with targeted invalidation.
+ * <p>
+ * Modification of an airport evicts only results covering it: results which contain the airport
+ * and, for added or moved airports, results whose circle contains its new location.
+ * <p>
+ * Every modification increments data version. Result calculated from a version older than
+ * a concurrent modification affecting it is not stored, so a stale result can't outlive the eviction.
+ * <p>
+ * Cache is bounded by total weight of results (number of airports they cover) and entries expire
+ * after configured time. When cache is full, the oldest entry is a candidate for eviction, but new
+ * result is admitted only if it is requested more frequently than the candidate (TinyLFU), so a client
+ * iterating over many distinct radii can't flush popular results. Candidate which wins is moved to
+ * the end of eviction queue.
+ * <p>
+ * Modifications and evictions are lock-free, so ingestion does not contend with cache fills; only storing
+ * a result is serialized, for weight accounting. Stored result is registered before it is checked against
+ * the invalidation log, and modifications are logged before they evict, so either the check sees the
+ * modification or the modification sees the result.
+ */
+@Component
+@Order(AirportDataListener.CACHE_ORDER)
+public class RadiusQueryCache implements Cache, AirportDataListener {
+
+    /**
+     * Name of the cache.
+     */
+    public static final String NAME = "findWeatherInRadius";
+
+    /**
+     * Number of recent modifications remembered to validate results being stored.
+     */
+    private static final int INVALIDATION_LOG_SIZE = 1024;
+
+    /**
+     * Maximum total weight of cached results.
+     */
+    private final long maxWeight;
+
+    /**
+     * Time to live of cached results in nanoseconds, 0 if results do not expire.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Time source in nanoseconds.
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * Cached results.
+     */
+    private final Map<RadiusQuery, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Cached entries in order of insertion, oldest first, guarded by this. May contain evicted entries.
+     */
+    private final Set<Entry> insertionOrder = new LinkedHashSet<>();
+
+    /**
+     * Entries evicted without holding the lock, to be removed from {@link #insertionOrder}.
+     */
+    private final Queue<Entry> evicted = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Popularity of queries, cached or not.
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Cached entries depending on airport [IATA code -> entries].
+     */
+    private final Map<String, Set<Entry>> dependents = new ConcurrentHashMap<>();
+
+    /**
+     * Recent modifications, modification of version V is stored at V % {@link #INVALIDATION_LOG_SIZE}.
+     */
+    private final AtomicReferenceArray<Invalidation> invalidationLog =
+        new AtomicReferenceArray<>(INVALIDATION_LOG_SIZE);
+
+    /**
+     * Current data version.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Total weight of cached results.
+     */
+    private final AtomicLong weight = new AtomicLong();
+
+    /**
+     * Number of requests served from the cache.
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * Number of requests not found in the cache.
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Number of results evicted to free space for more popular ones.
+     */
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Number of results evicted because of expiration.
+     */
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * Number of results not admitted to the cache, because they were less popular than eviction candidates.
+     */
+    private final LongAdder rejectionCount = new LongAdder();
+
+    /**
+     * Creates cache.
+     *
+     * @param maxWeight  maximum total weight of cached results (number of airports they cover)
+     * @param ttlSeconds time to live of cached results in seconds, 0 if results should not expire
+     */
+    @Inject
+    public RadiusQueryCache(@Value("${weather.cache.max-weight:100000}") final long maxWeight,
+                            @Value("${weather.cache.ttl:300}") final long ttlSeconds) {
+        this(maxWeight, ttlSeconds, System::nanoTime);
+    }
+
+    /**
+     * Creates cache with given time source.
+     *
+     * @param maxWeight  maximum total weight of cached results (number of airports they cover)
+     * @param ttlSeconds time to live of cached results in seconds, 0 if results should not expire
+     * @param ticker     time source in nanoseconds
+     */
+    RadiusQueryCache(final long maxWeight, final long ttlSeconds, final LongSupplier ticker) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.ticker = ticker;
+        this.sketch = new FrequencySketch((int) Math.min(maxWeight, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @return current data version, to be read before calculating a result.
+     */
+    public long currentVersion() {
+        return version.get();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    public ValueWrapper get(final Object key) {
+        RadiusQueryResult result = lookup(key);
+        return result == null ? null : new SimpleValueWrapper(result);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Object key, final Class<T> type) {
+        RadiusQueryResult result = lookup(key);
+        if (result != null && type != null && !type.isInstance(result)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]");
+        }
+        return (T) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Object key, final Callable<T> valueLoader) {
+        RadiusQueryResult result = lookup(key);
+        if (result == null) {
+            try {
+                result = (RadiusQueryResult) valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            put(key, result);
+        }
+        return (T) result;
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        long begin = StageTimer.begin();
+        store((RadiusQuery) key, (RadiusQueryResult) value);
+        StageTimer.end(StageTimer.Stage.CACHE, begin);
+    }
+
+    /**
+     * Stores result, unless it is stale or less popular than eviction candidates.
+     *
+     * @param query  query
+     * @param result result of the query
+     */
+    private synchronized void store(final RadiusQuery query, final RadiusQueryResult result) {
+        if (isInvalidatedSince(query, result)) {
+            return;
+        }
+
+        for (Entry entry = evicted.poll(); entry != null; entry = evicted.poll()) {
+            insertionOrder.remove(entry);
+        }
+        evict(query);
+        long resultWeight = weigh(result);
+        if (!makeRoom(query, resultWeight)) {
+            rejectionCount.increment();
+            return;
+        }
+
+        Entry entry = new Entry(query, result, resultWeight, ticker.getAsLong() + ttlNanos);
+        weight.addAndGet(resultWeight);
+        insertionOrder.add(entry);
+        addDependent(query.getIata(), entry);
+        for (String iata : result.getCoveredIatas()) {
+            addDependent(iata, entry);
+        }
+        entries.put(query, entry);
+        // a modification logged since the first check may have missed the entry
+        if (isInvalidatedSince(query, result)) {
+            remove(entry);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(final Object key, final Object value) {
+        Entry existing = entries.get(key);
+        if (existing == null || isExpired(existing)) {
+            put(key, value);
+            return null;
+        }
+        return new SimpleValueWrapper(existing.result);
+    }
+
+    @Override
+    public void evict(final Object key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            remove(entry);
+        }
+    }
+
+    @Override
+    public void airportSaved(final AirportData airportData) {
+        Invalidation invalidation = log(airportData, true);
+        for (Entry entry : entries.values()) {
+            if (invalidation.covers(entry.query, entry.result)) {
+                remove(entry);
+            }
+        }
+    }
+
+    @Override
+    public void airportsSaved(final Collection<AirportData> airports) {
+        for (AirportData airportData : airports) {
+            log(airportData, true);
+        }
+        // bulk load may affect any result, dropping all at once is cheaper than checking each airport
+        clear();
+    }
+
+    @Override
+    public void airportDeleted(final AirportData airportData) {
+        log(airportData, false);
+        evictDependents(airportData.getIata());
+    }
+
+    @Override
+    public void weatherUpdated(final AirportData airportData, final DataPointType pointType,
+                               final DataPoint dataPoint) {
+        log(airportData, false);
+        evictDependents(airportData.getIata());
+    }
+
+    /**
+     * @return number of requests served from the cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return number of requests not found in the cache
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return number of results evicted to free space for more popular ones
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return number of results evicted because of expiration
+     */
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    /**
+     * @return number of results not admitted to the cache
+     */
+    public long getRejectionCount() {
+        return rejectionCount.sum();
+    }
+
+    /**
+     * @return total weight of cached results
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    /**
+     * @return number of cached results
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Looks up live result and records access statistics.
+     *
+     * @param key query
+     * @return cached result or <code>null</code>
+     */
+    private RadiusQueryResult lookup(final Object key) {
+        long begin = StageTimer.begin();
+        sketch.increment(key.hashCode());
+        Entry entry = entries.get(key);
+        if (entry != null && isExpired(entry)) {
+            expire(entry);
+            entry = null;
+        }
+        if (entry == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        StageTimer.end(StageTimer.Stage.CACHE, begin);
+        return entry == null ? null : entry.result;
+    }
+
+    /**
+     * @param entry cache entry
+     * @return <code>true</code> if entry outlived its time to live
+     */
+    private boolean isExpired(final Entry entry) {
+        return ttlNanos > 0 && ticker.getAsLong() - entry.expirationTime >= 0;
+    }
+
+    /**
+     * Evicts expired entry, unless it was replaced or evicted meanwhile.
+     *
+     * @param entry expired entry
+     */
+    private void expire(final Entry entry) {
+        if (remove(entry)) {
+            expirationCount.increment();
+        }
+    }
+
+    /**
+     * Evicts entry, unless it was replaced or evicted meanwhile.
+     *
+     * @param entry entry to evict
+     * @return <code>true</code> if the entry was evicted by this call
+     */
+    private boolean remove(final Entry entry) {
+        if (!entries.remove(entry.query, entry)) {
+            return false;
+        }
+        weight.addAndGet(-entry.weight);
+        removeDependent(entry.query.getIata(), entry);
+        for (String iata : entry.result.getCoveredIatas()) {
+            removeDependent(iata, entry);
+        }
+        evicted.add(entry);
+        return true;
+    }
+
+    /**
+     * Evicts oldest entries until result of given weight fits into the cache, as long as evicted
+     * entries are less popular than the new result.
+     *
+     * @param query        query of the new result
+     * @param resultWeight weight of the new result
+     * @return <code>true</code> if new result may be stored
+     */
+    private boolean makeRoom(final RadiusQuery query, final long resultWeight) {
+        if (resultWeight > maxWeight) {
+            return false;
+        }
+        int frequency = sketch.frequency(query.hashCode());
+        while (weight.get() + resultWeight > maxWeight) {
+            if (insertionOrder.isEmpty()) {
+                // weight of concurrently evicted entries is not released yet
+                return false;
+            }
+            Entry victim = insertionOrder.iterator().next();
+            if (entries.get(victim.query) != victim) {
+                insertionOrder.remove(victim);
+            } else if (isExpired(victim)) {
+                expire(victim);
+                insertionOrder.remove(victim);
+            } else if (sketch.frequency(victim.query.hashCode()) < frequency) {
+                if (remove(victim)) {
+                    evictionCount.increment();
+                }
+                insertionOrder.remove(victim);
+            } else {
+                // popular entry gets a second chance, the next candidate is compared with the next oldest entry
+                insertionOrder.remove(victim);
+                insertionOrder.add(victim);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param result query result
+     * @return weight of the result in the cache
+     */
+    private static long weigh(final RadiusQueryResult result) {
+        return 1L + result.getCoveredIatas().size();
+    }
+
+    /**
+     * Registers modification in the log.
+     *
+     * @param airportData modified airport
+     * @param located     whether airport got new location
+     * @return registered modification
+     */
+    private Invalidation log(final AirportData airportData, final boolean located) {
+        long newVersion = version.incrementAndGet();
+        Invalidation invalidation = new Invalidation(newVersion, airportData, located);
+        invalidationLog.set((int) (newVersion % INVALIDATION_LOG_SIZE), invalidation);
+        return invalidation;
+    }
+
+    /**
+     * Checks whether any modification after the result was calculated affects it.
+     *
+     * @param query  query
+     * @param result result to check
+     * @return <code>true</code> if result is stale or it can't be determined
+     */
+    private boolean isInvalidatedSince(final RadiusQuery query, final RadiusQueryResult result) {
+        long current = version.get();
+        if (current - result.getVersion() >= INVALIDATION_LOG_SIZE) {
+            return true;
+        }
+        for (long v = result.getVersion() + 1; v <= current; v++) {
+            Invalidation invalidation = invalidationLog.get((int) (v % INVALIDATION_LOG_SIZE));
+            // modification of version v is being logged or was already overwritten
+            if (invalidation == null || invalidation.version != v || invalidation.covers(query, result)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evicts all results depending on the airport.
+     *
+     * @param iata IATA code of the airport
+     */
+    private void evictDependents(final String iata) {
+        Set<Entry> dependentEntries = dependents.get(iata);
+        if (dependentEntries != null) {
+            for (Entry entry : dependentEntries) {
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Registers entry as depending on the airport.
+     *
+     * @param iata  IATA code of the airport
+     * @param entry dependent entry
+     */
+    private void addDependent(final String iata, final Entry entry) {
+        // set is created and dropped under the map's lock of the key, so no concurrent add is lost
+        dependents.compute(iata, (key, dependentEntries) -> {
+            Set<Entry> result = dependentEntries == null ? ConcurrentHashMap.newKeySet() : dependentEntries;
+            result.add(entry);
+            return result;
+        });
+    }
+
+    /**
+     * Removes entry from dependents of the airport.
+     *
+     * @param iata  IATA code of the airport
+     * @param entry dependent entry
+     */
+    private void removeDependent(final String iata, final Entry entry) {
+        dependents.computeIfPresent(iata, (key, dependentEntries) -> {
+            dependentEntries.remove(entry);
+            return dependentEntries.isEmpty() ? null : dependentEntries;
+        });
+    }
+
+    /**
+     * Cached result with its metadata.
+     */
+    private static final class Entry {
+
+        /**
+         * Query of the result.
+         */
+        private final RadiusQuery query;
+
+        /**
+         * Cached result.
+         */
+        private final RadiusQueryResult result;
+
+        /**
+         * Weight of the result.
+         */
+        private final long weight;
+
+        /**
+         * Time when the entry expires, {@link #ticker} based.
+         */
+        private final long expirationTime;
+
+        /**
+         * Initializing constructor.
+         *
+         * @param query          query of the result
+         * @param result         cached result
+         * @param weight         weight of the result
+         * @param expirationTime time when the entry expires
+         */
+        private Entry(final RadiusQuery query, final RadiusQueryResult result, final long weight,
+                      final long expirationTime) {
+            this.query = query;
+            this.result = result;
+            this.weight = weight;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    /**
+     * Modification of a single airport.
+     */
+    private static final class Invalidation {
+
+        /**
+         * Data version of the modification.
+         */
+        private final long version;
+
+        /**
+         * Modified airport.
+         */
+        private final AirportData airportData;
+
+        /**
+         * Whether airport got new location, so it may appear in results it was not part of.
+         */
+        private final boolean located;
+
+        /**
+         * Initializing constructor.
+         *
+         * @param version     data version of the modification
+         * @param airportData modified airport
+         * @param located     whether airport got new location
+         */
+        private Invalidation(final long version, final AirportData airportData, final boolean located) {
+            this.version = version;
+            this.airportData = airportData;
+            this.located = located;
+        }
+
+        /**
+         * @param query  query
+         * @param result result of the query
+         * @return <code>true</code> if the modification makes result stale
+         */
+        private boolean covers(final RadiusQuery query, final RadiusQueryResult result) {
+            String iata = airportData.getIata();
+            return iata.equals(query.getIata())
+                || result.getCoveredIatas().contains(iata)
+                || located && result.getCenter() != null
+                && DistanceMath.calculateDistance(result.getCenter(), airportData) <= query.getRadius();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.crossover.trial.weather.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a weather search in radius, emitted through {@link FlightEvents}.
+ */
+@Name("com.crossover.trial.weather.RadiusQuery")
+@Label("Radius Query")
+@Category("Weather")
+@Description("Weather search in radius around an airport")
+class RadiusQueryEvent extends jdk.jfr.Event {
+
+    /**
+     * IATA code of the center airport.
+     */
+    @Label("IATA Code")
+    String iata;
+
+    /**
+     * Radius in KM.
+     */
+    @Label("Radius")
+    double radius;
+
+    /**
+     * Number of airports whose distance was calculated.
+     */
+    @Label("Candidates Scanned")
+    int candidates;
+
+    /**
+     * Number of returned atmospheric information entries.
+     */
+    @Label("Results")
+    int results;
+
+    /**
+     * Whether result was served from cache.
+     */
+    @Label("Cache Hit")
+    boolean cacheHit;
+}
@@ -0,0 +1,81 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable result of weather search in radius.
+ * <p>
+ * Holds snapshots of atmospheric information, so cached results do not change when airports are updated,
+ * and enough information for {@link RadiusQueryCache} to decide which updates make the result stale.
+ */
+public final class RadiusQueryResult {
+
+    /**
+     * Version of data the result was calculated from, {@link RadiusQueryCache#currentVersion()}.
+     */
+    private final long version;
+
+    /**
+     * Center airport, <code>null</code> if airport is not known.
+     */
+    private final AirportData center;
+
+    /**
+     * IATA codes of all airports within the radius, including ones without atmospheric information.
+     */
+    private final Set<String> coveredIatas;
+
+    /**
+     * Snapshots of atmospheric information in the radius.
+     */
+    private final List<AtmosphericInformation> atmosphericInformation;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param version                version of data the result was calculated from
+     * @param center                 center airport, <code>null</code> if airport is not known
+     * @param coveredIatas           IATA codes of all airports within the radius
+     * @param atmosphericInformation snapshots of atmospheric information in the radius
+     */
+    public RadiusQueryResult(final long version, final AirportData center, final Set<String> coveredIatas,
+                             final List<AtmosphericInformation> atmosphericInformation) {
+        this.version = version;
+        this.center = center;
+        this.coveredIatas = Collections.unmodifiableSet(coveredIatas);
+        this.atmosphericInformation = Collections.unmodifiableList(atmosphericInformation);
+    }
+
+    /**
+     * @return version of data the result was calculated from
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return center airport, <code>null</code> if airport is not known
+     */
+    public AirportData getCenter() {
+        return center;
+    }
+
+    /**
+     * @return IATA codes of all airports within the radius
+     */
+    public Set<String> getCoveredIatas() {
+        return coveredIatas;
+    }
+
+    /**
+     * @return snapshots of atmospheric information in the radius
+     */
+    public List<AtmosphericInformation> getAtmosphericInformation() {
+        return atmosphericInformation;
+    }
+}
@@ -0,0 +1,251 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.WeatherException;
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.repository.AirportDataListener;
+import com.crossover.trial.weather.repository.AirportDataRepository;
+import com.crossover.trial.weather.repository.WriteAheadLog;
+import com.crossover.trial.weather.util.AirportSnapshotCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Periodically writes all airports with their current weather to a memory-mapped snapshot file and restores
+ * them on startup together with modifications logged by {@link WriteAheadLog} since the snapshot, so
+ * a restarted server serves warm data right away.
+ * <p>
+ * Snapshot is written to a temporary file, forced to disk and atomically renamed, so a crash while writing
+ * keeps the previous snapshot and log segments. Unreadable snapshot is logged and ignored. Restored data
+ * points are passed to listeners as weather updates at their original time, so derived structures are warm
+ * as well. Snapshots are disabled if no path is configured.
+ */
+@Service
+@DependsOn("airportBootstrapService")
+public class SnapshotService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotService.class);
+
+    /**
+     * Provides access to Airport Data Repository.
+     */
+    @Inject
+    private AirportDataRepository airportDataRepository;
+
+    /**
+     * Components to be notified about restored weather.
+     */
+    @Inject
+    private List<AirportDataListener> listeners;
+
+    /**
+     * Log of modifications since the last snapshot.
+     */
+    @Inject
+    private WriteAheadLog writeAheadLog;
+
+    /**
+     * Snapshot file, <code>null</code> if snapshots are disabled.
+     */
+    private final Path path;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param path snapshot file, empty to disable snapshots
+     */
+    @Inject
+    public SnapshotService(@Value("${weather.snapshot.path:}") final String path) {
+        this.path = path.isEmpty() ? null : Paths.get(path);
+    }
+
+    /**
+     * Restores airports from the snapshot file, if it exists, and replays the log.
+     *
+     * @throws IllegalStateException if the log is enabled without snapshots, which would never truncate it
+     */
+    @PostConstruct
+    public void restore() {
+        if (path == null && writeAheadLog.isEnabled()) {
+            throw new IllegalStateException("weather.wal.directory requires weather.snapshot.path, "
+                + "log segments are deleted only after snapshots");
+        }
+        if (path != null && Files.exists(path)) {
+            restoreSnapshot();
+        }
+        try {
+            writeAheadLog.recover(new WriteAheadLog.Replay() {
+                @Override
+                public void airportSaved(final String iata, final double latitude, final double longitude) {
+                    airportDataRepository.save(new AirportData(iata, latitude, longitude));
+                }
+
+                @Override
+                public void airportDeleted(final String iata) {
+                    airportDataRepository.delete(iata);
+                }
+
+                @Override
+                public void weatherUpdated(final String iata, final DataPointType pointType,
+                                           final DataPoint dataPoint, final long time) {
+                    AirportData airportData = airportDataRepository.findOne(iata);
+                    if (airportData != null) {
+                        restoreWeather(airportData, pointType, dataPoint, time);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            LOG.error("Failed to recover write-ahead log, updates are not durable", e);
+        }
+    }
+
+    /**
+     * Writes all airports to the snapshot file.
+     */
+    @Scheduled(initialDelayString = "${weather.snapshot.interval:60000}",
+        fixedDelayString = "${weather.snapshot.interval:60000}")
+    public synchronized void save() {
+        if (path == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        long boundary;
+        List<AirportData> airports = new ArrayList<>();
+        // modifications wait for the copy, so none is both in the snapshot and in the retained segment
+        Lock checkpointLock = writeAheadLog.checkpointLock();
+        checkpointLock.lock();
+        try {
+            boundary = writeAheadLog.rotate();
+            for (AirportData airportData : airportDataRepository.findAll()) {
+                airports.add(copy(airportData));
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to rotate write-ahead log, snapshot skipped", e);
+            return;
+        } finally {
+            checkpointLock.unlock();
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    AirportSnapshotCodec.size(airports));
+                AirportSnapshotCodec.write(buffer, airports);
+                buffer.force();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeAheadLog.deleteBefore(boundary);
+        } catch (IOException e) {
+            LOG.warn("Failed to write snapshot {}", path, e);
+            return;
+        }
+        LOG.debug("Saved {} airports to {} in {} ms", airports.size(), path,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes the final snapshot on shutdown.
+     */
+    @PreDestroy
+    public void close() {
+        save();
+    }
+
+    /**
+     * Restores airports from the snapshot file.
+     */
+    private void restoreSnapshot() {
+        long start = System.nanoTime();
+        List<AirportData> airports;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            airports = AirportSnapshotCodec.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable snapshot {}", path, e);
+            return;
+        }
+
+        for (AirportData airportData : airportDataRepository.save(airports)) {
+            for (DataPointType pointType : DataPointType.values()) {
+                DataPoint dataPoint = airportData.getAtmosphericInformation().get(pointType);
+                if (dataPoint != null) {
+                    notifyListeners(airportData, pointType, dataPoint);
+                }
+            }
+        }
+        LOG.info("Restored {} airports from {} in {} ms", airports.size(), path,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Applies a logged update at its original time.
+     *
+     * @param airportData airport to update
+     * @param pointType   type of the data point
+     * @param dataPoint   data point
+     * @param time        time of the update, in milliseconds since UTC epoch
+     */
+    private void restoreWeather(final AirportData airportData, final DataPointType pointType,
+                                final DataPoint dataPoint, final long time) {
+        AtmosphericInformation information = airportData.getAtmosphericInformation();
+        try {
+            information.update(pointType, dataPoint);
+        } catch (WeatherException | IllegalStateException e) {
+            LOG.warn("Skipping invalid logged update of {}", airportData.getIata(), e);
+            return;
+        }
+        information.setLastUpdateTime(time);
+        notifyListeners(airportData, pointType, dataPoint);
+    }
+
+    /**
+     * @param airportData restored airport
+     * @param pointType   type of the restored data point
+     * @param dataPoint   restored data point
+     */
+    private void notifyListeners(final AirportData airportData, final DataPointType pointType,
+                                 final DataPoint dataPoint) {
+        for (AirportDataListener listener : listeners) {
+            listener.weatherUpdated(airportData, pointType, dataPoint);
+        }
+    }
+
+    /**
+     * @param airportData stored airport
+     * @return detached copy with a snapshot of atmospheric information
+     */
+    private static AirportData copy(final AirportData airportData) {
+        AirportData copy = new AirportData();
+        copy.setIata(airportData.getIata());
+        copy.setLatitude(airportData.getLatitude());
+        copy.setLongitude(airportData.getLongitude());
+        copy.setAtmosphericInformation(airportData.getAtmosphericInformation().snapshot());
+        return copy;
+    }
+}
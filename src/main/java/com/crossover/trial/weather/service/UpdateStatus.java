@@ -0,0 +1,32 @@
+package com.crossover.trial.weather.service;
+
+/**
+ * Outcome of a single weather update.
+ */
+public enum UpdateStatus {
+
+    /**
+     * Data point was applied.
+     */
+    OK,
+
+    /**
+     * Airport is not known.
+     */
+    UNKNOWN_AIRPORT,
+
+    /**
+     * Point type does not match any of {@link com.crossover.trial.weather.domain.DataPointType}.
+     */
+    INVALID_TYPE,
+
+    /**
+     * Data point is out of the range allowed for its type.
+     */
+    INVALID_VALUE,
+
+    /**
+     * Update could not be parsed or misses required fields.
+     */
+    MALFORMED
+}
@@ -0,0 +1,59 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+
+/**
+ * Data point collected for an airport.
+ */
+public final class WeatherUpdate {
+
+    /**
+     * IATA code of the airport.
+     */
+    private final String iata;
+
+    /**
+     * Type of the data point.
+     */
+    private final DataPointType pointType;
+
+    /**
+     * Collected data point.
+     */
+    private final DataPoint dataPoint;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param iata      IATA code of the airport
+     * @param pointType type of the data point
+     * @param dataPoint collected data point
+     */
+    public WeatherUpdate(final String iata, final DataPointType pointType, final DataPoint dataPoint) {
+        this.iata = iata;
+        this.pointType = pointType;
+        this.dataPoint = dataPoint;
+    }
+
+    /**
+     * @return IATA code of the airport
+     */
+    public String getIata() {
+        return iata;
+    }
+
+    /**
+     * @return type of the data point
+     */
+    public DataPointType getPointType() {
+        return pointType;
+    }
+
+    /**
+     * @return collected data point
+     */
+    public DataPoint getDataPoint() {
+        return dataPoint;
+    }
+}
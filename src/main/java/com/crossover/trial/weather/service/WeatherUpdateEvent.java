@@ -0,0 +1,34 @@
+package com.crossover.trial.weather.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a single weather update, emitted through {@link FlightEvents}.
+ */
+@Name("com.crossover.trial.weather.WeatherUpdate")
+@Label("Weather Update")
+@Category("Weather")
+@Description("Validation and application of a collected data point")
+class WeatherUpdateEvent extends jdk.jfr.Event {
+
+    /**
+     * IATA code of the airport.
+     */
+    @Label("IATA Code")
+    String iata;
+
+    /**
+     * Data point type, <code>null</code> if not recognized.
+     */
+    @Label("Type")
+    String type;
+
+    /**
+     * Outcome of the update, see {@link UpdateStatus}.
+     */
+    @Label("Status")
+    String status;
+}
@@ -0,0 +1,180 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.WeatherException;
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.repository.AirportDataListener;
+import com.crossover.trial.weather.repository.AirportDataRepository;
+import com.crossover.trial.weather.repository.WriteAheadLog;
+import org.springframework.stereotype.Service;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Applies collected data points to airports' atmospheric information and notifies listeners.
+ */
+@Service
+public class WeatherUpdateService {
+
+    /**
+     * Provides access to Airport Data Repository.
+     */
+    @Inject
+    private AirportDataRepository airportDataRepository;
+
+    /**
+     * Components to be notified about weather updates.
+     */
+    @Inject
+    private List<AirportDataListener> listeners;
+
+    /**
+     * Log of the updates, held off while a snapshot is copied.
+     */
+    @Inject
+    private WriteAheadLog writeAheadLog;
+
+    /**
+     * Update the airports weather data with the collected data.
+     *
+     * @param iata      the 3 letter IATA code
+     * @param pointType the point type
+     * @param dataPoint a datapoint object holding pointType data
+     * @return <code>false</code> if the airport is not known
+     * @throws WeatherException if the update can not be completed
+     */
+    public boolean update(final String iata, final DataPointType pointType,
+                          final DataPoint dataPoint) throws WeatherException {
+        FlightEvents.updateStarted();
+        AirportData airportData = airportDataRepository.findOne(iata);
+        if (airportData == null) {
+            FlightEvents.updateFinished(iata, pointType, UpdateStatus.UNKNOWN_AIRPORT);
+            return false;
+        }
+        try {
+            apply(airportData, pointType, dataPoint);
+        } catch (WeatherException | IllegalStateException e) {
+            FlightEvents.updateFinished(iata, pointType, UpdateStatus.INVALID_VALUE);
+            throw e;
+        }
+        FlightEvents.updateFinished(iata, pointType, UpdateStatus.OK);
+        return true;
+    }
+
+    /**
+     * Applies updates grouped by airport, so every airport is looked up once. Updates of the same
+     * airport are applied in their original order; a failed update does not stop the others.
+     * Updates without IATA code or data point are {@link UpdateStatus#MALFORMED}, updates without
+     * point type are {@link UpdateStatus#INVALID_TYPE}.
+     *
+     * @param updates updates to apply
+     * @return status of each update, in the order of updates
+     */
+    public UpdateStatus[] updateAll(final List<WeatherUpdate> updates) {
+        UpdateStatus[] result = new UpdateStatus[updates.size()];
+        Map<String, List<Integer>> indicesByIata = new LinkedHashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            WeatherUpdate update = updates.get(i);
+            result[i] = validate(update);
+            if (result[i] == UpdateStatus.OK) {
+                indicesByIata.computeIfAbsent(update.getIata(), iata -> new ArrayList<>()).add(i);
+            } else {
+                rejected(update, result[i]);
+            }
+        }
+
+        for (Map.Entry<String, List<Integer>> entry : indicesByIata.entrySet()) {
+            AirportData airportData = airportDataRepository.findOne(entry.getKey());
+            for (int index : entry.getValue()) {
+                if (airportData == null) {
+                    result[index] = rejected(updates.get(index), UpdateStatus.UNKNOWN_AIRPORT);
+                } else {
+                    result[index] = tryApply(airportData, updates.get(index));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies single update, validated as in {@link #updateAll(List)}.
+     *
+     * @param update update to apply
+     * @return status of the update
+     */
+    public UpdateStatus update(final WeatherUpdate update) {
+        UpdateStatus status = validate(update);
+        if (status != UpdateStatus.OK) {
+            return rejected(update, status);
+        }
+        AirportData airportData = airportDataRepository.findOne(update.getIata());
+        return airportData == null ? rejected(update, UpdateStatus.UNKNOWN_AIRPORT) : tryApply(airportData, update);
+    }
+
+    /**
+     * @param update update to validate
+     * @return {@link UpdateStatus#OK} if all fields of the update are present
+     */
+    private static UpdateStatus validate(final WeatherUpdate update) {
+        if (update.getIata() == null || update.getDataPoint() == null) {
+            return UpdateStatus.MALFORMED;
+        }
+        return update.getPointType() == null ? UpdateStatus.INVALID_TYPE : UpdateStatus.OK;
+    }
+
+    /**
+     * @param airportData airport to update
+     * @param update      update to apply
+     * @return status of the update
+     */
+    private UpdateStatus tryApply(final AirportData airportData, final WeatherUpdate update) {
+        FlightEvents.updateStarted();
+        UpdateStatus status;
+        try {
+            apply(airportData, update.getPointType(), update.getDataPoint());
+            status = UpdateStatus.OK;
+        } catch (WeatherException | IllegalStateException e) {
+            status = UpdateStatus.INVALID_VALUE;
+        }
+        FlightEvents.updateFinished(update.getIata(), update.getPointType(), status);
+        return status;
+    }
+
+    /**
+     * Emits {@link FlightEvents} weather update event of an update which was not applied.
+     *
+     * @param update rejected update
+     * @param status reason of the rejection
+     * @return the status
+     */
+    private static UpdateStatus rejected(final WeatherUpdate update, final UpdateStatus status) {
+        FlightEvents.updateFinished(update.getIata(), update.getPointType(), status);
+        return status;
+    }
+
+    /**
+     * @param airportData airport to update
+     * @param pointType   the point type
+     * @param dataPoint   a datapoint object holding pointType data
+     * @throws WeatherException if the update can not be completed
+     */
+    private void apply(final AirportData airportData, final DataPointType pointType,
+                       final DataPoint dataPoint) throws WeatherException {
+        Lock modificationLock = writeAheadLog.modificationLock();
+        modificationLock.lock();
+        try {
+            airportData.getAtmosphericInformation().update(pointType, dataPoint);
+            for (AirportDataListener listener : listeners) {
+                listener.weatherUpdated(airportData, pointType, dataPoint);
+            }
+        } finally {
+            modificationLock.unlock();
+        }
+    }
+}
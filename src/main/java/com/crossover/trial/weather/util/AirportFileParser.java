@@ -0,0 +1,185 @@
+package com.crossover.trial.weather.util;
+
+import com.crossover.trial.weather.domain.AirportData;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Parses airports from (memory mapped) buffers with the contents of <code>airports.dat</code>: comma separated
+ * lines of record number, name, city, country, IATA code, ICAO code, latitude, longitude, altitude, time zone
+ * and DST, with text fields optionally quoted as in RFC 4180.
+ * <p>
+ * The buffer is split into chunks at line boundaries, which are parsed in parallel directly from bytes. Records
+ * must not span lines, as in the OpenFlights data the file comes from. Lines without IATA code or with
+ * unparsable coordinates (e.g. header) are skipped.
+ */
+public final class AirportFileParser {
+
+    /**
+     * Index of IATA code field.
+     */
+    private static final int IATA_FIELD = 4;
+
+    /**
+     * Index of latitude field.
+     */
+    private static final int LATITUDE_FIELD = 6;
+
+    /**
+     * Index of longitude field.
+     */
+    private static final int LONGITUDE_FIELD = 7;
+
+    /**
+     * Chunks smaller than this are not split further, in bytes.
+     */
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Hide utility class constructor.
+     */
+    private AirportFileParser() {
+    }
+
+    /**
+     * Parses airports between the current position and the limit of the buffer.
+     *
+     * @param in          source, its position is not changed
+     * @param parallelism maximal number of chunks parsed in parallel
+     * @return parsed airports in file order
+     */
+    public static List<AirportData> parse(final ByteBuffer in, final int parallelism) {
+        int chunks = Math.max(1, Math.min(parallelism, in.remaining() / MIN_CHUNK_SIZE));
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = in.position();
+        bounds[chunks] = in.limit();
+        for (int i = 1; i < chunks; i++) {
+            int split = in.position() + (int) ((long) in.remaining() * i / chunks);
+            bounds[i] = nextLine(in, Math.max(bounds[i - 1], split));
+        }
+
+        List<List<AirportData>> parsed = IntStream.range(0, chunks)
+            .parallel()
+            .mapToObj(i -> parseChunk(in, bounds[i], bounds[i + 1]))
+            .collect(Collectors.toList());
+        List<AirportData> result = new ArrayList<>(parsed.stream().mapToInt(List::size).sum());
+        parsed.forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * @param in   source
+     * @param from position in the buffer
+     * @return start of the first line at or after the position
+     */
+    private static int nextLine(final ByteBuffer in, final int from) {
+        if (from == in.position()) {
+            return from;
+        }
+        int position = from;
+        while (position < in.limit() && in.get(position - 1) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * @param in   source
+     * @param from start of the chunk (inclusive), at line start
+     * @param to   end of the chunk (exclusive), at line start or end of the buffer
+     * @return airports parsed from the chunk
+     */
+    private static List<AirportData> parseChunk(final ByteBuffer in, final int from, final int to) {
+        List<AirportData> result = new ArrayList<>();
+        String[] fields = new String[LONGITUDE_FIELD + 1];
+        int position = from;
+        while (position < to) {
+            int end = position;
+            while (end < to && in.get(end) != '\n') {
+                end++;
+            }
+            AirportData airportData = parseLine(in, position, end, fields);
+            if (airportData != null) {
+                result.add(airportData);
+            }
+            position = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * @param in     source
+     * @param from   start of the line (inclusive)
+     * @param to     end of the line (exclusive), without line feed
+     * @param fields reused holder of the needed fields
+     * @return parsed airport, <code>null</code> if the line does not describe an airport with IATA code
+     */
+    private static AirportData parseLine(final ByteBuffer in, final int from, final int to, final String[] fields) {
+        int field = 0;
+        int position = from;
+        while (field < fields.length && position <= to) {
+            int start = position;
+            int end;
+            boolean quoted = position < to && in.get(position) == '"';
+            if (quoted) {
+                start++;
+                end = start;
+                // doubled quote is an escaped quote, not the end of the field
+                while (end < to && (in.get(end) != '"' || end + 1 < to && in.get(end + 1) == '"')) {
+                    end += in.get(end) == '"' ? 2 : 1;
+                }
+                position = end + 1;
+                while (position < to && in.get(position) != ',') {
+                    position++;
+                }
+            } else {
+                end = start;
+                while (end < to && in.get(end) != ',') {
+                    end++;
+                }
+                position = end;
+            }
+            if (field == IATA_FIELD || field == LATITUDE_FIELD || field == LONGITUDE_FIELD) {
+                if (end > start && in.get(end - 1) == '\r') {
+                    end--;
+                }
+                String value = decode(in, start, end);
+                fields[field] = quoted ? value.replace("\"\"", "\"") : value;
+            }
+            field++;
+            position++;
+        }
+        if (field < fields.length || fields[IATA_FIELD].isEmpty()) {
+            return null;
+        }
+
+        AirportData airportData = new AirportData();
+        try {
+            airportData.setLatitude(Double.parseDouble(fields[LATITUDE_FIELD]));
+            airportData.setLongitude(Double.parseDouble(fields[LONGITUDE_FIELD]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        airportData.setIata(fields[IATA_FIELD]);
+        return airportData;
+    }
+
+    /**
+     * @param in   source
+     * @param from start of the text (inclusive)
+     * @param to   end of the text (exclusive)
+     * @return decoded UTF-8 text
+     */
+    private static String decode(final ByteBuffer in, final int from, final int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = in.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
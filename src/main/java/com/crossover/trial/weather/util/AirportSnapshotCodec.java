@@ -0,0 +1,211 @@
+package com.crossover.trial.weather.util;
+
+import com.crossover.trial.weather.WeatherException;
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed-layout binary encoding of all airports with their current weather, written to and read from
+ * (memory mapped) buffers.
+ * <p>
+ * Layout is big-endian:
+ * <pre>
+ * int    magic            {@link #MAGIC}
+ * int    version          {@link #VERSION}
+ * int    count            number of airports, then for each airport:
+ * short  iata length      followed by UTF-8 bytes of IATA code
+ * double latitude
+ * double longitude
+ * long   lastUpdateTime   milliseconds since UTC epoch
+ * byte   present          bit i is set if data point of {@link DataPointType} with ordinal i is present
+ * ...    data points      present data points in {@link DataPointType} order, as in {@link WeatherUpdateCodec}
+ * int    crc              CRC32 of all preceding bytes
+ * </pre>
+ * An airport with a 3 letter code and all six data points takes 174 bytes.
+ */
+public final class AirportSnapshotCodec {
+
+    /**
+     * First bytes of a snapshot, "WSNP".
+     */
+    public static final int MAGIC = 0x57534e50;
+
+    /**
+     * Version of the layout.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of header and trailer in bytes.
+     */
+    private static final int FRAME_SIZE = 3 * 4 + 4;
+
+    /**
+     * Size of an airport without IATA code and data points in bytes.
+     */
+    private static final int AIRPORT_SIZE = 2 + 8 + 8 + 8 + 1;
+
+    /**
+     * Point types in encoding order.
+     */
+    private static final DataPointType[] POINT_TYPES = DataPointType.values();
+
+    /**
+     * Hide utility class constructor.
+     */
+    private AirportSnapshotCodec() {
+    }
+
+    /**
+     * @param airports airports to write, with atmospheric information not changing meanwhile (snapshots)
+     * @return size of encoded airports in bytes
+     */
+    public static int size(final Collection<AirportData> airports) {
+        int size = FRAME_SIZE;
+        for (AirportData airportData : airports) {
+            size += AIRPORT_SIZE + airportData.getIata().getBytes(StandardCharsets.UTF_8).length;
+            AtmosphericInformation information = airportData.getAtmosphericInformation();
+            for (DataPointType pointType : POINT_TYPES) {
+                if (information.get(pointType) != null) {
+                    size += WeatherUpdateCodec.DATA_POINT_SIZE;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes airports from the current position of the buffer.
+     *
+     * @param out      destination with at least {@link #size(Collection)} bytes remaining
+     * @param airports airports to write, with atmospheric information not changing meanwhile (snapshots)
+     */
+    public static void write(final ByteBuffer out, final Collection<AirportData> airports) {
+        int start = out.position();
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(airports.size());
+        for (AirportData airportData : airports) {
+            byte[] iata = airportData.getIata().getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) iata.length);
+            out.put(iata);
+            out.putDouble(airportData.getLatitude());
+            out.putDouble(airportData.getLongitude());
+
+            AtmosphericInformation information = airportData.getAtmosphericInformation();
+            int present = 0;
+            for (DataPointType pointType : POINT_TYPES) {
+                if (information.get(pointType) != null) {
+                    present |= 1 << pointType.ordinal();
+                }
+            }
+            out.putLong(information.getLastUpdateTime());
+            out.put((byte) present);
+            for (DataPointType pointType : POINT_TYPES) {
+                DataPoint dataPoint = information.get(pointType);
+                if (dataPoint != null) {
+                    out.putDouble(dataPoint.getMean());
+                    out.putInt(dataPoint.getFirst());
+                    out.putInt(dataPoint.getSecond());
+                    out.putInt(dataPoint.getThird());
+                    out.putInt(dataPoint.getCount());
+                }
+            }
+        }
+        out.putInt(crc(out, start, out.position()));
+    }
+
+    /**
+     * Reads airports from the current position of the buffer.
+     *
+     * @param in source
+     * @return read airports
+     * @throws IOException if the snapshot is truncated, corrupted, of another version or contains data point
+     *                     out of the range allowed for its type
+     */
+    public static List<AirportData> read(final ByteBuffer in) throws IOException {
+        int start = in.position();
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a weather snapshot");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int count = in.getInt();
+            List<AirportData> result = new ArrayList<>(Math.min(count, in.remaining() / AIRPORT_SIZE));
+            for (int i = 0; i < count; i++) {
+                result.add(readAirport(in));
+            }
+            int crc = crc(in, start, in.position());
+            if (in.getInt() != crc) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            return result;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Snapshot is truncated", e);
+        }
+    }
+
+    /**
+     * @param in source
+     * @return read airport
+     * @throws IOException if data point is out of the range allowed for its type
+     */
+    private static AirportData readAirport(final ByteBuffer in) throws IOException {
+        byte[] iata = new byte[in.getShort() & 0xffff];
+        in.get(iata);
+        AirportData airportData = new AirportData();
+        airportData.setIata(new String(iata, StandardCharsets.UTF_8));
+        airportData.setLatitude(in.getDouble());
+        airportData.setLongitude(in.getDouble());
+
+        AtmosphericInformation information = airportData.getAtmosphericInformation();
+        long lastUpdateTime = in.getLong();
+        int present = in.get();
+        for (DataPointType pointType : POINT_TYPES) {
+            if ((present & 1 << pointType.ordinal()) != 0) {
+                DataPoint dataPoint = new DataPoint.Builder()
+                    .withMean(in.getDouble())
+                    .withFirst(in.getInt())
+                    .withMedian(in.getInt())
+                    .withLast(in.getInt())
+                    .withCount(in.getInt())
+                    .build();
+                try {
+                    information.update(pointType, dataPoint);
+                } catch (WeatherException | IllegalStateException e) {
+                    throw new IOException("Invalid " + pointType + " data point " + dataPoint, e);
+                }
+            }
+        }
+        information.setLastUpdateTime(lastUpdateTime);
+        return airportData;
+    }
+
+    /**
+     * @param buffer buffer
+     * @param from   start of checked bytes (inclusive)
+     * @param to     end of checked bytes (exclusive)
+     * @return CRC32 of the bytes, truncated to int
+     */
+    private static int crc(final ByteBuffer buffer, final int from, final int to) {
+        ByteBuffer checked = buffer.duplicate();
+        checked.limit(to).position(from);
+        CRC32 crc = new CRC32();
+        crc.update(checked);
+        return (int) crc.getValue();
+    }
+}
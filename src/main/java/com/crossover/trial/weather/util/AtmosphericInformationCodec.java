@@ -0,0 +1,112 @@
+package com.crossover.trial.weather.util;
+
+import com.crossover.trial.weather.WeatherException;
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fixed-layout binary encoding of query results, an alternative to json for internal consumers.
+ * <p>
+ * Layout is big-endian:
+ * <pre>
+ * int    count            number of entries, then for each entry:
+ * long   lastUpdateTime   milliseconds since UTC epoch
+ * byte   present          bit i is set if data point of {@link DataPointType} with ordinal i is present
+ * ...    data points      present data points in {@link DataPointType} order, as in {@link WeatherUpdateCodec}
+ * </pre>
+ * An entry with all six data points takes 153 bytes.
+ */
+public final class AtmosphericInformationCodec {
+
+    /**
+     * Media type of binary encoded query results.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.weather.atmosphere+binary";
+
+    /**
+     * Point types in encoding order.
+     */
+    private static final DataPointType[] POINT_TYPES = DataPointType.values();
+
+    /**
+     * Hide utility class constructor.
+     */
+    private AtmosphericInformationCodec() {
+    }
+
+    /**
+     * Writes atmospheric information.
+     *
+     * @param out     destination
+     * @param entries atmospheric information to write
+     * @throws IOException if writing fails
+     */
+    public static void write(final DataOutput out, final Collection<AtmosphericInformation> entries)
+        throws IOException {
+        out.writeInt(entries.size());
+        for (AtmosphericInformation entry : entries) {
+            int present = 0;
+            for (DataPointType pointType : POINT_TYPES) {
+                if (entry.get(pointType) != null) {
+                    present |= 1 << pointType.ordinal();
+                }
+            }
+            out.writeLong(entry.getLastUpdateTime());
+            out.writeByte(present);
+            for (DataPointType pointType : POINT_TYPES) {
+                DataPoint dataPoint = entry.get(pointType);
+                if (dataPoint != null) {
+                    WeatherUpdateCodec.writeDataPoint(out, dataPoint);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads atmospheric information.
+     *
+     * @param in source
+     * @return read atmospheric information
+     * @throws IOException if reading fails or data point is out of the range allowed for its type
+     */
+    public static List<AtmosphericInformation> read(final DataInput in) throws IOException {
+        int count = in.readInt();
+        List<AtmosphericInformation> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AtmosphericInformation entry = new AtmosphericInformation();
+            long lastUpdateTime = in.readLong();
+            int present = in.readUnsignedByte();
+            for (DataPointType pointType : POINT_TYPES) {
+                if ((present & 1 << pointType.ordinal()) != 0) {
+                    update(entry, pointType, WeatherUpdateCodec.readDataPoint(in));
+                }
+            }
+            entry.setLastUpdateTime(lastUpdateTime);
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * @param entry     atmospheric information to update
+     * @param pointType the data point type
+     * @param dataPoint the data point
+     * @throws IOException if data point is out of the range allowed for its type
+     */
+    private static void update(final AtmosphericInformation entry, final DataPointType pointType,
+                               final DataPoint dataPoint) throws IOException {
+        try {
+            entry.update(pointType, dataPoint);
+        } catch (WeatherException | IllegalStateException e) {
+            throw new IOException("Invalid " + pointType + " data point " + dataPoint, e);
+        }
+    }
+}
@@ -19,7 +19,7 @@ public final class DistanceMath {
     /**
      * Earth radius in KM.
      */
-    private static final double R = 6372.8;
+    public static final double R = 6372.8;
 
     /**
      * Hide utility class constructor.
@@ -43,22 +43,67 @@ public final class DistanceMath {
         // there's an alternative formula, if this one will not work for some reason
         // http://www.movable-type.co.uk/scripts/latlong.html
         // the site also contains live checker that can be used to verify own code.
-        double deltaLat = Math.toRadians(ad2.getLatitude() - ad1.getLatitude());
-        double deltaLon = Math.toRadians(ad2.getLongitude() - ad1.getLongitude());
-        double a = Math.pow(Math.sin(deltaLat / 2), 2)
-            + Math.pow(Math.sin(deltaLon / 2), 2)
+        double sinHalfDeltaLat = Math.sin(Math.toRadians(ad2.getLatitude() - ad1.getLatitude()) / 2);
+        double sinHalfDeltaLon = Math.sin(Math.toRadians(ad2.getLongitude() - ad1.getLongitude()) / 2);
+        double a = sinHalfDeltaLat * sinHalfDeltaLat
+            + sinHalfDeltaLon * sinHalfDeltaLon
             * Math.cos(Math.toRadians(ad1.getLatitude()))
             * Math.cos(Math.toRadians(ad2.getLatitude()));
         double c = 2 * Math.asin(Math.sqrt(a));
         double d = R * c;
 
-        LOG.debug("\nad1.IATA={} ad1.lat={} ad1.lon={}\n"
-                + "ad2.IATA={} ad2.lat={} ad2.lon={}\nd={}",
-            ad1.getIata(), ad1.getLatitude(), ad1.getLongitude(),
-            ad2.getIata(), ad2.getLatitude(), ad2.getLongitude(),
-            d);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("\nad1.IATA={} ad1.lat={} ad1.lon={}\n"
+                    + "ad2.IATA={} ad2.lat={} ad2.lon={}\nd={}",
+                ad1.getIata(), ad1.getLatitude(), ad1.getLongitude(),
+                ad2.getIata(), ad2.getLatitude(), ad2.getLongitude(),
+                d);
+        }
 
         return d;
 
     }
+
+    /**
+     * Converts coordinates into a unit vector, used by {@link #calculateDistances}.
+     *
+     * @param latitude  latitude in degrees
+     * @param longitude longitude in degrees
+     * @return [cos(lat) * cos(lon), cos(lat) * sin(lon), sin(lat)]
+     */
+    public static double[] toUnitVector(final double latitude, final double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        return new double[]{cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)};
+    }
+
+    /**
+     * Haversine distances from one point to a contiguous range of points, all given as unit vectors
+     * {@link #toUnitVector(double, double)}.
+     * <p>
+     * Uses the fact that haversine of central angle equals quarter of squared chord length between
+     * unit vectors, so no trigonometry except final arcsine is required.
+     *
+     * @param x         X component of the point
+     * @param y         Y component of the point
+     * @param z         Z component of the point
+     * @param xs        X components of other points
+     * @param ys        Y components of other points
+     * @param zs        Z components of other points
+     * @param from      first index of the range, inclusive
+     * @param to        last index of the range, exclusive
+     * @param distances output, distance to point at index (from + i) is stored at index i, in KM
+     */
+    public static void calculateDistances(final double x, final double y, final double z,
+                                          final double[] xs, final double[] ys, final double[] zs,
+                                          final int from, final int to, final double[] distances) {
+        for (int i = from; i < to; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double dz = zs[i] - z;
+            double halfChord = 0.5 * Math.sqrt(dx * dx + dy * dy + dz * dz);
+            distances[i - from] = 2 * R * Math.asin(Math.min(1.0, halfChord));
+        }
+    }
 }
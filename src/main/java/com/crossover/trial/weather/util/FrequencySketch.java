@@ -0,0 +1,123 @@
+package com.crossover.trial.weather.util;
+
+/**
+ * Count-min sketch estimating recent popularity of keys, used as TinyLFU cache admission policy.
+ * <p>
+ * Keeps four 4-bit counters per key spread over a table of longs (16 counters each). Once number
+ * of recorded accesses reaches the sample size, all counters are halved, so estimation follows
+ * changes in popularity. See https://arxiv.org/abs/1512.00727
+ * <p>
+ * Counters are updated without synchronization: occasionally lost increments are an acceptable
+ * price for keeping cache reads lock-free. Every update checks and writes the same read of a table element,
+ * so a race can't overflow a saturated counter into its neighbour.
+ */
+public final class FrequencySketch {
+
+    /**
+     * Maximum value of a 4-bit counter.
+     */
+    private static final int MAX_FREQUENCY = 15;
+
+    /**
+     * Seeds of the four hash functions.
+     */
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * Mask of the one-bit in every 4-bit counter, used to halve all of them at once.
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * Counters, 16 per element.
+     */
+    private final long[] table;
+
+    /**
+     * Number of recorded accesses after which counters are halved.
+     */
+    private final int sampleSize;
+
+    /**
+     * Number of accesses recorded since last halving.
+     */
+    private int size;
+
+    /**
+     * Creates sketch.
+     *
+     * @param expectedKeys expected number of keys the sketch should distinguish
+     */
+    public FrequencySketch(final int expectedKeys) {
+        int tableSize = Integer.highestOneBit(Math.max(256, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+        table = new long[tableSize];
+        sampleSize = 10 * tableSize;
+    }
+
+    /**
+     * Records access to the key.
+     *
+     * @param hashCode hash code of the key
+     */
+    public void increment(final int hashCode) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hashCode, i);
+            int offset = offsetOf(hashCode, i);
+            // word is read once, so a racing increment is lost instead of overflowing into the next counter
+            long word = table[index];
+            if (((word >>> offset) & MAX_FREQUENCY) != MAX_FREQUENCY) {
+                table[index] = word + (1L << offset);
+                added = true;
+            }
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * @param hashCode hash code of the key
+     * @return estimated number of recent accesses to the key, [0, 15]
+     */
+    public int frequency(final int hashCode) {
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long counter = (table[indexOf(hashCode, i)] >>> offsetOf(hashCode, i)) & MAX_FREQUENCY;
+            frequency = Math.min(frequency, (int) counter);
+        }
+        return frequency;
+    }
+
+    /**
+     * Halves all counters.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size /= 2;
+    }
+
+    /**
+     * @param hashCode hash code of the key
+     * @param function number of hash function
+     * @return index of the table element holding the counter
+     */
+    private int indexOf(final int hashCode, final int function) {
+        long hash = (hashCode + SEEDS[function]) * SEEDS[function];
+        hash += hash >>> 32;
+        return (int) hash & (table.length - 1);
+    }
+
+    /**
+     * @param hashCode hash code of the key
+     * @param function number of hash function
+     * @return bit offset of the counter within the table element
+     */
+    private static int offsetOf(final int hashCode, final int function) {
+        int spread = hashCode * 0x9e3779b9;
+        return (((spread >>> (function * 8)) & 3) << 2) + (function << 4);
+    }
+}
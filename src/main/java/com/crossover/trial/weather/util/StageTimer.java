@@ -0,0 +1,117 @@
+package com.crossover.trial.weather.util;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread accumulator of time spent in stages of request handling.
+ * <p>
+ * Request handling is bound to a thread, so stages record into a timer of the current thread, which is
+ * reset at the start of every request. Recording takes two {@link System#nanoTime()} calls and does not allocate.
+ * <pre>
+ * long begin = StageTimer.begin();
+ * ...
+ * StageTimer.end(StageTimer.Stage.SCAN, begin);
+ * </pre>
+ */
+public final class StageTimer {
+
+    /**
+     * Timed stages.
+     */
+    public enum Stage {
+        /**
+         * Lookup and store of radius query results in cache.
+         */
+        CACHE("cache"),
+        /**
+         * Search of spatial index cells intersecting the query circle.
+         */
+        SCAN("scan"),
+        /**
+         * Calculation of distances to candidate airports.
+         */
+        FILTER("filter"),
+        /**
+         * Copying of atmospheric information of found airports.
+         */
+        SNAPSHOT("snapshot"),
+        /**
+         * Writing of response entity.
+         */
+        SERIALIZE("serialize");
+
+        /**
+         * Name of the stage in metrics and Server-Timing header.
+         */
+        private final String label;
+
+        /**
+         * @param label name of the stage in metrics and Server-Timing header
+         */
+        Stage(final String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return name of the stage in metrics and Server-Timing header
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Timer of the current thread.
+     */
+    private static final ThreadLocal<StageTimer> CURRENT = ThreadLocal.withInitial(StageTimer::new);
+
+    /**
+     * Time spent in stages since reset, in nanoseconds, indexed by ordinal of stage.
+     */
+    private final long[] durations = new long[Stage.values().length];
+
+    /**
+     * Hide constructor, timers are bound to threads.
+     */
+    private StageTimer() {
+    }
+
+    /**
+     * @return timer of the current thread
+     */
+    public static StageTimer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return start time of a stage, to be passed to {@link #end(Stage, long)}
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds time since the start of the stage to the timer of the current thread.
+     *
+     * @param stage stage
+     * @param begin start time of the stage returned by {@link #begin()}
+     */
+    public static void end(final Stage stage, final long begin) {
+        CURRENT.get().durations[stage.ordinal()] += System.nanoTime() - begin;
+    }
+
+    /**
+     * Clears time spent in all stages.
+     */
+    public void reset() {
+        Arrays.fill(durations, 0);
+    }
+
+    /**
+     * @param stage stage
+     * @return time spent in the stage since reset, in nanoseconds
+     */
+    public long get(final Stage stage) {
+        return durations[stage.ordinal()];
+    }
+}
@@ -0,0 +1,187 @@
+package com.crossover.trial.weather.util;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.service.WeatherUpdate;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-layout binary encoding of weather updates, an alternative to json for collectors.
+ * <p>
+ * Update is {@value #UPDATE_SIZE} bytes, big-endian:
+ * <pre>
+ * int    iata       3 letter code packed by {@link #packIata(String)}
+ * byte   pointType  ordinal of {@link DataPointType}
+ * double mean
+ * int    first
+ * int    second
+ * int    third
+ * int    count
+ * </pre>
+ * Data point alone ({@value #DATA_POINT_SIZE} bytes) is the last five fields. Updates of a batch or a stream
+ * follow each other without separators.
+ */
+public final class WeatherUpdateCodec {
+
+    /**
+     * Media type of binary encoded updates.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.weather.update+binary";
+
+    /**
+     * Size of encoded data point in bytes.
+     */
+    public static final int DATA_POINT_SIZE = 8 + 4 * 4;
+
+    /**
+     * Size of encoded update in bytes.
+     */
+    public static final int UPDATE_SIZE = 4 + 1 + DATA_POINT_SIZE;
+
+    /**
+     * Bits per packed letter.
+     */
+    private static final int LETTER_BITS = 5;
+
+    /**
+     * Number of letters in IATA code.
+     */
+    private static final int IATA_LENGTH = 3;
+
+    /**
+     * Point types by ordinal.
+     */
+    private static final DataPointType[] POINT_TYPES = DataPointType.values();
+
+    /**
+     * Decoded IATA codes by packed value, filled lazily so decoding does not allocate strings.
+     */
+    private static final String[] IATA_CODES = new String[1 << (LETTER_BITS * IATA_LENGTH)];
+
+    /**
+     * Hide utility class constructor.
+     */
+    private WeatherUpdateCodec() {
+    }
+
+    /**
+     * Packs IATA code of three uppercase letters, 5 bits per letter ('A' is 1).
+     *
+     * @param iata IATA code
+     * @return packed code, positive, or -1 if the code is not three uppercase letters
+     */
+    public static int packIata(final String iata) {
+        if (iata == null || iata.length() != IATA_LENGTH) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < IATA_LENGTH; i++) {
+            char letter = iata.charAt(i);
+            if (letter < 'A' || letter > 'Z') {
+                return -1;
+            }
+            packed = packed << LETTER_BITS | (letter - 'A' + 1);
+        }
+        return packed;
+    }
+
+    /**
+     * @param packed packed IATA code
+     * @return IATA code or <code>null</code> if the value is not a packed code
+     */
+    public static String unpackIata(final int packed) {
+        if (packed <= 0 || packed >= IATA_CODES.length) {
+            return null;
+        }
+        String iata = IATA_CODES[packed];
+        if (iata == null) {
+            char[] letters = new char[IATA_LENGTH];
+            for (int i = IATA_LENGTH - 1, rest = packed; i >= 0; i--, rest >>>= LETTER_BITS) {
+                int letter = rest & ((1 << LETTER_BITS) - 1);
+                if (letter == 0 || letter > 'Z' - 'A' + 1) {
+                    return null;
+                }
+                letters[i] = (char) ('A' + letter - 1);
+            }
+            iata = new String(letters);
+            // racy publication is fine, strings are immutable and equal
+            IATA_CODES[packed] = iata;
+        }
+        return iata;
+    }
+
+    /**
+     * Writes an update.
+     *
+     * @param out       destination
+     * @param iata      IATA code of three uppercase letters
+     * @param pointType type of the data point
+     * @param dataPoint data point
+     * @throws IOException if writing fails
+     */
+    public static void write(final DataOutput out, final String iata, final DataPointType pointType,
+                             final DataPoint dataPoint) throws IOException {
+        int packed = packIata(iata);
+        if (packed < 0) {
+            throw new IllegalArgumentException("IATA code can not be packed: " + iata);
+        }
+        out.writeInt(packed);
+        out.writeByte(pointType.ordinal());
+        writeDataPoint(out, dataPoint);
+    }
+
+    /**
+     * Writes a data point.
+     *
+     * @param out       destination
+     * @param dataPoint data point
+     * @throws IOException if writing fails
+     */
+    public static void writeDataPoint(final DataOutput out, final DataPoint dataPoint) throws IOException {
+        out.writeDouble(dataPoint.getMean());
+        out.writeInt(dataPoint.getFirst());
+        out.writeInt(dataPoint.getSecond());
+        out.writeInt(dataPoint.getThird());
+        out.writeInt(dataPoint.getCount());
+    }
+
+    /**
+     * Reads next update. Unknown IATA code or point type are read as <code>null</code>.
+     *
+     * @param in source
+     * @return update or <code>null</code> at the end of stream
+     * @throws IOException if reading fails, {@link java.io.EOFException} if the stream ends within an update
+     */
+    public static WeatherUpdate read(final DataInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int packed = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedShort();
+        int ordinal = in.readUnsignedByte();
+        DataPoint dataPoint = readDataPoint(in);
+        return new WeatherUpdate(unpackIata(packed), ordinal < POINT_TYPES.length ? POINT_TYPES[ordinal] : null,
+            dataPoint);
+    }
+
+    /**
+     * Reads a data point.
+     *
+     * @param in source
+     * @return data point
+     * @throws IOException if reading fails
+     */
+    public static DataPoint readDataPoint(final DataInput in) throws IOException {
+        return new DataPoint.Builder()
+            .withMean(in.readDouble())
+            .withFirst(in.readInt())
+            .withMedian(in.readInt())
+            .withLast(in.readInt())
+            .withCount(in.readInt())
+            .build();
+    }
+}
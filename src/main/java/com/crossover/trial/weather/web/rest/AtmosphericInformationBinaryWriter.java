@@ -0,0 +1,52 @@
+package com.crossover.trial.weather.web.rest;
+
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.util.AtmosphericInformationCodec;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Writes lists of {@link AtmosphericInformation} in binary layout of {@link AtmosphericInformationCodec}.
+ * Entity must be wrapped in {@link javax.ws.rs.core.GenericEntity}, so its element type is known.
+ */
+@Provider
+@Produces(AtmosphericInformationCodec.MEDIA_TYPE)
+public class AtmosphericInformationBinaryWriter implements MessageBodyWriter<Collection<AtmosphericInformation>> {
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations,
+                               final MediaType mediaType) {
+        return Collection.class.isAssignableFrom(type)
+            && genericType instanceof ParameterizedType
+            && ((ParameterizedType) genericType).getActualTypeArguments()[0] == AtmosphericInformation.class;
+    }
+
+    @Override
+    public long getSize(final Collection<AtmosphericInformation> entries, final Class<?> type,
+                        final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final Collection<AtmosphericInformation> entries, final Class<?> type,
+                        final Type genericType, final Annotation[] annotations, final MediaType mediaType,
+                        final MultivaluedMap<String, Object> httpHeaders,
+                        final OutputStream entityStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(entityStream));
+        AtmosphericInformationCodec.write(out, entries);
+        // entity stream is closed by the container
+        out.flush();
+    }
+}
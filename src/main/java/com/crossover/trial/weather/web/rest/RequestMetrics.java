@@ -0,0 +1,329 @@
+package com.crossover.trial.weather.web.rest;
+
+import com.crossover.trial.weather.util.StageTimer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.ws.rs.Path;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and throughput of REST endpoints, recorded by {@link RequestMetricsFilter}, and latency of
+ * {@link StageTimer.Stage stages} of weather queries, recorded by {@link ServerTimingFilter}.
+ * <p>
+ * Latencies are recorded into HdrHistogram {@link Recorder}s, which do not allocate nor lock on the request
+ * path. Percentiles and rate are computed over fixed intervals closed by {@link #rollover()}, so every scrape
+ * reports recent behaviour and concurrent scrapers see the same data; request counts and total latency are
+ * cumulative.
+ */
+@Component
+public class RequestMetrics {
+
+    /**
+     * Highest recorded latency in nanoseconds, longer latencies are recorded as this one.
+     */
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Number of significant decimal digits of recorded latencies.
+     */
+    private static final int PRECISION = 3;
+
+    /**
+     * Statistics of endpoints [resource method -> statistics].
+     */
+    private final ConcurrentMap<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Statistics of stages [stage -> statistics].
+     */
+    private final Map<StageTimer.Stage, Endpoint> stages = new EnumMap<>(StageTimer.Stage.class);
+
+    /**
+     * Creates statistics of all stages up front, so recording does not modify the map.
+     */
+    public RequestMetrics() {
+        for (StageTimer.Stage stage : StageTimer.Stage.values()) {
+            stages.put(stage, new Endpoint(stage.getLabel()));
+        }
+    }
+
+    /**
+     * Records a handled request.
+     *
+     * @param method  resource method which handled the request
+     * @param latency time spent handling the request, in nanoseconds
+     * @param status  HTTP status of the response
+     */
+    public void record(final Method method, final long latency, final int status) {
+        Endpoint endpoint = endpoints.get(method);
+        if (endpoint == null) {
+            endpoint = endpoints.computeIfAbsent(method, Endpoint::new);
+        }
+        endpoint.record(latency);
+        if (status >= 500) {
+            endpoint.errors.increment();
+        }
+    }
+
+    /**
+     * Records time spent in a stage of a request.
+     *
+     * @param stage   stage
+     * @param latency time spent in the stage, in nanoseconds
+     */
+    public void recordStage(final StageTimer.Stage stage, final long latency) {
+        stages.get(stage).record(latency);
+    }
+
+    /**
+     * Closes the current interval of all endpoints and stages, its percentiles and rate are reported until
+     * the next one is closed.
+     */
+    @Scheduled(initialDelayString = "${weather.metrics.interval:10000}",
+        fixedRateString = "${weather.metrics.interval:10000}")
+    public void rollover() {
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.rollover();
+        }
+        for (Endpoint stage : stages.values()) {
+            stage.rollover();
+        }
+    }
+
+    /**
+     * @return statistics of endpoints which handled a request, with percentiles of the last closed interval
+     */
+    public List<Snapshot> snapshot() {
+        List<Snapshot> result = new ArrayList<>();
+        for (Endpoint endpoint : endpoints.values()) {
+            result.add(endpoint.snapshot());
+        }
+        result.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return result;
+    }
+
+    /**
+     * @return statistics of stages in order of handling, with percentiles of the last closed interval
+     */
+    public List<Snapshot> stageSnapshot() {
+        List<Snapshot> result = new ArrayList<>();
+        for (Endpoint stage : stages.values()) {
+            result.add(stage.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Statistics of an endpoint or a stage.
+     */
+    private static final class Endpoint {
+
+        /**
+         * Name of the endpoint or the stage.
+         */
+        private final String name;
+
+        /**
+         * Latencies of the current interval.
+         */
+        private final Recorder recorder = new Recorder(MAX_LATENCY, PRECISION);
+
+        /**
+         * Number of requests.
+         */
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * Sum of latencies, in nanoseconds.
+         */
+        private final LongAdder totalLatency = new LongAdder();
+
+        /**
+         * Number of responses with server error status.
+         */
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * Reused histogram of latencies taken from the recorder, guarded by this.
+         */
+        private Histogram recycled;
+
+        /**
+         * Latencies in the last closed interval, guarded by this.
+         */
+        private Histogram interval = new Histogram(MAX_LATENCY, PRECISION);
+
+        /**
+         * Requests per second in the last closed interval, guarded by this.
+         */
+        private double rate;
+
+        /**
+         * End of the last closed interval, in nanoseconds, guarded by this.
+         */
+        private long previous = System.nanoTime();
+
+        /**
+         * @param method resource method
+         */
+        private Endpoint(final Method method) {
+            this(nameOf(method));
+        }
+
+        /**
+         * @param name name of the endpoint or the stage
+         */
+        private Endpoint(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param method resource method
+         * @return path of its resource and name of the method
+         */
+        private static String nameOf(final Method method) {
+            Path path = AnnotationUtils.findAnnotation(method.getDeclaringClass(), Path.class);
+            return (path == null ? method.getDeclaringClass().getSimpleName() : path.value().replace("/", ""))
+                + "." + method.getName();
+        }
+
+        /**
+         * @param latency latency in nanoseconds
+         */
+        private void record(final long latency) {
+            recorder.recordValue(Math.min(Math.max(latency, 0), MAX_LATENCY));
+            count.increment();
+            totalLatency.add(latency);
+        }
+
+        /**
+         * Closes the current interval.
+         */
+        private synchronized void rollover() {
+            recycled = recorder.getIntervalHistogram(recycled);
+            long now = System.nanoTime();
+            rate = recycled.getTotalCount() / (Math.max(now - previous, 1) / 1e9);
+            previous = now;
+            interval = recycled.copy();
+        }
+
+        /**
+         * @return statistics with percentiles of the last closed interval
+         */
+        private synchronized Snapshot snapshot() {
+            // closed intervals are not modified, so snapshots can share them
+            return new Snapshot(name, interval, rate, count.sum(), totalLatency.sum(), errors.sum());
+        }
+    }
+
+    /**
+     * Statistics of an endpoint or a stage at a point in time.
+     */
+    public static final class Snapshot {
+
+        /**
+         * Name of the endpoint, path of its resource and name of its method.
+         */
+        private final String name;
+
+        /**
+         * Latencies in the last closed interval, in nanoseconds.
+         */
+        private final Histogram interval;
+
+        /**
+         * Requests per second in the last closed interval.
+         */
+        private final double rate;
+
+        /**
+         * Number of requests.
+         */
+        private final long count;
+
+        /**
+         * Sum of latencies, in nanoseconds.
+         */
+        private final long totalLatency;
+
+        /**
+         * Number of responses with server error status.
+         */
+        private final long errors;
+
+        /**
+         * Initializing constructor.
+         *
+         * @param name         name of the endpoint
+         * @param interval     latencies in the last closed interval, in nanoseconds
+         * @param rate         requests per second in the last closed interval
+         * @param count        number of requests
+         * @param totalLatency sum of latencies, in nanoseconds
+         * @param errors       number of responses with server error status
+         */
+        private Snapshot(final String name, final Histogram interval, final double rate, final long count,
+                         final long totalLatency, final long errors) {
+            this.name = name;
+            this.interval = interval;
+            this.rate = rate;
+            this.count = count;
+            this.totalLatency = totalLatency;
+            this.errors = errors;
+        }
+
+        /**
+         * @return name of the endpoint, path of its resource and name of its method
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param percentile percentile, from 0 to 100
+         * @return latency at the percentile in the last closed interval, in nanoseconds
+         */
+        public long getLatency(final double percentile) {
+            return interval.getValueAtPercentile(percentile);
+        }
+
+        /**
+         * @return requests per second in the last closed interval
+         */
+        public double getRate() {
+            return rate;
+        }
+
+        /**
+         * @return number of requests
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return sum of latencies, in nanoseconds
+         */
+        public long getTotalLatency() {
+            return totalLatency;
+        }
+
+        /**
+         * @return number of responses with server error status
+         */
+        public long getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.crossover.trial.weather.web.rest;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Records latency of every request handled by a resource method into {@link RequestMetrics}. Latency is
+ * measured from the request being matched to the response being ready to be written. Unmatched requests
+ * are not recorded.
+ */
+@Provider
+@Component
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * Start of handling of the current request, in nanoseconds. Requests are handled by a single thread, and a
+     * reused holder does not box the time into a request property.
+     */
+    private static final ThreadLocal<long[]> START = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Collected metrics.
+     */
+    @Inject
+    private RequestMetrics requestMetrics;
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        START.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+        ResourceMethod resourceMethod = ((ExtendedUriInfo) requestContext.getUriInfo()).getMatchedResourceMethod();
+        if (resourceMethod != null) {
+            requestMetrics.record(resourceMethod.getInvocable().getHandlingMethod(),
+                System.nanoTime() - START.get()[0], responseContext.getStatus());
+        }
+    }
+}
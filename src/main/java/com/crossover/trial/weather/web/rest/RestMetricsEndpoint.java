@@ -0,0 +1,183 @@
+package com.crossover.trial.weather.web.rest;
+
+import org.springframework.boot.actuate.endpoint.MetricsEndpoint;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes metrics in Prometheus text exposition format.
+ * <p>
+ * Latencies of endpoints and stages of weather queries are summaries in milliseconds, labelled by endpoint
+ * or stage and quantile; quantiles cover the last closed interval of {@link RequestMetrics#rollover()}, sums
+ * and counts are cumulative. Request and error counts are counters labelled by endpoint. Other actuator
+ * metrics are exported as gauges, or counters if their name starts with <code>counter.</code>; their names are
+ * converted to Prometheus names by replacing characters other than letters, digits, underscores and colons
+ * with underscores.
+ */
+@Component
+@Path("/metrics")
+public class RestMetricsEndpoint {
+
+    /**
+     * Content type of Prometheus text exposition format.
+     */
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Reported latency quantiles.
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+
+    /**
+     * Latency and throughput of REST endpoints and stages.
+     */
+    @Inject
+    private RequestMetrics requestMetrics;
+
+    /**
+     * Actuator metrics.
+     */
+    @Inject
+    private MetricsEndpoint metricsEndpoint;
+
+    /**
+     * @return metrics, one sample per line, grouped by metric
+     */
+    @GET
+    @Path("/prometheus")
+    @Produces(PROMETHEUS_TEXT)
+    public String prometheus() {
+        return render(requestMetrics, metricsEndpoint.invoke());
+    }
+
+    /**
+     * @param requestMetrics latency and throughput of REST endpoints and stages
+     * @param metrics        actuator metrics, those of {@link RequestMetrics} are skipped
+     * @return metrics in Prometheus text exposition format
+     */
+    static String render(final RequestMetrics requestMetrics, final Map<String, Object> metrics) {
+        StringBuilder result = new StringBuilder();
+        List<RequestMetrics.Snapshot> endpoints = requestMetrics.snapshot();
+        summary(result, "http_request_latency_ms", "Latency of REST endpoints in milliseconds.", "endpoint",
+            endpoints);
+        sample(result, "http_requests_total", "counter", "Number of handled requests.", "endpoint", endpoints,
+            RequestMetrics.Snapshot::getCount);
+        sample(result, "http_request_errors_total", "counter", "Number of responses with server error status.",
+            "endpoint", endpoints, RequestMetrics.Snapshot::getErrors);
+        sample(result, "http_request_rate", "gauge", "Requests per second in the last interval.", "endpoint",
+            endpoints, RequestMetrics.Snapshot::getRate);
+        summary(result, "weather_query_stage_latency_ms", "Latency of weather query stages in milliseconds.",
+            "stage", requestMetrics.stageSnapshot());
+
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            String key = metric.getKey();
+            if (metric.getValue() instanceof Number && !key.startsWith("http.") && !key.startsWith("stage.")) {
+                String name = toPrometheusName(key);
+                result.append("# TYPE ").append(name).append(key.startsWith("counter.") ? " counter\n" : " gauge\n")
+                    .append(name).append(' ').append(((Number) metric.getValue()).doubleValue()).append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes a summary of latencies.
+     *
+     * @param result    text to append to
+     * @param name      metric name
+     * @param help      description of the metric
+     * @param label     name of the label holding endpoint or stage name
+     * @param snapshots statistics of endpoints or stages
+     */
+    private static void summary(final StringBuilder result, final String name, final String help,
+                                final String label, final List<RequestMetrics.Snapshot> snapshots) {
+        header(result, name, "summary", help);
+        for (RequestMetrics.Snapshot snapshot : snapshots) {
+            for (double quantile : QUANTILES) {
+                result.append(name).append('{').append(label).append("=\"").append(escape(snapshot.getName()))
+                    .append("\",quantile=\"").append(quantile).append("\"} ")
+                    .append(snapshot.getLatency(quantile * 100) / 1e6).append('\n');
+            }
+            labelled(result, name + "_sum", label, snapshot.getName()).append(snapshot.getTotalLatency() / 1e6)
+                .append('\n');
+            labelled(result, name + "_count", label, snapshot.getName()).append(snapshot.getCount()).append('\n');
+        }
+    }
+
+    /**
+     * Writes a single sample per endpoint.
+     *
+     * @param result    text to append to
+     * @param name      metric name
+     * @param type      metric type
+     * @param help      description of the metric
+     * @param label     name of the label holding endpoint name
+     * @param snapshots statistics of endpoints
+     * @param value     value of the sample
+     */
+    private static void sample(final StringBuilder result, final String name, final String type, final String help,
+                               final String label, final List<RequestMetrics.Snapshot> snapshots,
+                               final ToDoubleFunction<RequestMetrics.Snapshot> value) {
+        header(result, name, type, help);
+        for (RequestMetrics.Snapshot snapshot : snapshots) {
+            labelled(result, name, label, snapshot.getName()).append(value.applyAsDouble(snapshot)).append('\n');
+        }
+    }
+
+    /**
+     * @param result text to append to
+     * @param name   metric name
+     * @param type   metric type
+     * @param help   description of the metric
+     */
+    private static void header(final StringBuilder result, final String name, final String type,
+                               final String help) {
+        result.append("# HELP ").append(name).append(' ').append(help).append('\n')
+            .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * @param result text to append to
+     * @param name   metric name
+     * @param label  label name
+     * @param value  label value
+     * @return the text, followed by the metric name with the label and a space
+     */
+    private static StringBuilder labelled(final StringBuilder result, final String name, final String label,
+                                          final String value) {
+        return result.append(name).append('{').append(label).append("=\"").append(escape(value)).append("\"} ");
+    }
+
+    /**
+     * @param value label value
+     * @return value with backslashes, quotes and line feeds escaped
+     */
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * @param name actuator metric name
+     * @return valid Prometheus metric name
+     */
+    static String toPrometheusName(final String name) {
+        StringBuilder result = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            result.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_'
+                || c == ':';
+            result.append(valid ? c : '_');
+        }
+        return result.toString();
+    }
+}
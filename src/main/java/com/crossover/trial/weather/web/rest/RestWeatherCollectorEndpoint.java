@@ -3,22 +3,49 @@ package com.crossover.trial.weather.web.rest;
 import com.crossover.trial.weather.WeatherException;
 import com.crossover.trial.weather.domain.AirportData;
 import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
 import com.crossover.trial.weather.repository.AirportDataRepository;
+import com.crossover.trial.weather.repository.WriteAheadLog;
+import com.crossover.trial.weather.service.FlightRecorderService;
+import com.crossover.trial.weather.service.UpdateStatus;
+import com.crossover.trial.weather.service.WeatherUpdate;
+import com.crossover.trial.weather.service.WeatherUpdateService;
+import com.crossover.trial.weather.util.WeatherUpdateCodec;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 
@@ -53,6 +80,24 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
     @Inject
     private AirportDataRepository airportDataRepository;
 
+    /**
+     * Applies collected data points.
+     */
+    @Inject
+    private WeatherUpdateService weatherUpdateService;
+
+    /**
+     * Log of modifications, responses are sent once modifications of the request are committed.
+     */
+    @Inject
+    private WriteAheadLog writeAheadLog;
+
+    /**
+     * On-demand flight recordings.
+     */
+    @Inject
+    private FlightRecorderService flightRecorderService;
+
     @Override
     @GET
     @Path("/ping")
@@ -60,6 +105,47 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
         return Response.status(Response.Status.OK).entity("ready").build();
     }
 
+    @Override
+    @POST
+    @Path("/recording")
+    public Response startRecording(@QueryParam("duration") final String durationString) {
+        try {
+            if (!flightRecorderService.start(NumberUtils.toLong(durationString, 0L))) {
+                return Response.status(Response.Status.CONFLICT).build();
+            }
+        } catch (IOException e) {
+            LOG.error("Could not start flight recording", e);
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+        }
+        return Response.status(Response.Status.OK).build();
+    }
+
+    @Override
+    @DELETE
+    @Path("/recording")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response stopRecording() {
+        java.nio.file.Path file;
+        try {
+            file = flightRecorderService.stop();
+        } catch (IOException e) {
+            LOG.error("Could not write flight recording", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        }
+        if (file == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        StreamingOutput recording = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                FlightRecorderService.deleteQuietly(file);
+            }
+        };
+        return Response.status(Response.Status.OK).entity(recording)
+            .header("Content-Disposition", "attachment; filename=\"" + file.getFileName() + "\"").build();
+    }
+
     @Override
     @POST
     @Path("/weather/{iata}/{pointType}")
@@ -71,7 +157,113 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
         } catch (WeatherException e) {
             LOG.error("An error occurred while updating weather", e);
         }
-        return Response.status(Response.Status.OK).build();
+        return committed(Response.status(Response.Status.OK));
+    }
+
+    @Override
+    @POST
+    @Path("/weather/{iata}/{pointType}")
+    @Consumes(WeatherUpdateCodec.MEDIA_TYPE)
+    public Response updateWeatherBinary(@PathParam("iata") final String iataCode,
+                                        @PathParam("pointType") final String pointType,
+                                        final InputStream dataPoint) {
+        try {
+            addDataPoint(iataCode, pointType, WeatherUpdateCodec.readDataPoint(new DataInputStream(dataPoint)));
+        } catch (IOException e) {
+            LOG.warn("Malformed binary data point", e);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } catch (WeatherException e) {
+            LOG.error("An error occurred while updating weather", e);
+        }
+        return committed(Response.status(Response.Status.OK));
+    }
+
+    @Override
+    @POST
+    @Path("/weather/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateWeatherBatch(final InputStream body) {
+        List<WeatherUpdate> updates = new ArrayList<>();
+        WeatherUpdateReader updateReader = new WeatherUpdateReader(gson);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.peek() != JsonToken.END_ARRAY) {
+                updates.add(updateReader.read(reader));
+            }
+            reader.endArray();
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            LOG.warn("Malformed weather batch after {} updates", updates.size(), e);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        UpdateStatus[] statuses = weatherUpdateService.updateAll(updates);
+        return committed(Response.status(Response.Status.OK).entity(gson.toJson(summary(statuses))));
+    }
+
+    @Override
+    @POST
+    @Path("/weather/batch")
+    @Consumes(WeatherUpdateCodec.MEDIA_TYPE)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateWeatherBatchBinary(final InputStream body) {
+        List<WeatherUpdate> updates = new ArrayList<>();
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(body));
+            for (WeatherUpdate update = WeatherUpdateCodec.read(in); update != null;
+                 update = WeatherUpdateCodec.read(in)) {
+                updates.add(update);
+            }
+        } catch (IOException e) {
+            LOG.warn("Malformed binary weather batch after {} updates", updates.size(), e);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        UpdateStatus[] statuses = weatherUpdateService.updateAll(updates);
+        return committed(Response.status(Response.Status.OK).entity(gson.toJson(summary(statuses))));
+    }
+
+    @Override
+    @POST
+    @Path("/weather/stream")
+    @Consumes({"application/x-ndjson", MediaType.TEXT_PLAIN})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateWeatherStream(final InputStream body) {
+        Map<UpdateStatus, Integer> counts = new EnumMap<>(UpdateStatus.class);
+        WeatherUpdateReader updateReader = new WeatherUpdateReader(gson);
+        Response.Status status = Response.Status.OK;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            // lenient reader accepts a sequence of top level values
+            reader.setLenient(true);
+            while (reader.peek() != JsonToken.END_DOCUMENT) {
+                counts.merge(weatherUpdateService.update(updateReader.read(reader)), 1, Integer::sum);
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            LOG.warn("Malformed weather stream after {} updates", total(counts), e);
+            status = Response.Status.BAD_REQUEST;
+        }
+        return committed(Response.status(status).entity(gson.toJson(summary(counts))));
+    }
+
+    @Override
+    @POST
+    @Path("/weather/stream")
+    @Consumes(WeatherUpdateCodec.MEDIA_TYPE)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateWeatherStreamBinary(final InputStream body) {
+        Map<UpdateStatus, Integer> counts = new EnumMap<>(UpdateStatus.class);
+        Response.Status status = Response.Status.OK;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(body));
+            for (WeatherUpdate update = WeatherUpdateCodec.read(in); update != null;
+                 update = WeatherUpdateCodec.read(in)) {
+                counts.merge(weatherUpdateService.update(update), 1, Integer::sum);
+            }
+        } catch (IOException e) {
+            LOG.warn("Malformed binary weather stream after {} updates", total(counts), e);
+            status = Response.Status.BAD_REQUEST;
+        }
+        return committed(Response.status(status).entity(gson.toJson(summary(counts))));
     }
 
     @Override
@@ -102,7 +294,7 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
                                @PathParam("lat") final String latString,
                                @PathParam("long") final String longString) {
         addAirport(iata, Double.valueOf(latString), Double.valueOf(longString));
-        return Response.status(Response.Status.OK).build();
+        return committed(Response.status(Response.Status.OK));
     }
 
     @Override
@@ -110,7 +302,7 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
     @Path("/airport/{iata}")
     public Response deleteAirport(@PathParam("iata") final String iata) {
         airportDataRepository.delete(iata);
-        return Response.status(Response.Status.OK).build();
+        return committed(Response.status(Response.Status.OK));
     }
 
     @Override
@@ -135,10 +327,67 @@ public class RestWeatherCollectorEndpoint implements WeatherCollectorEndpoint {
      */
     private void addDataPoint(final String iataCode, final String pointType,
                               final DataPoint dataPoint) throws WeatherException {
-        AirportData airportData = airportDataRepository.findOne(iataCode);
-        if (airportData != null) {
-            airportData.getAtmosphericInformation().update(pointType, dataPoint);
+        weatherUpdateService.update(iataCode, DataPointType.valueOf(pointType.toUpperCase()), dataPoint);
+    }
+
+    /**
+     * Waits until modifications made by the request are committed to the write-ahead log.
+     *
+     * @param response response to the request
+     * @return the response, or 503 if modifications could not be logged
+     */
+    private Response committed(final Response.ResponseBuilder response) {
+        if (!writeAheadLog.sync()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+        }
+        return response.build();
+    }
+
+    /**
+     * @param statuses status of each update
+     * @return number of applied updates and index and status of the rejected ones
+     */
+    private static Map<String, Object> summary(final UpdateStatus[] statuses) {
+        int applied = 0;
+        List<Map<String, Object>> rejected = new ArrayList<>();
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == UpdateStatus.OK) {
+                applied++;
+            } else {
+                Map<String, Object> item = new HashMap<>();
+                item.put("index", i);
+                item.put("status", statuses[i]);
+                rejected.add(item);
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("applied", applied);
+        result.put("rejected", rejected);
+        return result;
+    }
+
+    /**
+     * @param counts number of updates per status
+     * @return number of applied updates and number of rejected ones per status
+     */
+    private static Map<String, Object> summary(final Map<UpdateStatus, Integer> counts) {
+        Map<UpdateStatus, Integer> rejected = new EnumMap<>(counts);
+        Map<String, Object> result = new HashMap<>();
+        result.put("applied", Optional.ofNullable(rejected.remove(UpdateStatus.OK)).orElse(0));
+        result.put("rejected", rejected);
+        return result;
+    }
+
+    /**
+     * @param counts number of updates per status
+     * @return total number of updates
+     */
+    private static int total(final Map<UpdateStatus, Integer> counts) {
+        int total = 0;
+        for (int count : counts.values()) {
+            total += count;
         }
+        return total;
     }
 
     /**
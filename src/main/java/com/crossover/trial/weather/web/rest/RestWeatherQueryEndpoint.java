@@ -1,9 +1,17 @@
 package com.crossover.trial.weather.web.rest;
 
-import com.crossover.trial.weather.domain.AirportData;
 import com.crossover.trial.weather.domain.AtmosphericInformation;
-import com.crossover.trial.weather.repository.AirportDataRepository;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.domain.RollupSeries;
+import com.crossover.trial.weather.domain.TimeSeries;
+import com.crossover.trial.weather.repository.WeatherHistory;
+import com.crossover.trial.weather.repository.WeatherRollups;
+import com.crossover.trial.weather.service.FlightEvents;
+import com.crossover.trial.weather.service.FreshnessIndex;
 import com.crossover.trial.weather.service.QueryService;
+import com.crossover.trial.weather.service.QueryStatistics;
+import com.crossover.trial.weather.service.RadiusQuery;
+import com.crossover.trial.weather.util.AtmosphericInformationCodec;
 import com.google.gson.Gson;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.stereotype.Component;
@@ -13,15 +21,15 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Weather App REST endpoint allows clients to query, update and check
@@ -42,35 +50,37 @@ public class RestWeatherQueryEndpoint implements WeatherQueryEndpoint {
     private Gson gson;
 
     /**
-     * Internal performance counter to better understand most requested
-     * information, this map can be improved but for now provides the basis for
-     * future performance optimizations. Due to the stateless deployment
-     * architecture we don't want to write this to disk, but will pull it off
-     * using a REST request and aggregate with other performance metrics
-     * {@link #ping()}
+     * Internal performance counters to better understand most requested
+     * information. Due to the stateless deployment architecture we don't
+     * want to write this to disk, but will pull it off using a REST request
+     * and aggregate with other performance metrics {@link #ping()}.
      */
+    @Inject
+    private QueryStatistics queryStatistics;
 
     /**
-     * Requests frequency [IATA Code -> number of requests].
+     * Query service instance.
      */
-    private static Map<String, Integer> requestFrequency = new ConcurrentHashMap<>();
+    @Inject
+    private QueryService queryService;
 
     /**
-     * Radius frequency.
+     * Recent readings of airports.
      */
-    private static Map<Double, Integer> radiusFreq = new ConcurrentHashMap<>();
+    @Inject
+    private WeatherHistory weatherHistory;
 
     /**
-     * Query service instance.
+     * Aggregated readings of airports.
      */
     @Inject
-    private QueryService queryService;
+    private WeatherRollups weatherRollups;
 
     /**
-     * Provides access to Airport Data Repository.
+     * Airports ordered by last update of atmospheric information.
      */
     @Inject
-    private AirportDataRepository airportDataRepository;
+    private FreshnessIndex freshnessIndex;
 
     /**
      * Retrieve service health including total size of valid data points and
@@ -84,40 +94,16 @@ public class RestWeatherQueryEndpoint implements WeatherQueryEndpoint {
     public String ping() {
         Map<String, Object> result = new HashMap<>();
 
-        long datasize = StreamSupport.stream(airportDataRepository.findAll().spliterator(), false)
-            .map(AirportData::getAtmosphericInformation)
-            // we only count recent readings updated in the last day
-            .filter(atmosphericInformation -> !atmosphericInformation.isEmpty()
-                && atmosphericInformation.getLastUpdateTime()
-                > System.currentTimeMillis() - ChronoUnit.DAYS.getDuration().toMillis())
-            .count();
-
+        // we only count recent readings updated in the last day
+        int datasize = freshnessIndex.countUpdatedSince(
+            System.currentTimeMillis() - ChronoUnit.DAYS.getDuration().toMillis());
         result.put("datasize", datasize);
 
         // fraction of queries
-        Map<String, Double> iataRequestFractions =
-            StreamSupport.stream(airportDataRepository.findAll().spliterator(), false)
-                .map(AirportData::getIata)
-                .collect(
-                    Collectors.toMap(iata -> iata, iata -> requestFrequency.getOrDefault(iata, 0)
-                        / (double) requestFrequency.size()));
-        result.put("iata_freq", iataRequestFractions);
-
-        // TODO: this code is very suspicious, and if I could communicate with stakeholders, I'd clarified
-        // what exactly one was trying to implement. Otherwise no chance to figure out.
-        // Most likely I'd changed this code, but since API modification is not allowed,
-        // leaving it as is.
-        // For this same reason I'm not applying any performance optimizations here.
-        int m = radiusFreq.keySet().stream()
-            .max(Double::compare)
-            .orElse(1000.0).intValue() + 1;
-
-        int[] hist = new int[m];
-        for (Map.Entry<Double, Integer> e : radiusFreq.entrySet()) {
-            int i = e.getKey().intValue() % 10;
-            hist[i] += e.getValue();
-        }
-        result.put("radius_freq", hist);
+        result.put("iata_freq", queryStatistics.getIataFrequencies());
+
+        // number of requests per radius bucket (10 km wide by default)
+        result.put("radius_freq", queryStatistics.getRadiusHistogram());
 
         return gson.toJson(result);
     }
@@ -125,6 +111,8 @@ public class RestWeatherQueryEndpoint implements WeatherQueryEndpoint {
     /**
      * Given a query in json format {'iata': CODE, 'radius': km} extracts the requested airport information and
      * return a list of matching atmosphere information.
+     * <p>
+     * Stages of the query are timed by {@link ServerTimingFilter}.
      *
      * @param iata         the iataCode
      * @param radiusString the radius in km
@@ -133,26 +121,70 @@ public class RestWeatherQueryEndpoint implements WeatherQueryEndpoint {
     @Override
     @GET
     @Path("/weather/{iata}/{radius}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, AtmosphericInformationCodec.MEDIA_TYPE + ";qs=0.5"})
+    @ServerTimed
     public Response weather(@PathParam("iata") final String iata, @PathParam("radius") final String radiusString) {
-        Double radius = NumberUtils.toDouble(radiusString, 0.0d);
-        updateRequestFrequency(iata, radius);
+        double radius = NumberUtils.toDouble(radiusString, 0.0d);
+        queryStatistics.record(iata, radius);
+
+        FlightEvents.queryStarted(iata, radius);
+        List<AtmosphericInformation> result = null;
+        try {
+            result = queryService.findWeatherInRadius(new RadiusQuery(iata, radius)).getAtmosphericInformation();
+        } finally {
+            FlightEvents.queryFinished(result == null ? -1 : result.size());
+        }
+
+        // generic entity keeps element type for the binary writer
+        return Response.status(Response.Status.OK).entity(new GenericEntity<List<AtmosphericInformation>>(result) {
+        }).build();
+    }
 
-        List<AtmosphericInformation> result = queryService.findWeatherInRadius(iata, radiusString);
+    @Override
+    @GET
+    @Path("/history/{iata}/{pointType}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response history(@PathParam("iata") final String iata, @PathParam("pointType") final String pointType,
+                            @QueryParam("from") final String fromString, @QueryParam("to") final String toString) {
+        DataPointType dataPointType = parsePointType(pointType);
+        if (dataPointType == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        long from = NumberUtils.toLong(fromString, 0L);
+        long to = NumberUtils.toLong(toString, Long.MAX_VALUE);
 
+        TimeSeries result = weatherHistory.find(iata, dataPointType, from, to);
         return Response.status(Response.Status.OK).entity(result).build();
     }
 
+    @Override
+    @GET
+    @Path("/rollup/{iata}/{pointType}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response rollup(@PathParam("iata") final String iata, @PathParam("pointType") final String pointType,
+                           @QueryParam("from") final String fromString, @QueryParam("to") final String toString,
+                           @QueryParam("resolution") final String resolutionString) {
+        DataPointType dataPointType = parsePointType(pointType);
+        if (dataPointType == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        long from = NumberUtils.toLong(fromString, 0L);
+        long to = NumberUtils.toLong(toString, Long.MAX_VALUE);
+        long resolution = TimeUnit.SECONDS.toMillis(NumberUtils.toLong(resolutionString, 60L));
+
+        RollupSeries result = weatherRollups.find(iata, dataPointType, from, to, resolution);
+        return Response.status(Response.Status.OK).entity(result).build();
+    }
 
     /**
-     * Records information about how often requests are made.
-     *
-     * @param iata   an iata code
-     * @param radius query radius
+     * @param pointType point type name, case insensitive
+     * @return point type or <code>null</code> if not known
      */
-    private void updateRequestFrequency(final String iata, final Double radius) {
-        requestFrequency.put(iata, requestFrequency.getOrDefault(iata, 0) + 1);
-        radiusFreq.put(radius, radiusFreq.getOrDefault(radius, 0) + 1);
+    private static DataPointType parsePointType(final String pointType) {
+        try {
+            return DataPointType.valueOf(pointType.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
-
 }
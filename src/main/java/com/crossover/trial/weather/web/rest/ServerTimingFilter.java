@@ -0,0 +1,111 @@
+package com.crossover.trial.weather.web.rest;
+
+import com.crossover.trial.weather.util.StageTimer;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Times {@link StageTimer.Stage stages} of requests handled by {@link ServerTimed} resource methods and
+ * records them into {@link RequestMetrics}. Stages a request did not pass through (e.g. index scan of
+ * a cached result) are not recorded.
+ * <p>
+ * If the request carries {@link #DEBUG_HEADER}, time spent in stages is returned in the Server-Timing
+ * response header, in milliseconds. Serialization is timed too, so the response entity of such requests
+ * is buffered until the header is set.
+ */
+@Provider
+@Component
+@ServerTimed
+public class ServerTimingFilter implements ContainerRequestFilter, WriterInterceptor {
+
+    /**
+     * Request header asking for Server-Timing response header.
+     */
+    public static final String DEBUG_HEADER = "X-Debug-Timing";
+
+    /**
+     * Response header with time spent in stages.
+     */
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    /**
+     * Timed stages, shared so iterating them does not copy {@link StageTimer.Stage#values()}.
+     */
+    private static final StageTimer.Stage[] STAGES = StageTimer.Stage.values();
+
+    /**
+     * Name of the request property set for requests carrying {@link #DEBUG_HEADER}.
+     */
+    static final String DEBUG = ServerTimingFilter.class.getName() + ".debug";
+
+    /**
+     * Collected metrics.
+     */
+    @Inject
+    private RequestMetrics requestMetrics;
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        StageTimer.current().reset();
+        if (requestContext.getHeaderString(DEBUG_HEADER) != null) {
+            requestContext.setProperty(DEBUG, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+        boolean debug = context.getProperty(DEBUG) != null;
+        OutputStream entityStream = context.getOutputStream();
+        ByteArrayOutputStream buffer = null;
+        if (debug) {
+            // headers are committed with the first byte of entity
+            buffer = new ByteArrayOutputStream();
+            context.setOutputStream(buffer);
+        }
+
+        long begin = StageTimer.begin();
+        try {
+            context.proceed();
+        } finally {
+            StageTimer.end(StageTimer.Stage.SERIALIZE, begin);
+            context.setOutputStream(entityStream);
+        }
+
+        StageTimer timer = StageTimer.current();
+        for (StageTimer.Stage stage : STAGES) {
+            if (timer.get(stage) > 0) {
+                requestMetrics.recordStage(stage, timer.get(stage));
+            }
+        }
+        if (debug) {
+            context.getHeaders().putSingle(SERVER_TIMING, toServerTiming(timer));
+            buffer.writeTo(entityStream);
+        }
+    }
+
+    /**
+     * @param timer time spent in stages
+     * @return value of Server-Timing header, e.g. <code>cache;dur=0.004, scan;dur=0.021</code>
+     */
+    static String toServerTiming(final StageTimer timer) {
+        StringBuilder result = new StringBuilder();
+        for (StageTimer.Stage stage : STAGES) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(stage.getLabel()).append(";dur=")
+                .append(String.format(Locale.ROOT, "%.3f", timer.get(stage) / 1e6));
+        }
+        return result.toString();
+    }
+}
@@ -1,13 +1,18 @@
 package com.crossover.trial.weather.web.rest;
 
+import com.crossover.trial.weather.util.WeatherUpdateCodec;
+
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
 
 /**
  * The interface shared to airport weather collection systems.
@@ -25,6 +30,26 @@ public interface WeatherCollectorEndpoint {
     @Path("/ping")
     Response ping();
 
+    /**
+     * Starts a flight recording of the service, bounded by configured size and duration.
+     *
+     * @param durationString duration of the recording in seconds, configured maximum if absent
+     * @return HTTP Response code, 409 if a recording was already started and not collected
+     */
+    @POST
+    @Path("/recording")
+    Response startRecording(@QueryParam("duration") String durationString);
+
+    /**
+     * Stops the flight recording and returns it.
+     *
+     * @return HTTP Response code and the recording as a .jfr file, 404 if no recording was started
+     */
+    @DELETE
+    @Path("/recording")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    Response stopRecording();
+
     /**
      * Update the airports atmospheric information for a particular pointType with
      * json formatted data point information.
@@ -42,6 +67,79 @@ public interface WeatherCollectorEndpoint {
                            @PathParam("pointType") String pointType,
                            String datapointJson);
 
+    /**
+     * Update the airports atmospheric information for a particular pointType with binary
+     * encoded data point, see {@link WeatherUpdateCodec}.
+     *
+     * @param iataCode  the 3 letter airport code
+     * @param pointType the point type,
+     *                  {@link com.crossover.trial.weather.domain.DataPointType}
+     *                  for a complete list
+     * @param dataPoint binary encoded data point
+     * @return HTTP Response code, 400 if the data point is truncated
+     */
+    @POST
+    @Path("/weather/{iata}/{pointType}")
+    @Consumes(WeatherUpdateCodec.MEDIA_TYPE)
+    Response updateWeatherBinary(@PathParam("iata") String iataCode,
+                                 @PathParam("pointType") String pointType,
+                                 InputStream dataPoint);
+
+    /**
+     * Update atmospheric information of many airports at once. Body is a json list of updates
+     * {"iata": CODE, "pointType": TYPE, "dataPoint": {mean, first, second, third, count}}, read as a stream.
+     *
+     * @param body json formatted list of updates
+     * @return HTTP Response code and json with number of applied updates and status of the rejected ones,
+     * {"applied": N, "rejected": [{"index": I, "status": STATUS}]}; 400 if the body is not a json list
+     */
+    @POST
+    @Path("/weather/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response updateWeatherBatch(InputStream body);
+
+    /**
+     * Update atmospheric information of many airports at once. Body is a sequence of binary encoded
+     * updates, see {@link WeatherUpdateCodec}.
+     *
+     * @param body binary encoded updates
+     * @return same as {@link #updateWeatherBatch(InputStream)}; 400 if the last update is truncated
+     */
+    @POST
+    @Path("/weather/batch")
+    @Consumes(WeatherUpdateCodec.MEDIA_TYPE)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response updateWeatherBatchBinary(InputStream body);
+
+    /**
+     * Update atmospheric information from a stream of newline delimited json updates (same format as
+     * in {@link #updateWeatherBatch(InputStream)}). Updates are applied as they are read, so the body
+     * may be arbitrarily long, e.g. a long-lived collector connection.
+     *
+     * @param body newline delimited json updates
+     * @return HTTP Response code and json with number of applied updates and number of rejected ones per
+     * status, {"applied": N, "rejected": {STATUS: N}}; 400 (with the same counts) if the stream is not valid json
+     */
+    @POST
+    @Path("/weather/stream")
+    @Consumes({"application/x-ndjson", MediaType.TEXT_PLAIN})
+    @Produces(MediaType.APPLICATION_JSON)
+    Response updateWeatherStream(InputStream body);
+
+    /**
+     * Update atmospheric information from a stream of binary encoded updates, see {@link WeatherUpdateCodec}.
+     * Updates are applied as they are read.
+     *
+     * @param body binary encoded updates
+     * @return same as {@link #updateWeatherStream(InputStream)}; 400 if the last update is truncated
+     */
+    @POST
+    @Path("/weather/stream")
+    @Consumes(WeatherUpdateCodec.MEDIA_TYPE)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response updateWeatherStreamBinary(InputStream body);
+
     /**
      * Return a list of known airports as a json formatted list.
      *
@@ -1,9 +1,12 @@
 package com.crossover.trial.weather.web.rest;
 
+import com.crossover.trial.weather.util.AtmosphericInformationCodec;
+
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -32,10 +35,47 @@ public interface WeatherQueryEndpoint {
      * @param iata         the three letter airport code
      * @param radiusString the radius, in km, from which to collect weather data
      * @return an HTTP Response and a list of {@link com.crossover.trial.weather.domain.AtmosphericInformation}
-     * from the requested airport and airports in the given radius
+     * from the requested airport and airports in the given radius, as json or, if requested by Accept header,
+     * in binary layout of {@link AtmosphericInformationCodec}
      */
     @GET
     @Path("/weather/{iata}/{radius}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, AtmosphericInformationCodec.MEDIA_TYPE + ";qs=0.5"})
     Response weather(@PathParam("iata") String iata, @PathParam("radius") String radiusString);
+
+    /**
+     * Retrieve readings of a data point type collected at the given airport in the given time range.
+     *
+     * @param iata       the three letter airport code
+     * @param pointType  the point type, {@link com.crossover.trial.weather.domain.DataPointType} for a complete list
+     * @param fromString start of the range, in milliseconds since UTC epoch, by default start of retention
+     * @param toString   end of the range, in milliseconds since UTC epoch, by default now
+     * @return an HTTP Response and {@link com.crossover.trial.weather.domain.TimeSeries} of readings, oldest first;
+     * 400 if the point type is not known
+     */
+    @GET
+    @Path("/history/{iata}/{pointType}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response history(@PathParam("iata") String iata, @PathParam("pointType") String pointType,
+                     @QueryParam("from") String fromString, @QueryParam("to") String toString);
+
+    /**
+     * Retrieve readings of a data point type collected at the given airport in the given time range, aggregated
+     * in buckets of the coarsest available resolution (minute, hour or day) not coarser than requested.
+     *
+     * @param iata             the three letter airport code
+     * @param pointType        the point type, {@link com.crossover.trial.weather.domain.DataPointType} for a
+     *                         complete list
+     * @param fromString       start of the range, in milliseconds since UTC epoch, by default the oldest bucket
+     * @param toString         end of the range, in milliseconds since UTC epoch, by default now
+     * @param resolutionString requested resolution, in seconds, by default a minute
+     * @return an HTTP Response and {@link com.crossover.trial.weather.domain.RollupSeries}, oldest bucket first;
+     * 400 if the point type is not known
+     */
+    @GET
+    @Path("/rollup/{iata}/{pointType}")
+    @Produces(MediaType.APPLICATION_JSON)
+    Response rollup(@PathParam("iata") String iata, @PathParam("pointType") String pointType,
+                    @QueryParam("from") String fromString, @QueryParam("to") String toString,
+                    @QueryParam("resolution") String resolutionString);
 }
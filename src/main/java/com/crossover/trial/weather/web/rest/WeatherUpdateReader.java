@@ -0,0 +1,90 @@
+package com.crossover.trial.weather.web.rest;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.service.WeatherUpdate;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Reads weather updates one by one from a json stream, {"iata": CODE, "pointType": TYPE, "dataPoint": {...}}.
+ * <p>
+ * Only a single update is held in memory at a time. Update with missing or mistyped fields is returned
+ * with the affected values set to <code>null</code>, so it can be reported without failing the others.
+ */
+final class WeatherUpdateReader {
+
+    /**
+     * Gson json to object factory.
+     */
+    private final Gson gson;
+
+    /**
+     * Initializing constructor.
+     *
+     * @param gson Gson json to object factory
+     */
+    WeatherUpdateReader(final Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Reads the next update.
+     *
+     * @param reader json stream positioned before an update
+     * @return read update
+     * @throws JsonParseException if the stream is not a valid json
+     */
+    WeatherUpdate read(final JsonReader reader) {
+        JsonElement element = gson.fromJson(reader, JsonElement.class);
+        if (element == null || !element.isJsonObject()) {
+            return new WeatherUpdate(null, null, null);
+        }
+        JsonObject object = element.getAsJsonObject();
+        return new WeatherUpdate(string(object, "iata"), pointType(string(object, "pointType")),
+            dataPoint(object.get("dataPoint")));
+    }
+
+    /**
+     * @param object json object
+     * @param name   name of the member
+     * @return string value of the member or <code>null</code>
+     */
+    private static String string(final JsonObject object, final String name) {
+        JsonElement member = object.get(name);
+        return member != null && member.isJsonPrimitive() ? member.getAsString() : null;
+    }
+
+    /**
+     * @param name point type name, case insensitive
+     * @return point type or <code>null</code> if not known
+     */
+    private static DataPointType pointType(final String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return DataPointType.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param element json representation of the data point
+     * @return data point or <code>null</code> if not valid
+     */
+    private DataPoint dataPoint(final JsonElement element) {
+        if (element == null || !element.isJsonObject()) {
+            return null;
+        }
+        try {
+            return gson.fromJson(element, DataPoint.class);
+        } catch (JsonParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
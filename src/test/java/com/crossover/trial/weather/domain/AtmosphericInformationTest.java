@@ -0,0 +1,97 @@
+package com.crossover.trial.weather.domain;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AtmosphericInformationTest {
+
+    @Test
+    public void testSnapshotIsFrozen() throws Exception {
+        AtmosphericInformation information = new AtmosphericInformation();
+        information.update(DataPointType.WIND, dataPoint(10));
+        AtmosphericInformation snapshot = information.snapshot();
+
+        information.update(DataPointType.WIND, dataPoint(20));
+        information.update(DataPointType.TEMPERATURE, dataPoint(30));
+        assertEquals(10, snapshot.getWind().getMean(), 0);
+        assertNull(snapshot.getTemperature());
+        assertEquals(20, information.getWind().getMean(), 0);
+
+        try {
+            snapshot.update(DataPointType.WIND, dataPoint(40));
+            assertTrue("snapshot updated", false);
+        } catch (UnsupportedOperationException e) {
+            assertEquals(10, snapshot.getWind().getMean(), 0);
+        }
+    }
+
+    @Test
+    public void testValidation() throws Exception {
+        AtmosphericInformation information = new AtmosphericInformation();
+        double[] invalid = {-1, 100, Double.NaN};
+        for (double mean : invalid) {
+            try {
+                information.update(DataPointType.HUMIDTY, dataPoint(mean));
+                assertTrue("accepted " + mean, false);
+            } catch (IllegalStateException e) {
+                assertTrue(information.isEmpty());
+            }
+        }
+        information.update(DataPointType.WIND, dataPoint(1000));
+        assertEquals(1000, information.get(DataPointType.WIND).getMean(), 0);
+    }
+
+    @Test
+    public void testConcurrentUpdatesAreNotLostAndSnapshotsAreConsistent() throws Exception {
+        AtmosphericInformation information = new AtmosphericInformation();
+        DataPointType[] types = DataPointType.values();
+        ExecutorService executor = Executors.newFixedThreadPool(types.length + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (DataPointType type : types) {
+            writers.add(executor.submit(() -> {
+                for (int i = 1; i <= 5000; i++) {
+                    information.update(type, dataPoint(type.min() + i % 2));
+                }
+                return null;
+            }));
+        }
+        Future<?> reader = executor.submit(() -> {
+            while (running.get()) {
+                AtmosphericInformation snapshot = information.snapshot();
+                long lastUpdateTime = snapshot.getLastUpdateTime();
+                boolean empty = snapshot.isEmpty();
+                assertEquals(lastUpdateTime, snapshot.getLastUpdateTime());
+                assertEquals(empty, snapshot.isEmpty());
+            }
+            return null;
+        });
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        running.set(false);
+        reader.get();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // last update of every type was even
+        for (DataPointType type : types) {
+            assertEquals(type.min(), information.get(type).getMean(), 0);
+        }
+    }
+
+    private static DataPoint dataPoint(final double mean) {
+        return new DataPoint.Builder().withMean(mean).withFirst(1).withMedian(2).withLast(3).withCount(4).build();
+    }
+}
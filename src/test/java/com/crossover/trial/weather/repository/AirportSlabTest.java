@@ -0,0 +1,104 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AirportSlabTest {
+
+    private AirportSlab _slab;
+
+    private AirportData _bos;
+
+    @Before
+    public void setUp() throws Exception {
+        _slab = new AirportSlab();
+        _bos = new AirportData();
+        _bos.setIata("BOS");
+        _bos.setLatitude(42.364347);
+        _bos.setLongitude(-71.005181);
+    }
+
+    @Test
+    public void testCopiesAirport() throws Exception {
+        _bos.getAtmosphericInformation().update(DataPointType.WIND, dataPoint(5));
+        AirportData view = _slab.add(_bos);
+
+        assertEquals("BOS", view.getIata());
+        assertEquals(42.364347, view.getLatitude(), 0);
+        assertEquals(-71.005181, view.getLongitude(), 0);
+        assertEquals(dataPoint(5), view.getAtmosphericInformation().getWind());
+        assertNull(view.getAtmosphericInformation().getTemperature());
+        assertEquals(_bos.getAtmosphericInformation().getLastUpdateTime(),
+            view.getAtmosphericInformation().getLastUpdateTime());
+        assertEquals(_bos, view);
+    }
+
+    @Test
+    public void testUpdatesThroughView() throws Exception {
+        AtmosphericInformation information = _slab.add(_bos).getAtmosphericInformation();
+        assertTrue(information.isEmpty());
+
+        information.update(DataPointType.TEMPERATURE, dataPoint(20));
+        AtmosphericInformation snapshot = information.snapshot();
+        information.update(DataPointType.TEMPERATURE, dataPoint(25));
+
+        assertFalse(information.isEmpty());
+        assertEquals(dataPoint(25), information.getTemperature());
+        assertEquals(dataPoint(20), snapshot.getTemperature());
+        assertTrue(_bos.getAtmosphericInformation().isEmpty());
+        try {
+            information.update(DataPointType.TEMPERATURE, dataPoint(200));
+            fail("out of range value accepted");
+        } catch (IllegalStateException e) {
+            assertEquals(dataPoint(25), information.getTemperature());
+        }
+    }
+
+    @Test
+    public void testRemovedSlotIsReused() throws Exception {
+        AirportSlab.AirportView bos = _slab.add(_bos);
+        bos.getAtmosphericInformation().update(DataPointType.WIND, dataPoint(5));
+        _slab.remove(bos);
+
+        AirportData jfk = new AirportData();
+        jfk.setIata("JFK");
+        jfk.setLatitude(40.639751);
+        AirportData jfkView = _slab.add(jfk);
+        bos.getAtmosphericInformation().update(DataPointType.WIND, dataPoint(7));
+
+        assertTrue(jfkView.getAtmosphericInformation().isEmpty());
+        assertEquals(40.639751, jfkView.getLatitude(), 0);
+        assertTrue(Double.isNaN(bos.getLatitude()));
+        assertNull(bos.getAtmosphericInformation().getWind());
+    }
+
+    @Test
+    public void testManyAirports() throws Exception {
+        AirportData[] views = new AirportData[3000];
+        for (int i = 0; i < views.length; i++) {
+            AirportData airportData = new AirportData();
+            airportData.setIata("A" + i);
+            airportData.setLatitude(i / 100.0);
+            views[i] = _slab.add(airportData);
+            views[i].getAtmosphericInformation().update(DataPointType.PRESSURE, dataPoint(i % 100 + 700));
+        }
+        for (int i = 0; i < views.length; i++) {
+            assertEquals(i / 100.0, views[i].getLatitude(), 0);
+            assertEquals(dataPoint(i % 100 + 700), views[i].getAtmosphericInformation().getPressure());
+        }
+    }
+
+    private static DataPoint dataPoint(final double mean) {
+        return new DataPoint.Builder().withMean(mean).withFirst(1).withMedian(2).withLast(3).withCount(10).build();
+    }
+}
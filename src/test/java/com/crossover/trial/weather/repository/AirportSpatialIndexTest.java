@@ -0,0 +1,149 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.util.DistanceMath;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AirportSpatialIndexTest {
+
+    private AirportSpatialIndex _index;
+
+    private List<AirportData> _airports;
+
+    @Before
+    public void setUp() throws Exception {
+        _index = new AirportSpatialIndex(1.0);
+        _airports = new ArrayList<>();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            AirportData airportData =
+                new AirportData("A" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            _airports.add(airportData);
+            _index.airportSaved(airportData);
+        }
+        // airports close to the antimeridian and poles
+        String[] iatas = {"AM1", "AM2", "NP1", "NP2", "SP1"};
+        double[][] coordinates = {{10, 179.9}, {10, -179.9}, {89.9, 10}, {89.9, -170}, {-89.5, 45}};
+        for (int i = 0; i < iatas.length; i++) {
+            AirportData airportData = new AirportData(iatas[i], coordinates[i][0], coordinates[i][1]);
+            _airports.add(airportData);
+            _index.airportSaved(airportData);
+        }
+    }
+
+    @Test
+    public void testCandidatesContainAllAirportsInRadius() throws Exception {
+        double[] radii = {0.5, 50, 200, 1000, 5000, 15000, 25000};
+        for (AirportData center : _airports.subList(_airports.size() - 30, _airports.size())) {
+            for (double radius : radii) {
+                assertEquals(center.getIata() + "/" + radius, bruteForce(center, radius), indexed(center, radius));
+            }
+        }
+    }
+
+    @Test
+    public void testWithinRadiusMatchesHaversine() throws Exception {
+        double[] radii = {50, 1000, 25000};
+        for (AirportData center : _airports.subList(0, 20)) {
+            for (double radius : radii) {
+                Set<String> found = _index.findWithinRadius(center.getLatitude(), center.getLongitude(), radius)
+                    .stream().map(AirportData::getIata).collect(Collectors.toSet());
+                assertEquals(center.getIata() + "/" + radius, bruteForce(center, radius), found);
+            }
+        }
+    }
+
+    @Test
+    public void testReportsScannedCandidates() throws Exception {
+        AirportData center = _airports.get(0);
+        int[] scanned = new int[1];
+        _index.findWithinRadius(center.getLatitude(), center.getLongitude(), 1000, count -> scanned[0] = count);
+        assertEquals(_index.findCandidates(center.getLatitude(), center.getLongitude(), 1000).size(), scanned[0]);
+    }
+
+    @Test
+    public void testBatchDistances() throws Exception {
+        AirportData center = _airports.get(0);
+        double[] vector = DistanceMath.toUnitVector(center.getLatitude(), center.getLongitude());
+        double[] xs = new double[_airports.size()];
+        double[] ys = new double[_airports.size()];
+        double[] zs = new double[_airports.size()];
+        for (int i = 0; i < _airports.size(); i++) {
+            double[] v = DistanceMath.toUnitVector(_airports.get(i).getLatitude(), _airports.get(i).getLongitude());
+            xs[i] = v[0];
+            ys[i] = v[1];
+            zs[i] = v[2];
+        }
+        double[] distances = new double[100];
+        DistanceMath.calculateDistances(vector[0], vector[1], vector[2], xs, ys, zs, 100, 200, distances);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(DistanceMath.calculateDistance(center, _airports.get(100 + i)), distances[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void testAntimeridian() throws Exception {
+        AirportData center = _airports.stream().filter(a -> a.getIata().equals("AM1")).findFirst().get();
+        assertTrue(indexed(center, 50).contains("AM2"));
+    }
+
+    @Test
+    public void testPole() throws Exception {
+        AirportData center = _airports.stream().filter(a -> a.getIata().equals("NP1")).findFirst().get();
+        assertTrue(indexed(center, 50).contains("NP2"));
+    }
+
+    @Test
+    public void testMoveAndDelete() throws Exception {
+        AirportData center = new AirportData("CTR", 0, 0);
+        _index.airportSaved(center);
+        AirportData moved = new AirportData("MOV", 0.1, 0.1);
+        _index.airportSaved(moved);
+        assertTrue(indexed(center, 50).contains("MOV"));
+
+        _index.airportSaved(new AirportData("MOV", 45, 45));
+        assertTrue(!indexed(center, 50).contains("MOV"));
+
+        _index.airportSaved(moved);
+        _index.airportDeleted(moved);
+        assertTrue(!indexed(center, 50).contains("MOV"));
+    }
+
+    @Test
+    public void testBulkSave() throws Exception {
+        AirportSpatialIndex bulk = new AirportSpatialIndex(1.0);
+        bulk.airportSaved(new AirportData("A0", 0, 0));
+        bulk.airportsSaved(_airports);
+        AirportData center = _airports.get(0);
+        for (double radius : new double[]{50, 1000, 25000}) {
+            Set<String> found = bulk.findWithinRadius(center.getLatitude(), center.getLongitude(), radius)
+                .stream().map(AirportData::getIata).collect(Collectors.toSet());
+            assertEquals(bruteForce(center, radius), found);
+        }
+    }
+
+    private Set<String> indexed(final AirportData center, final double radius) {
+        return _index.findCandidates(center.getLatitude(), center.getLongitude(), radius).stream()
+            .filter(candidate -> DistanceMath.calculateDistance(center, candidate) <= radius)
+            .map(AirportData::getIata)
+            .collect(Collectors.toSet());
+    }
+
+    private Set<String> bruteForce(final AirportData center, final double radius) {
+        return _airports.stream()
+            .filter(candidate -> DistanceMath.calculateDistance(center, candidate) <= radius)
+            .map(AirportData::getIata)
+            .collect(Collectors.toSet());
+    }
+}
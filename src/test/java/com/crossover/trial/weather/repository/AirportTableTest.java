@@ -0,0 +1,70 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class AirportTableTest {
+
+    private AirportTable _table;
+
+    @Before
+    public void setUp() throws Exception {
+        _table = new AirportTable();
+    }
+
+    @Test
+    public void testPackedAndFallbackCodes() throws Exception {
+        AirportData jfk = new AirportData("JFK", 0, 0);
+        AirportData bos = new AirportData("BOS", 0, 0);
+        AirportData lowercase = new AirportData("ewr", 0, 0);
+        AirportData icao = new AirportData("KLGA", 0, 0);
+        for (AirportData airportData : Arrays.asList(jfk, bos, lowercase, icao)) {
+            assertNull(_table.put(airportData));
+        }
+
+        assertEquals(4, _table.size());
+        assertSame(jfk, _table.get("JFK"));
+        assertSame(lowercase, _table.get("ewr"));
+        assertSame(icao, _table.get("KLGA"));
+        assertNull(_table.get("EWR"));
+        assertNull(_table.get(null));
+
+        List<String> iatas = new ArrayList<>();
+        for (AirportData airportData : _table) {
+            iatas.add(airportData.getIata());
+        }
+        assertEquals("BOS", iatas.get(0));
+        assertEquals("JFK", iatas.get(1));
+        assertEquals(4, iatas.size());
+
+        List<String> forEachIatas = new ArrayList<>();
+        _table.forEach(airportData -> forEachIatas.add(airportData.getIata()));
+        assertEquals(iatas, forEachIatas);
+    }
+
+    @Test
+    public void testReplaceAndRemove() throws Exception {
+        AirportData bos = new AirportData("BOS", 0, 0);
+        _table.put(bos);
+        AirportData replacement = new AirportData("BOS", 0, 0);
+        assertSame(bos, _table.put(replacement));
+        _table.put(new AirportData("kbos", 0, 0));
+        assertEquals(2, _table.size());
+
+        assertSame(replacement, _table.remove("BOS"));
+        assertNull(_table.remove("BOS"));
+        assertEquals("kbos", _table.remove("kbos").getIata());
+        assertEquals(0, _table.size());
+        assertFalse(_table.iterator().hasNext());
+    }
+}
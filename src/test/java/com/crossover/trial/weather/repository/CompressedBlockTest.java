@@ -0,0 +1,68 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.TimeSeries;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedBlockTest {
+
+    @Test
+    public void testRoundTripOfArbitraryValues() throws Exception {
+        Random random = new Random(42);
+        int size = 500;
+        TimeSeries series = new TimeSeries(new long[size], new double[size], new int[size], new int[size],
+            new int[size], new int[size]);
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            time += random.nextInt(3) == 0 ? random.nextLong() >> 20 : 300000 + random.nextInt(100);
+            series.getTimes()[i] = time;
+            series.getMean()[i] = i % 7 == 0 ? Double.NaN : random.nextDouble() * Math.pow(10, random.nextInt(20) - 10);
+            series.getFirst()[i] = random.nextInt();
+            series.getSecond()[i] = i % 3 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            series.getThird()[i] = random.nextInt(100);
+            series.getCount()[i] = i;
+        }
+
+        TimeSeries decompressed = CompressedBlock.compress(series).decompress(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertArrayEquals(series.getTimes(), decompressed.getTimes());
+        for (int i = 0; i < size; i++) {
+            assertEquals(Double.doubleToRawLongBits(series.getMean()[i]),
+                Double.doubleToRawLongBits(decompressed.getMean()[i]));
+        }
+        assertArrayEquals(series.getFirst(), decompressed.getFirst());
+        assertArrayEquals(series.getSecond(), decompressed.getSecond());
+        assertArrayEquals(series.getThird(), decompressed.getThird());
+        assertArrayEquals(series.getCount(), decompressed.getCount());
+    }
+
+    @Test
+    public void testRegularReadingsCompressWell() throws Exception {
+        int size = 120;
+        TimeSeries series = new TimeSeries(new long[size], new double[size], new int[size], new int[size],
+            new int[size], new int[size]);
+        for (int i = 0; i < size; i++) {
+            series.getTimes()[i] = 1500000000000L + i * 300000L + i % 2;
+            series.getMean()[i] = 20 + (i / 10) * 0.5;
+            series.getFirst()[i] = 18 + i / 30;
+            series.getSecond()[i] = 20 + i / 30;
+            series.getThird()[i] = 22 + i / 30;
+            series.getCount()[i] = 12;
+        }
+
+        CompressedBlock block = CompressedBlock.compress(series);
+        // 32 bytes per reading uncompressed
+        assertTrue(block.sizeInBytes() + " bytes", block.sizeInBytes() * 8 < size * 32);
+
+        TimeSeries range = block.decompress(series.getTimes()[10], series.getTimes()[19]);
+        assertEquals(10, range.size());
+        assertEquals(series.getTimes()[10], range.getTimes()[0]);
+        assertEquals(20.5, range.getMean()[0], 0);
+        assertTrue(block.overlaps(0, series.getTimes()[0]));
+        assertTrue(!block.overlaps(series.getTimes()[size - 1] + 1, Long.MAX_VALUE));
+    }
+}
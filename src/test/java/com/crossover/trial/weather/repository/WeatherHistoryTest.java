@@ -0,0 +1,67 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.domain.TimeSeries;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WeatherHistoryTest {
+
+    private WeatherHistory _history;
+
+    private AirportData _bos;
+
+    private long _now;
+
+    @Before
+    public void setUp() throws Exception {
+        _history = new WeatherHistory(4, 2, 3600);
+        _bos = new AirportData();
+        _bos.setIata("BOS");
+        _now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void testRingBufferKeepsLatestReadings() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            record(DataPointType.WIND, _now - 6000 + i * 1000, i);
+        }
+
+        TimeSeries series = _history.find("BOS", DataPointType.WIND, 0, Long.MAX_VALUE);
+        assertArrayEquals(new long[]{_now - 4000, _now - 3000, _now - 2000, _now - 1000}, series.getTimes());
+        assertArrayEquals(new double[]{2, 3, 4, 5}, series.getMean(), 0);
+        assertArrayEquals(new int[]{20, 30, 40, 50}, series.getCount());
+
+        series = _history.find("BOS", DataPointType.WIND, _now - 3000, _now - 2000);
+        assertArrayEquals(new long[]{_now - 3000, _now - 2000}, series.getTimes());
+        assertEquals(0, _history.find("BOS", DataPointType.TEMPERATURE, 0, Long.MAX_VALUE).size());
+        assertEquals(0, _history.find("JFK", DataPointType.WIND, 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        record(DataPointType.WIND, _now - 7200 * 1000L, 1);
+        record(DataPointType.WIND, _now - 60 * 1000L, 2);
+
+        assertArrayEquals(new double[]{2}, _history.find("BOS", DataPointType.WIND, 0, Long.MAX_VALUE).getMean(), 0);
+    }
+
+    @Test
+    public void testDeletedAirport() throws Exception {
+        record(DataPointType.WIND, _now, 1);
+        _history.airportDeleted(_bos);
+
+        assertEquals(0, _history.find("BOS", DataPointType.WIND, 0, Long.MAX_VALUE).size());
+    }
+
+    private void record(final DataPointType pointType, final long time, final int value) {
+        _bos.getAtmosphericInformation().setLastUpdateTime(time);
+        _history.weatherUpdated(_bos, pointType, new DataPoint.Builder()
+            .withMean(value).withFirst(value).withMedian(value).withLast(value).withCount(value * 10).build());
+    }
+}
@@ -0,0 +1,78 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.domain.RollupSeries;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WeatherRollupsTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private WeatherRollups _rollups;
+
+    private AirportData _bos;
+
+    @Before
+    public void setUp() throws Exception {
+        _rollups = new WeatherRollups(10, 48, 30);
+        _bos = new AirportData();
+        _bos.setIata("BOS");
+    }
+
+    @Test
+    public void testAggregatesPerTier() throws Exception {
+        long start = 100 * DAY;
+        // two days of readings every 30 minutes, mean is the hour of the day
+        for (long time = start; time < start + 2 * DAY; time += 30 * MINUTE) {
+            record(time, (time % DAY) / HOUR, 10);
+        }
+
+        RollupSeries days = _rollups.find("BOS", DataPointType.WIND, 0, Long.MAX_VALUE, DAY);
+        assertEquals(DAY, days.getResolution());
+        assertArrayEquals(new long[]{start, start + DAY}, days.getTimes());
+        assertArrayEquals(new double[]{0, 0}, days.getMin(), 0);
+        assertArrayEquals(new double[]{23, 23}, days.getMax(), 0);
+        assertArrayEquals(new double[]{11.5, 11.5}, days.getMean(), 1e-9);
+        assertArrayEquals(new int[]{48, 48}, days.getCount());
+        assertArrayEquals(new long[]{480, 480}, days.getObservations());
+
+        // a week resolution is served by days, 90 minutes by hours
+        assertEquals(DAY, _rollups.find("BOS", DataPointType.WIND, 0, Long.MAX_VALUE, 7 * DAY).getResolution());
+        RollupSeries hours = _rollups.find("BOS", DataPointType.WIND, start + DAY, start + DAY + 3 * HOUR - 1,
+            90 * MINUTE);
+        assertEquals(HOUR, hours.getResolution());
+        assertArrayEquals(new double[]{0, 1, 2}, hours.getMean(), 0);
+        assertArrayEquals(new int[]{2, 2, 2}, hours.getCount());
+
+        // only the latest 10 minute buckets are kept
+        RollupSeries minutes = _rollups.find("BOS", DataPointType.WIND, 0, Long.MAX_VALUE, 1);
+        assertEquals(MINUTE, minutes.getResolution());
+        assertArrayEquals(new long[]{start + 2 * DAY - 30 * MINUTE}, minutes.getTimes());
+    }
+
+    @Test
+    public void testUnknownAirport() throws Exception {
+        assertEquals(0, _rollups.find("JFK", DataPointType.WIND, 0, Long.MAX_VALUE, HOUR).size());
+        record(0, 1, 1);
+        _rollups.airportDeleted(_bos);
+        assertEquals(0, _rollups.find("BOS", DataPointType.WIND, 0, Long.MAX_VALUE, HOUR).size());
+    }
+
+    private void record(final long time, final double mean, final int count) {
+        _bos.getAtmosphericInformation().setLastUpdateTime(time);
+        _rollups.weatherUpdated(_bos, DataPointType.WIND, new DataPoint.Builder()
+            .withMean(mean).withFirst(0).withMedian(0).withLast(0).withCount(count).build());
+    }
+}
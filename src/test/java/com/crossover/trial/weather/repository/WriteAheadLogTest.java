@@ -0,0 +1,229 @@
+package com.crossover.trial.weather.repository;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WriteAheadLogTest {
+
+    private Path _directory;
+
+    private List<String> _replayed;
+
+    @Before
+    public void setUp() throws Exception {
+        _directory = Files.createTempDirectory("wal");
+        _replayed = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Path path : segments()) {
+            Files.delete(path);
+        }
+        Files.delete(_directory);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        WriteAheadLog log = open(WriteAheadLog.FsyncPolicy.BATCH);
+        AirportData bos = new AirportData("BOS", 42.364347, -71.005181);
+        log.airportSaved(bos);
+        bos.getAtmosphericInformation().update(DataPointType.WIND, dataPoint(5));
+        bos.getAtmosphericInformation().setLastUpdateTime(1000L);
+        log.weatherUpdated(bos, DataPointType.WIND, dataPoint(5));
+        log.airportDeleted(bos);
+        assertTrue(log.sync());
+        log.close();
+
+        open(WriteAheadLog.FsyncPolicy.BATCH).close();
+        assertEquals(Arrays.asList("saved BOS 42.364347 -71.005181", "updated BOS WIND 5.0 1000", "deleted BOS"),
+            _replayed);
+    }
+
+    @Test
+    public void testSyncFailsAfterWriteFailure() throws Exception {
+        WriteAheadLog log = open(WriteAheadLog.FsyncPolicy.BATCH);
+        log.airportSaved(new AirportData("BOS", 1, 2));
+        assertTrue(log.sync());
+
+        // the next segment can't be created, so the log is left without an open segment
+        Files.createDirectory(_directory.resolve(String.format("wal-%020d.log", 2)));
+        try {
+            log.rotate();
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+
+        log.airportSaved(new AirportData("JFK", 3, 4));
+        assertFalse(log.sync());
+        // later modifications are not logged and must not be acknowledged
+        log.airportSaved(new AirportData("EWR", 5, 6));
+        assertFalse(log.sync());
+        log.close();
+    }
+
+    @Test
+    public void testTornTail() throws Exception {
+        WriteAheadLog log = open(WriteAheadLog.FsyncPolicy.OS);
+        log.airportSaved(new AirportData("BOS", 1, 2));
+        log.airportSaved(new AirportData("JFK", 3, 4));
+        log.close();
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        log = open(WriteAheadLog.FsyncPolicy.OS);
+        assertEquals(Arrays.asList("saved BOS 1.0 2.0"), _replayed);
+        log.airportSaved(new AirportData("EWR", 5, 6));
+        log.close();
+
+        _replayed.clear();
+        open(WriteAheadLog.FsyncPolicy.OS).close();
+        assertEquals(Arrays.asList("saved BOS 1.0 2.0", "saved EWR 5.0 6.0"), _replayed);
+    }
+
+    @Test
+    public void testRotate() throws Exception {
+        WriteAheadLog log = open(WriteAheadLog.FsyncPolicy.INTERVAL);
+        log.airportSaved(new AirportData("BOS", 1, 2));
+        long boundary = log.rotate();
+        log.airportSaved(new AirportData("JFK", 3, 4));
+        log.deleteBefore(boundary);
+        log.close();
+
+        assertEquals(1, segments().size());
+        open(WriteAheadLog.FsyncPolicy.INTERVAL).close();
+        assertEquals(Arrays.asList("saved JFK 3.0 4.0"), _replayed);
+    }
+
+    @Test
+    public void testCheckpointWaitsForModification() throws Exception {
+        WriteAheadLog log = open(WriteAheadLog.FsyncPolicy.BATCH);
+        long[] boundary = new long[1];
+        Thread snapshot = new Thread(() -> {
+            Lock checkpointLock = log.checkpointLock();
+            checkpointLock.lock();
+            try {
+                boundary[0] = log.rotate();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                checkpointLock.unlock();
+            }
+        });
+
+        // applied before the snapshot starts, logged while it waits
+        Lock modificationLock = log.modificationLock();
+        modificationLock.lock();
+        try {
+            snapshot.start();
+            snapshot.join(100);
+            assertTrue(snapshot.isAlive());
+            log.airportSaved(new AirportData("BOS", 1, 2));
+        } finally {
+            modificationLock.unlock();
+        }
+        snapshot.join();
+        log.airportSaved(new AirportData("JFK", 3, 4));
+        log.deleteBefore(boundary[0]);
+        log.close();
+
+        // the snapshot contains BOS, so only JFK is replayed
+        open(WriteAheadLog.FsyncPolicy.BATCH).close();
+        assertEquals(Arrays.asList("saved JFK 3.0 4.0"), _replayed);
+    }
+
+    @Test
+    public void testConcurrentAppends() throws Exception {
+        WriteAheadLog log = open(WriteAheadLog.FsyncPolicy.BATCH);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    log.airportSaved(new AirportData("T" + thread, i, 0));
+                    assertTrue(log.sync());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+
+        open(WriteAheadLog.FsyncPolicy.BATCH).close();
+        assertEquals(800, _replayed.size());
+        for (int t = 0; t < 8; t++) {
+            String prefix = "saved T" + t + " ";
+            int next = 0;
+            for (String record : _replayed) {
+                if (record.startsWith(prefix)) {
+                    assertEquals(prefix + next++ + ".0 0.0", record);
+                }
+            }
+            assertEquals(100, next);
+        }
+    }
+
+    private WriteAheadLog open(final WriteAheadLog.FsyncPolicy fsyncPolicy) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(_directory.toString(), fsyncPolicy, 10);
+        log.recover(new WriteAheadLog.Replay() {
+            @Override
+            public void airportSaved(final String iata, final double latitude, final double longitude) {
+                _replayed.add("saved " + iata + " " + latitude + " " + longitude);
+            }
+
+            @Override
+            public void airportDeleted(final String iata) {
+                _replayed.add("deleted " + iata);
+            }
+
+            @Override
+            public void weatherUpdated(final String iata, final DataPointType pointType, final DataPoint dataPoint,
+                                       final long time) {
+                _replayed.add("updated " + iata + " " + pointType + " " + dataPoint.getMean() + " " + time);
+            }
+        });
+        return log;
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(_directory)) {
+            for (Path path : paths) {
+                segments.add(path);
+            }
+        }
+        return segments;
+    }
+
+    private static DataPoint dataPoint(final double mean) {
+        return new DataPoint.Builder().withMean(mean).withFirst(1).withMedian(2).withLast(3).withCount(10).build();
+    }
+}
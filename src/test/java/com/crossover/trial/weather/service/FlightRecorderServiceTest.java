@@ -0,0 +1,62 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.DataPointType;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderServiceTest {
+
+    private final FlightRecorderService service = new FlightRecorderService(60, 16 * 1024 * 1024);
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(FlightEvents.isAvailable());
+    }
+
+    @After
+    public void tearDown() {
+        service.close();
+    }
+
+    @Test
+    public void testRecord() throws Exception {
+        assertTrue(service.start(10));
+        assertFalse(service.start(10));
+
+        FlightEvents.queryStarted("BOS", 100);
+        FlightEvents.queryScanned(5);
+        FlightEvents.queryFinished(2);
+        FlightEvents.updateStarted();
+        FlightEvents.updateFinished("BOS", DataPointType.WIND, UpdateStatus.OK);
+        FlightEvents.updateFinished("JFK", null, UpdateStatus.INVALID_TYPE);
+
+        Path file = service.stop();
+        try {
+            byte[] magic = Arrays.copyOf(Files.readAllBytes(file), 4);
+            assertArrayEquals("FLR\0".getBytes(StandardCharsets.US_ASCII), magic);
+        } finally {
+            Files.delete(file);
+        }
+        assertNull(service.stop());
+    }
+
+    @Test
+    public void testEventsWithoutRecording() throws Exception {
+        FlightEvents.queryScanned(5);
+        FlightEvents.queryFinished(2);
+        FlightEvents.updateFinished("BOS", DataPointType.WIND, UpdateStatus.OK);
+        assertNull(service.stop());
+    }
+}
@@ -0,0 +1,56 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FreshnessIndexTest {
+
+    private FreshnessIndex _index;
+
+    @Before
+    public void setUp() throws Exception {
+        _index = new FreshnessIndex();
+    }
+
+    @Test
+    public void testCountsAirportsUpdatedSince() throws Exception {
+        update(new AirportData("BOS", 0, 0), 100);
+        update(new AirportData("JFK", 0, 0), 200);
+        AirportData ewr = new AirportData("EWR", 0, 0);
+        update(ewr, 300);
+
+        assertEquals(3, _index.countUpdatedSince(50));
+        assertEquals(2, _index.countUpdatedSince(100));
+
+        // repeated update of the same airport counts once
+        update(ewr, 400);
+        update(ewr, 500);
+        assertEquals(2, _index.countUpdatedSince(150));
+        assertEquals(1, _index.countUpdatedSince(450));
+    }
+
+    @Test
+    public void testSavedAndDeletedAirportsAreRemoved() throws Exception {
+        AirportData bos = new AirportData("BOS", 0, 0);
+        AirportData jfk = new AirportData("JFK", 0, 0);
+        update(bos, 100);
+        update(jfk, 100);
+
+        _index.airportSaved(new AirportData("BOS", 0, 0));
+        assertEquals(1, _index.countUpdatedSince(0));
+        _index.airportDeleted(jfk);
+        assertEquals(0, _index.countUpdatedSince(0));
+
+        update(bos, 200);
+        assertEquals(1, _index.countUpdatedSince(0));
+    }
+
+    private void update(final AirportData airportData, final long time) {
+        airportData.getAtmosphericInformation().setLastUpdateTime(time);
+        _index.weatherUpdated(airportData, DataPointType.WIND, null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class QueryStatisticsTest {
+
+    private QueryStatistics _statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        _statistics = new QueryStatistics(3, 10, 5);
+    }
+
+    @Test
+    public void testConcurrentCountsAreExact() throws Exception {
+        int threads = 64;
+        int requests = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < requests; i++) {
+                    _statistics.record(i % 2 == 0 ? "BOS" : "JFK", i % 100);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * requests / 2, _statistics.getRequestCount("BOS"));
+        assertEquals(threads * requests / 2, _statistics.getRequestCount("JFK"));
+        long[] histogram = _statistics.getRadiusHistogram();
+        assertEquals(5, histogram.length);
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        assertEquals(threads * requests, total);
+    }
+
+    @Test
+    public void testCardinalityIsBounded() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            _statistics.record("A" + i, 1000.0 * i);
+        }
+        _statistics.record("A0", Double.NaN);
+        _statistics.record("A0", -5);
+
+        assertEquals(3, _statistics.getRequestedIataCount());
+        assertEquals(3, _statistics.getRequestCount("A0"));
+        assertEquals(7, _statistics.getOverflowRequestCount());
+        assertArrayEquals(new long[]{3, 0, 0, 0, 9}, _statistics.getRadiusHistogram());
+    }
+
+    @Test
+    public void testIataFrequenciesOfKnownAirports() throws Exception {
+        _statistics.record("BOS", 10);
+        _statistics.airportSaved(new AirportData("BOS", 0, 0));
+        _statistics.airportSaved(new AirportData("JFK", 0, 0));
+        _statistics.record("BOS", 10);
+        _statistics.record("BOS", 10);
+        _statistics.record("XXX", 10);
+
+        Map<String, Double> frequencies = _statistics.getIataFrequencies();
+        assertEquals(2, frequencies.size());
+        assertEquals(1.5, frequencies.get("BOS"), 1e-9);
+        assertEquals(0.0, frequencies.get("JFK"), 1e-9);
+
+        _statistics.airportDeleted(new AirportData("JFK", 0, 0));
+        assertEquals(1, _statistics.getIataFrequencies().size());
+    }
+}
@@ -0,0 +1,160 @@
+package com.crossover.trial.weather.service;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RadiusQueryCacheTest {
+
+    private RadiusQueryCache _cache;
+
+    private long _time;
+
+    private AirportData _bos;
+
+    private AirportData _jfk;
+
+    private RadiusQuery _query;
+
+    @Before
+    public void setUp() throws Exception {
+        _cache = new RadiusQueryCache(10, 60, () -> _time);
+        _bos = new AirportData("BOS", 42.364347, -71.005181);
+        _jfk = new AirportData("JFK", 40.639751, -73.778925);
+        _query = new RadiusQuery("BOS", 100);
+    }
+
+    @Test
+    public void testWeatherUpdateEvictsCoveringResultsOnly() throws Exception {
+        _cache.put(_query, result(_cache.currentVersion(), "BOS"));
+
+        _cache.weatherUpdated(_jfk, DataPointType.WIND, null);
+        assertNotNull(_cache.get(_query));
+
+        _cache.weatherUpdated(_bos, DataPointType.WIND, null);
+        assertNull(_cache.get(_query));
+    }
+
+    @Test
+    public void testAirportAddedInsideRadiusEvicts() throws Exception {
+        _cache.put(_query, result(_cache.currentVersion(), "BOS"));
+
+        _cache.airportSaved(new AirportData("FAR", 10, 10));
+        assertNotNull(_cache.get(_query));
+
+        _cache.airportSaved(new AirportData("NEW", 42.4, -71.1));
+        assertNull(_cache.get(_query));
+    }
+
+    @Test
+    public void testAirportDeletedEvicts() throws Exception {
+        _cache.put(_query, result(_cache.currentVersion(), "BOS", "XYZ"));
+
+        _cache.airportDeleted(new AirportData("XYZ", 42.004347, -71.425181));
+        assertNull(_cache.get(_query));
+    }
+
+    @Test
+    public void testStaleResultIsNotStored() throws Exception {
+        long version = _cache.currentVersion();
+        _cache.weatherUpdated(_jfk, DataPointType.WIND, null);
+        _cache.put(_query, result(version, "BOS"));
+        assertNotNull(_cache.get(_query));
+
+        version = _cache.currentVersion();
+        _cache.weatherUpdated(_bos, DataPointType.WIND, null);
+        _cache.put(_query, result(version, "BOS"));
+        assertNull(_cache.get(_query));
+    }
+
+    @Test
+    public void testNormalizedKeys() throws Exception {
+        _cache.put(new RadiusQuery("BOS", 50), result(_cache.currentVersion(), "BOS"));
+        assertNotNull(_cache.get(new RadiusQuery("BOS", Double.parseDouble("050"))));
+        assertEquals(new RadiusQuery("BOS", -0.0), new RadiusQuery("BOS", 0));
+        assertEquals(new RadiusQuery("BOS", Double.NaN), new RadiusQuery("BOS", -5));
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        _cache.put(_query, result(_cache.currentVersion(), "BOS"));
+        _time += TimeUnit.SECONDS.toNanos(59);
+        assertNotNull(_cache.get(_query));
+        _time += TimeUnit.SECONDS.toNanos(1);
+        assertNull(_cache.get(_query));
+        assertEquals(1, _cache.getExpirationCount());
+        assertEquals(0, _cache.getWeight());
+    }
+
+    @Test
+    public void testWeightBoundAndAdmission() throws Exception {
+        // popular query
+        for (int i = 0; i < 5; i++) {
+            _cache.get(_query);
+        }
+        _cache.put(_query, result(_cache.currentVersion(), "BOS", "XYZ", "JFK", "EWR"));
+        assertEquals(5, _cache.getWeight());
+
+        // scan over distinct radii must not flush popular result
+        for (int radius = 1; radius < 100; radius++) {
+            RadiusQuery query = new RadiusQuery("BOS", radius);
+            _cache.get(query);
+            _cache.put(query, result(_cache.currentVersion(), "BOS"));
+            assertTrue(_cache.getWeight() <= 10);
+        }
+        assertNotNull(_cache.get(_query));
+        assertTrue(_cache.getRejectionCount() > 0);
+
+        // query requested more often than cached ones evicts them
+        RadiusQuery repeated = new RadiusQuery("BOS", 500);
+        _cache.get(repeated);
+        _cache.get(repeated);
+        _cache.put(repeated, result(_cache.currentVersion(), "BOS"));
+        assertNotNull(_cache.get(repeated));
+        assertTrue(_cache.getEvictionCount() > 0);
+        assertTrue(_cache.getWeight() <= 10);
+        assertEquals(5 + 99 + 1 + 3, _cache.getHitCount() + _cache.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentUpdatesLeaveNoStaleResult() throws Exception {
+        Thread updater = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                _cache.weatherUpdated(_bos, DataPointType.WIND, null);
+            }
+        });
+        Thread filler = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                _cache.put(_query, result(_cache.currentVersion(), "BOS"));
+            }
+        });
+        updater.start();
+        filler.start();
+        updater.join();
+        filler.join();
+
+        // a result calculated before the last update must have been evicted or not stored
+        RadiusQueryResult cached = _cache.get(_query, RadiusQueryResult.class);
+        if (cached == null) {
+            assertEquals(0, _cache.getWeight());
+        } else {
+            assertEquals(_cache.currentVersion(), cached.getVersion());
+            assertEquals(2, _cache.getWeight());
+        }
+    }
+
+    private RadiusQueryResult result(final long version, final String... coveredIatas) {
+        return new RadiusQueryResult(version, _bos, new HashSet<>(Arrays.asList(coveredIatas)), new ArrayList<>());
+    }
+}
@@ -0,0 +1,55 @@
+package com.crossover.trial.weather.util;
+
+import com.crossover.trial.weather.domain.AirportData;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AirportFileParserTest {
+
+    @Test
+    public void testParse() throws Exception {
+        String text = "RecordNum,Name,City,Country,IATA/FAA,ICAO,Latitude,Longitude,Altitude,Timezone,DST\n"
+            + "1,\"General Edward Lawrence Logan Intl\",\"Boston\",\"United States\",\"BOS\",\"KBOS\","
+            + "42.364347,-71.005181,19,-5,\"A\"\r\n"
+            + "2,\"Intl, \"\"Quoted\"\"\",\"X\",\"Y\",\"\",\"ZZZZ\",1,2,3,4,\"U\"\n"
+            + "3,\"Name, with comma\",City,Country,JFK,KJFK,40.639751,-73.778925,13,-5,A\n"
+            + "\n"
+            + "4,short\n"
+            + "5,\"A \"\"B\"\"\",\"C\",\"D\",\"E\"\"F\",\"\",5,6,7,8,\"U\"";
+        List<AirportData> airports = parse(text, 4);
+        assertEquals(3, airports.size());
+        assertEquals("BOS", airports.get(0).getIata());
+        assertEquals(42.364347, airports.get(0).getLatitude(), 0);
+        assertEquals(-71.005181, airports.get(0).getLongitude(), 0);
+        assertEquals("JFK", airports.get(1).getIata());
+        assertEquals(-73.778925, airports.get(1).getLongitude(), 0);
+        assertEquals("E\"F", airports.get(2).getIata());
+        assertEquals(5, airports.get(2).getLatitude(), 0);
+        assertEquals(6, airports.get(2).getLongitude(), 0);
+    }
+
+    @Test
+    public void testChunksKeepOrder() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append(i).append(",\"Name ").append(i).append("\",\"City\",\"Country\",\"A").append(i)
+                .append("\",\"ICAO\",").append(i % 90).append(',').append(-(i % 180)).append(",1,0,\"U\"\n");
+        }
+        List<AirportData> airports = parse(text.toString(), 8);
+        assertEquals(20000, airports.size());
+        for (int i = 0; i < airports.size(); i++) {
+            assertEquals("A" + i, airports.get(i).getIata());
+            assertEquals(i % 90, airports.get(i).getLatitude(), 0);
+            assertEquals(-(i % 180), airports.get(i).getLongitude(), 0);
+        }
+    }
+
+    private static List<AirportData> parse(final String text, final int parallelism) {
+        return AirportFileParser.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), parallelism);
+    }
+}
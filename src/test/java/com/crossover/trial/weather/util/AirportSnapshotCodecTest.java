@@ -0,0 +1,82 @@
+package com.crossover.trial.weather.util;
+
+import com.crossover.trial.weather.domain.AirportData;
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AirportSnapshotCodecTest {
+
+    private List<AirportData> _airports;
+
+    private DataPoint _dataPoint;
+
+    @Before
+    public void setUp() throws Exception {
+        _dataPoint = new DataPoint.Builder()
+            .withCount(10).withFirst(-10).withMedian(20).withLast(30).withMean(22.5).build();
+        AirportData bos = new AirportData("BOS", 42.364347, -71.005181);
+        bos.getAtmosphericInformation().update(DataPointType.WIND, _dataPoint);
+        bos.getAtmosphericInformation().update(DataPointType.TEMPERATURE, _dataPoint);
+        bos.getAtmosphericInformation().setLastUpdateTime(1000L);
+        _airports = Arrays.asList(bos, new AirportData("KJFK", 40.639751, -73.778925));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        int size = AirportSnapshotCodec.size(_airports);
+        assertEquals(16 + (27 + 3 + 2 * WeatherUpdateCodec.DATA_POINT_SIZE) + (27 + 4), size);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        AirportSnapshotCodec.write(buffer, _airports);
+        assertEquals(size, buffer.position());
+
+        buffer.flip();
+        List<AirportData> airports = AirportSnapshotCodec.read(buffer);
+        assertEquals(2, airports.size());
+        AirportData bos = airports.get(0);
+        assertEquals("BOS", bos.getIata());
+        assertEquals(42.364347, bos.getLatitude(), 0);
+        assertEquals(-71.005181, bos.getLongitude(), 0);
+        assertEquals(_dataPoint, bos.getAtmosphericInformation().getWind());
+        assertEquals(_dataPoint, bos.getAtmosphericInformation().getTemperature());
+        assertNull(bos.getAtmosphericInformation().getPressure());
+        assertEquals(1000L, bos.getAtmosphericInformation().getLastUpdateTime());
+        assertEquals("KJFK", airports.get(1).getIata());
+        assertTrue(airports.get(1).getAtmosphericInformation().isEmpty());
+    }
+
+    @Test
+    public void testRejectsDamagedSnapshot() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(AirportSnapshotCodec.size(_airports));
+        AirportSnapshotCodec.write(buffer, _airports);
+        byte[] bytes = buffer.array();
+
+        assertUnreadable(Arrays.copyOf(bytes, bytes.length - 10));
+        byte[] corrupted = bytes.clone();
+        corrupted[40] ^= 1;
+        assertUnreadable(corrupted);
+        byte[] foreign = bytes.clone();
+        foreign[0] = 0;
+        assertUnreadable(foreign);
+    }
+
+    private static void assertUnreadable(final byte[] bytes) {
+        try {
+            AirportSnapshotCodec.read(ByteBuffer.wrap(bytes));
+            fail("damaged snapshot read");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
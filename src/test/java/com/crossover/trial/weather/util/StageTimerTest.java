@@ -0,0 +1,39 @@
+package com.crossover.trial.weather.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StageTimerTest {
+
+    @Test
+    public void testAccumulateAndReset() throws Exception {
+        StageTimer timer = StageTimer.current();
+        timer.reset();
+
+        long begin = StageTimer.begin();
+        Thread.sleep(2);
+        StageTimer.end(StageTimer.Stage.SCAN, begin);
+        long scan = timer.get(StageTimer.Stage.SCAN);
+        assertTrue(scan >= 2_000_000);
+
+        begin = StageTimer.begin();
+        Thread.sleep(1);
+        StageTimer.end(StageTimer.Stage.SCAN, begin);
+        assertTrue(timer.get(StageTimer.Stage.SCAN) > scan);
+        assertEquals(0, timer.get(StageTimer.Stage.CACHE));
+
+        timer.reset();
+        assertEquals(0, timer.get(StageTimer.Stage.SCAN));
+    }
+
+    @Test
+    public void testTimerPerThread() throws Exception {
+        StageTimer.current().reset();
+        Thread other = new Thread(() -> StageTimer.end(StageTimer.Stage.FILTER, StageTimer.begin() - 1000));
+        other.start();
+        other.join();
+        assertEquals(0, StageTimer.current().get(StageTimer.Stage.FILTER));
+    }
+}
@@ -0,0 +1,72 @@
+package com.crossover.trial.weather.util;
+
+import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.service.WeatherUpdate;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class WeatherUpdateCodecTest {
+
+    @Test
+    public void testPackIata() throws Exception {
+        for (String iata : Arrays.asList("AAA", "BOS", "ZZZ")) {
+            int packed = WeatherUpdateCodec.packIata(iata);
+            assertEquals(iata, WeatherUpdateCodec.unpackIata(packed));
+            assertSame(WeatherUpdateCodec.unpackIata(packed), WeatherUpdateCodec.unpackIata(packed));
+        }
+        for (String iata : Arrays.asList(null, "", "BO", "BOST", "bos", "B0S")) {
+            assertEquals(-1, WeatherUpdateCodec.packIata(iata));
+        }
+        assertNull(WeatherUpdateCodec.unpackIata(0));
+        assertNull(WeatherUpdateCodec.unpackIata(-1));
+        assertNull(WeatherUpdateCodec.unpackIata(27));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DataPoint dataPoint = new DataPoint.Builder()
+            .withCount(10).withFirst(-10).withMedian(20).withLast(30).withMean(22.5).build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        WeatherUpdateCodec.write(out, "BOS", DataPointType.WIND, dataPoint);
+        WeatherUpdateCodec.write(out, "JFK", DataPointType.PRECIPITATION, dataPoint);
+        out.flush();
+        assertEquals(2 * WeatherUpdateCodec.UPDATE_SIZE, bytes.size());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        WeatherUpdate update = WeatherUpdateCodec.read(in);
+        assertEquals("BOS", update.getIata());
+        assertEquals(DataPointType.WIND, update.getPointType());
+        assertEquals(dataPoint, update.getDataPoint());
+        update = WeatherUpdateCodec.read(in);
+        assertEquals("JFK", update.getIata());
+        assertEquals(DataPointType.PRECIPITATION, update.getPointType());
+        assertNull(WeatherUpdateCodec.read(in));
+    }
+
+    @Test
+    public void testUnknownPointType() throws Exception {
+        byte[] bytes = new byte[WeatherUpdateCodec.UPDATE_SIZE];
+        bytes[3] = 1;
+        bytes[4] = 100;
+        WeatherUpdate update = WeatherUpdateCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertNull(update.getIata());
+        assertNull(update.getPointType());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedUpdate() throws Exception {
+        WeatherUpdateCodec.read(new DataInputStream(new ByteArrayInputStream(new byte[10])));
+    }
+}
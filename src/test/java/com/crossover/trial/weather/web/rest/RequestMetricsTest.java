@@ -0,0 +1,85 @@
+package com.crossover.trial.weather.web.rest;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RequestMetricsTest {
+
+    @Test
+    public void testRecord() throws Exception {
+        RequestMetrics metrics = new RequestMetrics();
+        Method weather = RestWeatherQueryEndpoint.class.getMethod("weather", String.class, String.class);
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(weather, TimeUnit.MILLISECONDS.toNanos(i), i == 100 ? 500 : 200);
+        }
+
+        metrics.rollover();
+        List<RequestMetrics.Snapshot> snapshots = metrics.snapshot();
+        assertEquals(1, snapshots.size());
+        RequestMetrics.Snapshot snapshot = snapshots.get(0);
+        assertEquals("query.weather", snapshot.getName());
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1, snapshot.getErrors());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), snapshot.getTotalLatency());
+        assertEquals(50, TimeUnit.NANOSECONDS.toMillis(snapshot.getLatency(50)));
+        assertEquals(99, TimeUnit.NANOSECONDS.toMillis(snapshot.getLatency(99)));
+        assertTrue(snapshot.getRate() > 0);
+
+        // reading does not reset the interval, so concurrent readers see the same percentiles
+        assertEquals(snapshot.getLatency(99), metrics.snapshot().get(0).getLatency(99));
+
+        // percentiles cover only the last closed interval, counts are cumulative
+        metrics.rollover();
+        snapshot = metrics.snapshot().get(0);
+        assertEquals(100, snapshot.getCount());
+        assertEquals(0, snapshot.getLatency(99));
+    }
+
+    @Test
+    public void testPrometheusName() {
+        assertEquals("http_query_weather_latency_p99_9", RestMetricsEndpoint.toPrometheusName("http.query.weather.latency.p99_9"));
+        assertEquals("cache_findWeatherInRadius_hit_ratio", RestMetricsEndpoint.toPrometheusName("cache.findWeatherInRadius.hit-ratio"));
+        assertEquals("_1m", RestMetricsEndpoint.toPrometheusName("1m"));
+    }
+
+    @Test
+    public void testPrometheusText() throws Exception {
+        RequestMetrics metrics = new RequestMetrics();
+        Method weather = RestWeatherQueryEndpoint.class.getMethod("weather", String.class, String.class);
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(weather, TimeUnit.MILLISECONDS.toNanos(i), i == 100 ? 500 : 200);
+        }
+        metrics.rollover();
+        Map<String, Object> actuator = new LinkedHashMap<>();
+        actuator.put("http.query.weather.count", 100L);
+        actuator.put("repository.airports", 5L);
+        actuator.put("counter.status.200.metrics", 3L);
+
+        List<String> lines = Arrays.asList(RestMetricsEndpoint.render(metrics, actuator).split("\n"));
+        assertTrue(lines.contains("# TYPE http_request_latency_ms summary"));
+        assertTrue(lines.contains("http_request_latency_ms{endpoint=\"query.weather\",quantile=\"0.5\"} 50.0"));
+        assertTrue(lines.contains("http_request_latency_ms_sum{endpoint=\"query.weather\"} 5050.0"));
+        assertTrue(lines.contains("http_request_latency_ms_count{endpoint=\"query.weather\"} 100"));
+        assertTrue(lines.contains("# TYPE http_requests_total counter"));
+        assertTrue(lines.contains("http_requests_total{endpoint=\"query.weather\"} 100.0"));
+        assertTrue(lines.contains("http_request_errors_total{endpoint=\"query.weather\"} 1.0"));
+        assertTrue(lines.contains("# TYPE weather_query_stage_latency_ms summary"));
+        assertTrue(lines.contains("# TYPE repository_airports gauge"));
+        assertTrue(lines.contains("repository_airports 5.0"));
+        assertTrue(lines.contains("# TYPE counter_status_200_metrics counter"));
+        // request metrics are labelled, not exported again under actuator names
+        assertEquals(Collections.emptyList(), lines.stream().filter(line -> line.startsWith("http_query"))
+            .collect(Collectors.toList()));
+    }
+}
@@ -1,20 +1,42 @@
 package com.crossover.trial.weather.web.rest;
 
 import com.crossover.trial.weather.domain.AtmosphericInformation;
+import com.crossover.trial.weather.WeatherClient;
 import com.crossover.trial.weather.domain.DataPoint;
+import com.crossover.trial.weather.domain.DataPointType;
+import com.crossover.trial.weather.domain.RollupSeries;
+import com.crossover.trial.weather.domain.TimeSeries;
+import com.crossover.trial.weather.repository.AirportDataListener;
+import com.crossover.trial.weather.repository.AirportSpatialIndex;
+import com.crossover.trial.weather.service.RadiusQueryCache;
+import com.crossover.trial.weather.util.AtmosphericInformationCodec;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.boot.context.embedded.LocalServerPort;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import javax.inject.Inject;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -26,6 +48,12 @@ public class WeatherEndpointTest {
     private WeatherCollectorEndpoint _update;
     @Inject
     private Gson _gson;
+    @Inject
+    private List<AirportDataListener> _listeners;
+    @Inject
+    private RequestMetrics _requestMetrics;
+    @LocalServerPort
+    private int _port;
 
     private DataPoint _dp;
 
@@ -106,4 +134,175 @@ public class WeatherEndpointTest {
         assertEquals(ais.get(0).getCloudCover(), cloudCoverDp);
     }
 
+    @Test
+    public void testBatchUpdate() throws Exception {
+        DataPoint cloudCoverDp = new DataPoint.Builder()
+            .withCount(4).withFirst(10).withMedian(60).withLast(100).withMean(50).build();
+        String batch = "["
+            + "{\"iata\": \"JFK\", \"pointType\": \"wind\", \"dataPoint\": " + _gson.toJson(_dp) + "},"
+            + "{\"iata\": \"XXX\", \"pointType\": \"wind\", \"dataPoint\": " + _gson.toJson(_dp) + "},"
+            + "{\"iata\": \"JFK\", \"pointType\": \"fog\", \"dataPoint\": " + _gson.toJson(_dp) + "},"
+            + "{\"iata\": \"JFK\", \"pointType\": \"humidty\", \"dataPoint\": {\"mean\": 500}},"
+            + "{\"iata\": \"JFK\", \"pointType\": \"wind\"},"
+            + "{\"iata\": \"JFK\", \"pointType\": \"cloudcover\", \"dataPoint\": " + _gson.toJson(cloudCoverDp) + "}"
+            + "]";
+
+        String response = (String) _update.updateWeatherBatch(
+            new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8))).getEntity();
+        JsonObject result = new JsonParser().parse(response).getAsJsonObject();
+        assertEquals(2, result.get("applied").getAsInt());
+        JsonArray rejected = result.get("rejected").getAsJsonArray();
+        assertEquals(4, rejected.size());
+        String[] statuses = {"UNKNOWN_AIRPORT", "INVALID_TYPE", "INVALID_VALUE", "MALFORMED"};
+        for (int i = 0; i < statuses.length; i++) {
+            assertEquals(i + 1, rejected.get(i).getAsJsonObject().get("index").getAsInt());
+            assertEquals(statuses[i], rejected.get(i).getAsJsonObject().get("status").getAsString());
+        }
+
+        List<AtmosphericInformation> ais = (List<AtmosphericInformation>) _query.weather("JFK", "0").getEntity();
+        assertEquals(_dp, ais.get(0).getWind());
+        assertEquals(cloudCoverDp, ais.get(0).getCloudCover());
+
+        assertEquals(400, _update.updateWeatherBatch(
+            new ByteArrayInputStream("[{".getBytes(StandardCharsets.UTF_8))).getStatus());
+    }
+
+    @Test
+    public void testStreamUpdate() throws Exception {
+        StringBuilder stream = new StringBuilder();
+        String[] iatas = {"BOS", "EWR", "JFK", "LGA", "MMU", "XXX"};
+        for (int i = 0; i < 600; i++) {
+            stream.append("{\"iata\": \"").append(iatas[i % iatas.length])
+                .append("\", \"pointType\": \"wind\", \"dataPoint\": ").append(_gson.toJson(_dp)).append("}\n");
+        }
+
+        String response = (String) _update.updateWeatherStream(
+            new ByteArrayInputStream(stream.toString().getBytes(StandardCharsets.UTF_8))).getEntity();
+        JsonObject result = new JsonParser().parse(response).getAsJsonObject();
+        assertEquals(500, result.get("applied").getAsInt());
+        assertEquals(100, result.get("rejected").getAsJsonObject().get("UNKNOWN_AIRPORT").getAsInt());
+
+        JsonElement pingResult = new JsonParser().parse(_query.ping());
+        assertEquals(5, pingResult.getAsJsonObject().get("datasize").getAsInt());
+
+        assertEquals(400, _update.updateWeatherStream(
+            new ByteArrayInputStream("{\"iata\": \"BOS\"}\n{".getBytes(StandardCharsets.UTF_8))).getStatus());
+    }
+
+    @Test
+    public void testBinaryUpdate() throws Exception {
+        DataPoint temperatureDp = new DataPoint.Builder()
+            .withCount(40).withFirst(10).withMedian(16).withLast(20).withMean(15).build();
+        byte[] batch = WeatherClient.encode(DataPointType.TEMPERATURE, temperatureDp, "EWR", "LGA", "ZZZ");
+
+        String response = (String) _update.updateWeatherBatchBinary(new ByteArrayInputStream(batch)).getEntity();
+        JsonObject result = new JsonParser().parse(response).getAsJsonObject();
+        assertEquals(2, result.get("applied").getAsInt());
+        assertEquals("UNKNOWN_AIRPORT",
+            result.get("rejected").getAsJsonArray().get(0).getAsJsonObject().get("status").getAsString());
+
+        response = (String) _update.updateWeatherStreamBinary(new ByteArrayInputStream(batch)).getEntity();
+        assertEquals(2, new JsonParser().parse(response).getAsJsonObject().get("applied").getAsInt());
+
+        List<AtmosphericInformation> ais = (List<AtmosphericInformation>) _query.weather("LGA", "0").getEntity();
+        assertEquals(temperatureDp, ais.get(0).getTemperature());
+
+        byte[] truncated = new byte[batch.length - 1];
+        System.arraycopy(batch, 0, truncated, 0, truncated.length);
+        assertEquals(400, _update.updateWeatherBatchBinary(new ByteArrayInputStream(truncated)).getStatus());
+    }
+
+    @Test
+    public void testBinaryResponse() throws Exception {
+        DataPoint cloudCoverDp = new DataPoint.Builder()
+            .withCount(4).withFirst(10).withMedian(60).withLast(100).withMean(50).build();
+        _update.updateWeather("JFK", "cloudcover", _gson.toJson(cloudCoverDp));
+        List<AtmosphericInformation> ais = (List<AtmosphericInformation>) _query.weather("JFK", "200").getEntity();
+
+        AtmosphericInformationBinaryWriter writer = new AtmosphericInformationBinaryWriter();
+        MediaType mediaType = MediaType.valueOf(AtmosphericInformationCodec.MEDIA_TYPE);
+        GenericEntity<List<AtmosphericInformation>> entity = new GenericEntity<List<AtmosphericInformation>>(ais) {
+        };
+        assertEquals(true, writer.isWriteable(ais.getClass(), entity.getType(), null, mediaType));
+        assertEquals(false, writer.isWriteable(ais.getClass(), ais.getClass(), null, mediaType));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.writeTo(ais, ais.getClass(), entity.getType(), null, mediaType, null, bytes);
+        List<AtmosphericInformation> decoded =
+            AtmosphericInformationCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(ais.size(), decoded.size());
+        for (int i = 0; i < ais.size(); i++) {
+            assertEquals(ais.get(i).getLastUpdateTime(), decoded.get(i).getLastUpdateTime());
+            for (DataPointType pointType : DataPointType.values()) {
+                assertEquals(ais.get(i).get(pointType), decoded.get(i).get(pointType));
+            }
+        }
+    }
+
+    @Test
+    public void testHistory() throws Exception {
+        long from = System.currentTimeMillis();
+        DataPoint.Builder dataPointBuilder = new DataPoint.Builder()
+            .withCount(10).withFirst(10).withMedian(20).withLast(30);
+        for (int mean = 1; mean <= 3; mean++) {
+            _update.updateWeather("MMU", "wind", _gson.toJson(dataPointBuilder.withMean(mean).build()));
+        }
+
+        TimeSeries series = (TimeSeries) _query.history("MMU", "wind", Long.toString(from), null).getEntity();
+        assertEquals(3, series.size());
+        assertEquals(3, series.getMean()[2], 0);
+        assertEquals(0, ((TimeSeries) _query.history("MMU", "wind", null, Long.toString(from - 1)).getEntity()).size());
+        assertEquals(400, _query.history("MMU", "fog", null, null).getStatus());
+    }
+
+    @Test
+    public void testRollup() throws Exception {
+        DataPoint.Builder dataPointBuilder = new DataPoint.Builder()
+            .withCount(10).withFirst(10).withMedian(20).withLast(30);
+        for (int mean = 1; mean <= 3; mean++) {
+            _update.updateWeather("MMU", "temperature", _gson.toJson(dataPointBuilder.withMean(mean).build()));
+        }
+
+        RollupSeries series = (RollupSeries) _query.rollup("MMU", "temperature", null, null, "86400").getEntity();
+        assertEquals(86400000L, series.getResolution());
+        assertEquals(3, series.getMax()[series.size() - 1], 0);
+        assertEquals(400, _query.rollup("MMU", "fog", null, null, null).getStatus());
+    }
+
+    @Test
+    public void testListenerOrder() throws Exception {
+        assertEquals(AirportSpatialIndex.class, _listeners.get(0).getClass());
+        assertEquals(RadiusQueryCache.class, _listeners.get(_listeners.size() - 1).getClass());
+    }
+
+    @Test
+    public void testServerTiming() throws Exception {
+        WebTarget weather = ClientBuilder.newClient().target("http://localhost:" + _port + "/query/weather/BOS/200");
+        long serialized = stageCount("serialize");
+
+        Response response = weather.request(MediaType.APPLICATION_JSON).get();
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeaderString(ServerTimingFilter.SERVER_TIMING));
+        response.close();
+
+        response = weather.request(MediaType.APPLICATION_JSON).header(ServerTimingFilter.DEBUG_HEADER, "1").get();
+        assertEquals(200, response.getStatus());
+        String timing = response.getHeaderString(ServerTimingFilter.SERVER_TIMING);
+        assertTrue(timing, timing.startsWith("cache;dur="));
+        assertTrue(timing, timing.contains("serialize;dur="));
+        // entity is buffered until the header is set, but must arrive intact
+        assertEquals(1, new JsonParser().parse(response.readEntity(String.class)).getAsJsonArray().size());
+
+        _requestMetrics.rollover();
+        assertEquals(serialized + 2, stageCount("serialize"));
+    }
+
+    private long stageCount(final String stage) {
+        for (RequestMetrics.Snapshot snapshot : _requestMetrics.stageSnapshot()) {
+            if (snapshot.getName().equals(stage)) {
+                return snapshot.getCount();
+            }
+        }
+        throw new IllegalArgumentException(stage);
+    }
 }